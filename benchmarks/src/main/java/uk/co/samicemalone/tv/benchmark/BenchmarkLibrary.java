@@ -0,0 +1,108 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates a TV library of empty episode files in a temporary directory for
+ * the benchmarks to match against. Shows are named "Show 0000", "Show 0001"
+ * etc. and each has the same number of seasons and episodes per season.
+ * @author Sam Malone
+ */
+public class BenchmarkLibrary implements AutoCloseable {
+
+    private final Path root;
+    private final int shows;
+    private final int seasons;
+    private final int episodes;
+
+    private BenchmarkLibrary(Path root, int shows, int seasons, int episodes) {
+        this.root = root;
+        this.shows = shows;
+        this.seasons = seasons;
+        this.episodes = episodes;
+    }
+
+    /**
+     * Generate a new library
+     * @param shows number of shows
+     * @param seasons number of seasons per show
+     * @param episodes number of episodes per season
+     * @return generated library
+     * @throws IOException if unable to create the library
+     */
+    public static BenchmarkLibrary create(int shows, int seasons, int episodes) throws IOException {
+        BenchmarkLibrary library = new BenchmarkLibrary(Files.createTempDirectory("tv-bench-"), shows, seasons, episodes);
+        for (int i = 0; i < shows; i++) {
+            String show = library.getShow(i);
+            for (int season = 1; season <= seasons; season++) {
+                Path seasonDir = Files.createDirectories(library.root.resolve(show).resolve("Season " + season));
+                for (int episode = 1; episode <= episodes; episode++) {
+                    Files.createFile(seasonDir.resolve(String.format("%s - %dx%02d.mkv", show, season, episode)));
+                }
+            }
+        }
+        return library;
+    }
+
+    /**
+     * Get the name of the show with the given index
+     * @param index show index
+     * @return show name
+     */
+    public String getShow(int index) {
+        return String.format("Show %04d", index);
+    }
+
+    /**
+     * Get the name of the show in the middle of the library
+     * @return show name
+     */
+    public String getMiddleShow() {
+        return getShow(shows / 2);
+    }
+
+    public int getSeasons() {
+        return seasons;
+    }
+
+    public int getEpisodes() {
+        return episodes;
+    }
+
+    /**
+     * Get the library root as a source folder list
+     * @return source folders
+     */
+    public List<String> getSourceFolders() {
+        return Collections.singletonList(root.toString());
+    }
+
+    public File getRoot() {
+        return root.toFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
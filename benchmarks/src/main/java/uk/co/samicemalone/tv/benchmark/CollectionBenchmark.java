@@ -0,0 +1,93 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import com.uwetrottmann.trakt5.entities.SyncItems;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.filter.RandomFilter;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.options.UnixEnvironment;
+import uk.co.samicemalone.tv.trakt.TraktSyncBuilder;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the operations on lists of matched episodes: building the Trakt
+ * sync request for a batch of watched episodes and picking random episodes.
+ * @author Sam Malone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectionBenchmark {
+
+    private static final int EPISODES_PER_SEASON = 24;
+
+    @Param({ "10", "1000", "10000" })
+    public int episodeCount;
+
+    @Param({ "1", "10" })
+    public int randomCount;
+
+    private List<Show> shows;
+    private List<Episode> episodes;
+    private List<EpisodeMatch> matches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Arguments args = new Arguments();
+        args.setRandomCount(randomCount);
+        TV.ENV = new UnixEnvironment();
+        TV.ENV.setArguments(args);
+
+        shows = new ArrayList<>();
+        episodes = new ArrayList<>(episodeCount);
+        matches = new ArrayList<>(episodeCount);
+        Instant watchedAt = Instant.now();
+        int showCount = Math.max(1, episodeCount / (EPISODES_PER_SEASON * 10));
+        for (int i = 0; i < showCount; i++) {
+            Show show = new Show(String.format("Show %04d", i));
+            show.setTVDBId(70000 + i);
+            shows.add(show);
+        }
+        for (int i = 0; i < episodeCount; i++) {
+            String show = shows.get(i % showCount).getName();
+            int season = i / showCount / EPISODES_PER_SEASON + 1;
+            int episode = i / showCount % EPISODES_PER_SEASON + 1;
+            episodes.add(new Episode(show, "", season, episode).setWatchedAt(watchedAt));
+            EpisodeMatch match = new EpisodeMatch(show, season, episode);
+            match.setEpisodeFile(new File(String.format("/media/tv/%s/Season %d/%s - %dx%02d.mkv", show, season, show, season, episode)));
+            matches.add(match);
+        }
+    }
+
+    @Benchmark
+    public SyncItems buildSyncItems() {
+        return TraktSyncBuilder.buildSyncItems(shows, episodes);
+    }
+
+    @Benchmark
+    public List<EpisodeMatch> randomFilter() {
+        return RandomFilter.filter(matches);
+    }
+}
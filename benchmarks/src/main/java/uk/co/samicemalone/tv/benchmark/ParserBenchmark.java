@@ -0,0 +1,109 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.tv.URI;
+import uk.co.samicemalone.tv.exception.ExitException;
+import uk.co.samicemalone.tv.io.ConfigParser;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.model.Config;
+import uk.co.samicemalone.tv.options.ArgsParser;
+import uk.co.samicemalone.tv.selector.EpisodeExpression;
+import uk.co.samicemalone.tv.selector.EpisodeExpressionParser;
+import uk.co.samicemalone.tv.selector.EpisodeSelector;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the parsing done on every invocation before any episodes are
+ * matched: the program arguments, the config file, the EPISODES expression,
+ * the selector dispatch and URI encoding.
+ * @author Sam Malone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    private static final String CONFIG =
+        "# tv config\n" +
+        "TVDB_FILE=/home/user/.tv/tvdb.sqlite\n" +
+        "SOURCE=/media/tv\n" +
+        "SOURCE=/media/tv2\n" +
+        "MEDIAINFO_BINARY=/usr/bin/mediainfo\n" +
+        "MEDIAINFO_PROCESSES=4\n" +
+        "PLAYER=vlc\n" +
+        "PLAYER_EXECUTABLE=/usr/bin/vlc\n" +
+        "PLAYER_ARGUMENTS=--fullscreen --no-video-title-show\n" +
+        "PLAYLIST_FORMAT=m3u8\n" +
+        "ENABLE_TRAKT=false\n" +
+        "TRAKT_USE_CHECKINS=false\n" +
+        "ENABLE_EPISODE_INDEX=true\n";
+
+    @Param({ "s02", "s01e02-s03e04", "next", "latest" })
+    public String episodes;
+
+    private Collection<EpisodeSelector> selectors;
+    private String[] args;
+    private File configFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        selectors = Selectors.all(new StandardTVLibrary(Collections.singletonList("/media/tv")), new TVDatabase());
+        args = new String[] { "Modern Family", episodes, "--user", "sam", "--enqueue", "--player", "vlc" };
+        configFile = File.createTempFile("tv-bench-", ".conf");
+        Files.write(configFile.toPath(), CONFIG.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        configFile.delete();
+    }
+
+    @Benchmark
+    public EpisodeExpression parseEpisodes() throws ExitException {
+        return EpisodeExpressionParser.parse(episodes);
+    }
+
+    @Benchmark
+    public EpisodeSelector findEpisodeSelector() throws ExitException {
+        return EpisodeSelector.findEpisodeSelector(selectors, EpisodeExpressionParser.parse(episodes));
+    }
+
+    @Benchmark
+    public Arguments parseArgs() throws ExitException {
+        return ArgsParser.parse(args);
+    }
+
+    @Benchmark
+    public Config parseConfig() throws ExitException {
+        return ConfigParser.parse(configFile);
+    }
+
+    @Benchmark
+    public String encodeUri() {
+        return URI.encode("It's Always Sunny In Philadelphia/Season 1/It's Always Sunny - 1x01 [720p].mkv");
+    }
+}
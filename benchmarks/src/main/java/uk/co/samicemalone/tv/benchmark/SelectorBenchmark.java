@@ -0,0 +1,98 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import com.j256.ormlite.support.ConnectionSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.exception.ExitException;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.options.ArgsParser;
+import uk.co.samicemalone.tv.options.UnixEnvironment;
+import uk.co.samicemalone.tv.options.WindowsEnvironment;
+import uk.co.samicemalone.tv.selector.EpisodeSelector;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the findMatches of each episode selector against a generated
+ * library. The progress selectors read the current progress from an in
+ * memory TVDB.
+ * @author Sam Malone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelectorBenchmark {
+
+    private static final int SEASONS = 8;
+    private static final int EPISODES = 24;
+
+    @Param({ "100", "1000" })
+    public int shows;
+
+    @Param({
+        "all", "s02", "s02e03", "s02e03-", "s02-", "s01-s03", "s01e02-s03e04", "s$",
+        "pilot", "latest", "next", "next-"
+    })
+    public String episodes;
+
+    private BenchmarkLibrary library;
+    private ConnectionSource source;
+    private EpisodeSelector selector;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException, ExitException {
+        library = BenchmarkLibrary.create(shows, SEASONS, EPISODES);
+        String show = library.getMiddleShow();
+        Arguments args = ArgsParser.parse(new String[] { show, episodes });
+        TV.ENV = WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+        TV.ENV.setArguments(args);
+
+        TVDatabase tvdb = new TVDatabase();
+        source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE);
+        Show tvdbShow = new Show(show);
+        tvdb.createOrUpdateShow(tvdbShow);
+        ShowProgress progress = new ShowProgress(tvdbShow, args.getUser(), 2, 5);
+        progress.setWatchedAt(Instant.now());
+        tvdb.setShowProgress(progress.toEpisode());
+
+        selector = EpisodeSelector.findEpisodeSelector(Selectors.all(new StandardTVLibrary(library.getSourceFolders()), tvdb), args.getEpisodeExpression());
+        if(selector == null) {
+            throw new IllegalStateException("no selector for " + episodes);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        source.closeQuietly();
+        library.close();
+    }
+
+    @Benchmark
+    public List<EpisodeMatch> findMatches() throws IOException, ExitException {
+        return selector.findMatches();
+    }
+}
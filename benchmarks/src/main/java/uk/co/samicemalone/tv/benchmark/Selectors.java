@@ -0,0 +1,37 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.tv.selector.EpisodeNavigatorProgressSelector;
+import uk.co.samicemalone.tv.selector.EpisodeSelector;
+import uk.co.samicemalone.tv.selector.LatestEpisodeProgressSelector;
+import uk.co.samicemalone.tv.selector.PilotEpisodeProgressSelector;
+import uk.co.samicemalone.tv.selector.RemainingEpisodesInSeasonFromProgressSelector;
+import uk.co.samicemalone.tv.selector.SingleEpisodeProgressSelector;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Builds the episode selectors in the same order as Application when the
+ * PointerPlugin is loaded
+ * @author Sam Malone
+ */
+public class Selectors {
+
+    /**
+     * Get the default episode selectors and the progress selectors
+     * @param tvPath TVPath
+     * @param tvDatabase TVDatabase for the progress selectors
+     * @return selectors in priority order
+     */
+    public static Queue<EpisodeSelector> all(TVPath tvPath, TVDatabase tvDatabase) {
+        Queue<EpisodeSelector> selectors = new PriorityQueue<>(EpisodeSelector.defaultSelectors(tvPath));
+        selectors.add(new SingleEpisodeProgressSelector(tvPath, tvDatabase));
+        selectors.add(new PilotEpisodeProgressSelector(tvPath, tvDatabase));
+        selectors.add(new LatestEpisodeProgressSelector(tvPath, tvDatabase));
+        selectors.add(new EpisodeNavigatorProgressSelector(tvPath, tvDatabase));
+        selectors.add(new RemainingEpisodesInSeasonFromProgressSelector(tvPath, tvDatabase));
+        return selectors;
+    }
+}
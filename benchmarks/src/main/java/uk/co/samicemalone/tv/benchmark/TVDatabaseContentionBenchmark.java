@@ -0,0 +1,137 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import com.j256.ormlite.support.ConnectionSource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.TVDatabaseProfile;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks concurrent invocations against a single TVDB file. Each thread
+ * has its own connection, like a separate tv process, and moves the pointer
+ * of its own show then reads the recent progress of every show. The
+ * "sqlite" profile uses the SQLite defaults (rollback journal, full sync, no
+ * busy timeout) and the "tuned" profile uses the {@link TVDatabaseProfile}
+ * defaults. The failed counter is the number of invocations that failed
+ * because the TVDB was locked.
+ * @author Sam Malone
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TVDatabaseContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedTVDB {
+
+        @Param({ "sqlite", "tuned" })
+        public String profile;
+
+        private File directory;
+        private File database;
+        private final AtomicInteger nextShow = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, SQLException {
+            directory = Files.createTempDirectory("tv-contention").toFile();
+            database = new File(directory, "tvdb.sqlite");
+            // create the tables and set the journal mode before the threads connect
+            TVDatabase tvdb = new TVDatabase();
+            tvdb.setProfile(getProfile());
+            tvdb.connect(database.getAbsolutePath()).closeQuietly();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            File[] files = directory.listFiles();
+            if(files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+
+        TVDatabaseProfile getProfile() {
+            TVDatabaseProfile tvdbProfile = new TVDatabaseProfile();
+            if("sqlite".equals(profile)) {
+                tvdbProfile.setJournalMode("delete");
+                tvdbProfile.setSynchronous("full");
+                tvdbProfile.setMmapSize("0");
+                tvdbProfile.setCacheSize("-2000");
+                tvdbProfile.setBusyTimeout("0");
+                tvdbProfile.setBusyRetries("0");
+                tvdbProfile.setTempStore("default");
+            }
+            return tvdbProfile;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Invocation {
+
+        public long failed;
+
+        private TVDatabase tvdb;
+        private ConnectionSource source;
+        private ShowProgress progress;
+        private int episode;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedTVDB shared) throws SQLException {
+            tvdb = new TVDatabase();
+            tvdb.setProfile(shared.getProfile());
+            source = tvdb.connect(shared.database.getAbsolutePath());
+            Show show = new Show("Show " + shared.nextShow.incrementAndGet());
+            tvdb.createOrUpdateShow(show);
+            progress = new ShowProgress(show, "", 1, 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            source.closeQuietly();
+        }
+    }
+
+    @Benchmark
+    public List<ShowProgress> setAndReadProgress(Invocation invocation) {
+        try {
+            Episode pointer = new Episode(invocation.progress.getShow().getName(), "", 1, ++invocation.episode);
+            pointer.setWatchedAt(Instant.now());
+            invocation.tvdb.setShowProgress(pointer);
+            return invocation.tvdb.getRecentShowProgress("");
+        } catch (SQLException e) {
+            invocation.failed++;
+            return null;
+        }
+    }
+}
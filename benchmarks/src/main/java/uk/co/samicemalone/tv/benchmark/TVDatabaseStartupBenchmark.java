@@ -0,0 +1,80 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.TVDatabaseTableConfigs;
+import uk.co.samicemalone.tv.tvdb.model.IndexedDirectory;
+import uk.co.samicemalone.tv.tvdb.model.IndexedEpisode;
+import uk.co.samicemalone.tv.tvdb.model.MediaDuration;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks creating the TVDB DAOs in a fresh JVM, as happens on every
+ * invocation of tv. The "annotations" mode creates the DAOs by reading the
+ * model annotations and the "generated" mode loads the table configs
+ * generated at build time first. Each fork measures a single cold start so
+ * run with enough forks to average out the noise e.g. -f 20.
+ * @author Sam Malone
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class TVDatabaseStartupBenchmark {
+
+    @Param({ "annotations", "generated" })
+    public String tableConfigs;
+
+    private ConnectionSource source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        source = new JdbcConnectionSource("jdbc:sqlite:" + TVDatabase.IN_MEMORY_DATABASE);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearDaos() {
+        DaoManager.clearCache();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        source.closeQuietly();
+    }
+
+    @Benchmark
+    public Dao<?, ?> createDaos() throws SQLException {
+        if("generated".equals(tableConfigs) && !TVDatabaseTableConfigs.load()) {
+            throw new IllegalStateException(TVDatabaseTableConfigs.RESOURCE + " not found, build tv with maven");
+        }
+        DaoManager.createDao(source, Show.class);
+        DaoManager.createDao(source, ShowProgress.class);
+        DaoManager.createDao(source, IndexedEpisode.class);
+        DaoManager.createDao(source, IndexedDirectory.class);
+        DaoManager.createDao(source, MediaDuration.class);
+        return DaoManager.createDao(source, TraktShowProgressQueue.class);
+    }
+}
@@ -0,0 +1,122 @@
+package uk.co.samicemalone.tv.benchmark;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.samicemalone.tv.exception.TraktException;
+import uk.co.samicemalone.tv.trakt.TraktClient;
+import uk.co.samicemalone.tv.trakt.TraktQueueProcessor;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks draining the trakt progress queue against a local stand-in for
+ * the trakt sync API, which accepts every request. Each measured invocation
+ * drains a queue of queueSize SEEN items in chunks of chunkSize.
+ * @author Sam Malone
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraktQueueProcessorBenchmark {
+
+    @Param({ "10000" })
+    public int queueSize;
+
+    @Param({ "50", "250" })
+    public int chunkSize;
+
+    private TVDatabase tvdb;
+    private ConnectionSource source;
+    private HttpServer server;
+    private Dao<TraktShowProgressQueue, Integer> dao;
+    private Show show;
+    private TraktQueueProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/sync/history", TraktQueueProcessorBenchmark::handleSync);
+        server.start();
+        tvdb = new TVDatabase();
+        source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE);
+        dao = DaoManager.createDao(source, TraktShowProgressQueue.class);
+        show = new Show("Scrubs");
+        show.setTVDBId(76156);
+        tvdb.createOrUpdateShow(show);
+        String apiUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        processor = new TraktQueueProcessor(new TraktClient(apiUrl, null), tvdb, dao, chunkSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillQueue() throws Exception {
+        long watchedAt = System.currentTimeMillis();
+        dao.callBatchTasks(() -> {
+            for (int i = 1; i <= queueSize; i++) {
+                TraktShowProgressQueue item = new TraktShowProgressQueue();
+                item.setShow(show);
+                item.setSeason(1);
+                item.setEpisode(i);
+                item.setMarkType(TraktShowProgressQueue.SEEN);
+                item.setWatchedAt(new Date(watchedAt + i * 1000L));
+                dao.create(item);
+            }
+            return null;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        source.closeQuietly();
+        server.stop(0);
+    }
+
+    private static void handleSync(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // the request is only drained
+            }
+        }
+        byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(201, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    @Benchmark
+    public int process() throws SQLException, TraktException {
+        return processor.process();
+    }
+}
@@ -3,6 +3,7 @@ package uk.co.samicemalone.tv;
 import com.j256.ormlite.logger.Logger;
 import com.j256.ormlite.logger.LoggerFactory;
 import com.j256.ormlite.support.ConnectionSource;
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
 import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
 import uk.co.samicemalone.libtv.matcher.path.TVPath;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
@@ -13,53 +14,133 @@ import uk.co.samicemalone.tv.filter.RandomFilter;
 import uk.co.samicemalone.tv.model.Arguments;
 import uk.co.samicemalone.tv.model.Episode;
 import uk.co.samicemalone.tv.plugin.Plugin;
+import uk.co.samicemalone.tv.plugin.PluginActivation;
 import uk.co.samicemalone.tv.plugin.PointerPlugin;
 import uk.co.samicemalone.tv.plugin.TraktPlugin;
 import uk.co.samicemalone.tv.selector.CurrentProgressProvider;
+import uk.co.samicemalone.tv.selector.EpisodeExpression;
+import uk.co.samicemalone.tv.selector.EpisodeNavigatorProgressSelector;
 import uk.co.samicemalone.tv.selector.EpisodeSelector;
+import uk.co.samicemalone.tv.selector.UpNextSelector;
+import uk.co.samicemalone.tv.tvdb.IndexedTVEpisodeMatcher;
 import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class Application implements Lifecycle {
 
     private final static Logger logger = LoggerFactory.getLogger(Application.class.getName());
 
+    /**
+     * How the TVDB is used by a run
+     */
+    enum TVDBAccess {
+        /** the TVDB isn't opened **/
+        NONE,
+        /** the TVDB is only read from e.g. to list the episodes from the current progress **/
+        READ_ONLY,
+        /** the TVDB is written to e.g. to move the current progress **/
+        READ_WRITE
+    }
+
     private List<Plugin> pluginList;
     private List<ActionListener> actionListeners;
     private List<Action> actions;
-    private Queue<EpisodeSelector> episodeSelectors;
+    private Map<EpisodeExpression.Type, EpisodeSelector> episodeSelectors;
     private CurrentProgressProvider currentProgressProvider;
     private TVDatabase tvDatabase;
     private Arguments args;
     private TVPath tvPath;
+    private TVEpisodeMatcher tvEpisodeMatcher;
+    private final boolean isResident;
+    private String connectedTVDB;
+    private List<String> tvPathSourceFolders;
+    private TraktPlugin traktPlugin;
+    private TVDBAccess tvdbAccess;
 
     public Application(TVDatabase tvDatabase) {
+        this(tvDatabase, false);
+    }
+
+    /**
+     * Creates a new Application
+     * @param tvDatabase TVDatabase
+     * @param isResident true to keep the TVDB connection, TVPath and plugins
+     * between runs (i.e. when running as a daemon). The connection has to be
+     * closed with {@link #close()}. false to connect and close the TVDB for
+     * each run.
+     */
+    public Application(TVDatabase tvDatabase, boolean isResident) {
         this.pluginList = new ArrayList<>();
         this.actionListeners = new ArrayList<>();
         this.actions = new ArrayList<>();
-        this.episodeSelectors = new PriorityQueue<>();
+        this.episodeSelectors = new EnumMap<>(EpisodeExpression.Type.class);
         this.tvDatabase = tvDatabase;
         this.currentProgressProvider = null;
+        this.isResident = isResident;
     }
 
+    /**
+     * Get the show from the TVDB. If the show isn't in the TVDB, it is only
+     * added if the run writes to the TVDB.
+     * @return show
+     * @throws SQLException if unable to query or add the show
+     */
     private Show getShow() throws SQLException {
-        Show show = tvDatabase.getShowByName(args.getShow());
+        Show show = tvdbAccess == TVDBAccess.NONE ? null : tvDatabase.getShowByName(args.getShow());
         if(show == null) {
             show = new Show(args.getShow());
-            tvDatabase.createOrUpdateShow(show);
+            if(tvdbAccess == TVDBAccess.READ_WRITE) {
+                tvDatabase.createOrUpdateShow(show);
+            }
         }
         return show;
     }
 
+    /**
+     * Get how the TVDB is used by a run with the given arguments. Listing,
+     * counting or sizing episodes never writes to the TVDB, so the TVDB is
+     * only opened (read only) if the episodes are found from the current
+     * progress. A read only run uses the episode index without refreshing
+     * it. Any other action or the trakt pointer may write to the TVDB.
+     * @param args Arguments
+     * @return TVDB access
+     */
+    static TVDBAccess getTVDBAccess(Arguments args) {
+        switch (args.getMediaAction()) {
+            case Action.LIST:
+            case Action.LIST_PATH:
+            case Action.COUNT:
+            case Action.SIZE:
+                break;
+            default:
+                return TVDBAccess.READ_WRITE;
+        }
+        if(args.isTraktPointerSet()) {
+            return TVDBAccess.READ_WRITE;
+        }
+        if(args.isUpNextSet()) {
+            return TVDBAccess.READ_ONLY;
+        }
+        switch (args.getEpisodeExpression().getType()) {
+            case POINTER:
+            case POINTER_FROM:
+                return TVDBAccess.READ_ONLY;
+            default:
+                return TVDBAccess.NONE;
+        }
+    }
+
     public EpisodeSelector getEpisodeSelector() throws ExitException {
-        EpisodeSelector episodeSelector = EpisodeSelector.findEpisodeSelector(episodeSelectors, args.getEpisodes());
+        EpisodeSelector episodeSelector = episodeSelectors.get(args.getEpisodeExpression().getType());
         if(episodeSelector == null) {
             throw new ExitException("Episode Selector Not Found", ExitCode.PARSE_EPISODES_FAILED);
         }
@@ -92,25 +173,73 @@ public class Application implements Lifecycle {
 
     @Override
     public void onLoad() {
-        tvPath = new StandardTVLibrary(args.getSourceFolders());
+        pluginList.clear();
+        actionListeners.clear();
+        actions.clear();
+        episodeSelectors.clear();
+        currentProgressProvider = null;
+
+        if(tvPath == null || !args.getSourceFolders().equals(tvPathSourceFolders)) {
+            tvPath = new StandardTVLibrary(args.getSourceFolders());
+            tvPathSourceFolders = new ArrayList<>(args.getSourceFolders());
+        }
+        tvEpisodeMatcher = null;
+        // a run that doesn't open the TVDB lists the source folders
+        if(TV.ENV.isEpisodeIndexEnabled() && tvdbAccess != TVDBAccess.NONE) {
+            tvEpisodeMatcher = new IndexedTVEpisodeMatcher(tvPath, args.getSourceFolders(), tvDatabase);
+        }
 
-        registerPlugin(new PointerPlugin(tvDatabase));
+        activatePlugin("PointerPlugin", PointerPlugin.ACTIVATION, () -> new PointerPlugin(tvDatabase));
+        // every run that activates the trakt plugin writes to the TVDB. A
+        // resident Application keeps the plugin so it isn't authenticated
+        // for every run
         if(TV.ENV.isTraktEnabled()) {
-            registerPlugin(new TraktPlugin(tvDatabase));
+            activatePlugin("TraktPlugin", TraktPlugin.ACTIVATION, () -> {
+                if(traktPlugin == null || !isResident) {
+                    traktPlugin = new TraktPlugin(tvDatabase);
+                }
+                return traktPlugin;
+            });
         }
 
         EpisodeSelector.defaultSelectors(tvPath).forEach(this::registerEpisodeSelector);
-        Action.defaultActions().forEach(this::registerAction);
+        Action.defaultActions(tvDatabase).forEach(this::registerAction);
 
-        pluginList.forEach(plugin -> plugin.onLoad(this));
+        Timings timings = TV.ENV.getTimings();
+        for (Plugin plugin : pluginList) {
+            try (Timings.Phase phase = timings.start("plugin.onLoad " + plugin.getClass().getSimpleName())) {
+                plugin.onLoad(this);
+            }
+        }
     }
 
     public void registerPlugin(Plugin plugin) {
         pluginList.add(plugin);
     }
 
+    /**
+     * Create and register a plugin if the arguments of the run activate it.
+     * The plugin isn't created otherwise so its classes aren't loaded.
+     * @param name plugin name used by the timings
+     * @param activation the runs the plugin is used by
+     * @param factory creates the plugin
+     */
+    private void activatePlugin(String name, PluginActivation activation, Supplier<Plugin> factory) {
+        if(!activation.isActivatedBy(args)) {
+            logger.debug("[app] plugin {} isn't used by this run", name);
+            return;
+        }
+        try (Timings.Phase phase = TV.ENV.getTimings().start("plugin.create " + name)) {
+            registerPlugin(factory.get());
+        }
+    }
+
     public void registerEpisodeSelector(EpisodeSelector episodeSelector) {
-        episodeSelectors.add(episodeSelector);
+        if(tvEpisodeMatcher != null) {
+            episodeSelector.setTVEpisodeMatcher(tvEpisodeMatcher);
+        }
+        // if more than one selector owns the expression type, keep the one that sorts first
+        episodeSelectors.merge(episodeSelector.getExpressionType(), episodeSelector, (a, b) -> a.compareTo(b) <= 0 ? a : b);
     }
 
     public void registerAction(Action action) {
@@ -125,37 +254,171 @@ public class Application implements Lifecycle {
         currentProgressProvider = provider;
     }
 
+    /**
+     * Connect to the TVDB if not already connected to the TVDB given in the
+     * environment, or if the run writes to a TVDB opened read only. Any
+     * previous connection is closed. A run that doesn't use the TVDB keeps
+     * the existing connection.
+     * @throws SQLException if unable to connect
+     */
+    private void connectResident() throws SQLException {
+        if(tvdbAccess == TVDBAccess.NONE) {
+            return;
+        }
+        String tvdb = TV.ENV.getTVDB();
+        boolean isWritable = connectedTVDB != null && !tvDatabase.isReadOnly();
+        if(!tvdb.equals(connectedTVDB) || (tvdbAccess == TVDBAccess.READ_WRITE && !isWritable)) {
+            close();
+            logger.debug("[app] connecting to tvdb {}", tvdb);
+            connect(tvdb);
+            connectedTVDB = tvdb;
+        }
+    }
+
+    private ConnectionSource connect(String tvdb) throws SQLException {
+        try (Timings.Phase phase = TV.ENV.getTimings().start("tvdb.connect")) {
+            tvDatabase.setProfile(TV.ENV.getTVDBProfile());
+            return tvDatabase.connect(tvdb, tvdbAccess == TVDBAccess.READ_ONLY);
+        }
+    }
+
+    /**
+     * Close the TVDB connection kept open by a resident Application
+     */
+    public void close() {
+        if(connectedTVDB != null) {
+            tvDatabase.getConnectionSource().closeQuietly();
+            connectedTVDB = null;
+        }
+    }
+
     public void run(Arguments args) throws Exception {
         this.args = args;
-        try (ConnectionSource connection = tvDatabase.connect(TV.ENV.getTVDB())) {
+        this.tvdbAccess = getTVDBAccess(args);
+        logger.debug("[app] tvdb access = {}", tvdbAccess);
+        try (Timings.Phase phase = TV.ENV.getTimings().start("app.run")) {
+            if(isResident) {
+                connectResident();
+                execute(args);
+                return;
+            }
+            if(tvdbAccess == TVDBAccess.NONE) {
+                execute(args);
+                return;
+            }
+            try (ConnectionSource connection = connect(TV.ENV.getTVDB())) {
+                execute(args);
+            }
+        }
+    }
+
+    private void execute(Arguments args) throws Exception {
+        Timings timings = TV.ENV.getTimings();
+        try (Timings.Phase phase = timings.start("app.onLoad")) {
             onLoad();
+        }
+
+        if(args.isUpNextSet()) {
+            executeUpNext(args);
+        } else {
+            executeEpisodes(args);
+        }
 
-            Show show = getShow();
-            EpisodeSelector selector = getEpisodeSelector();
-            logger.debug("[app] episode selector = {}", selector.getClass().getName());
+        for (Plugin plugin : pluginList) {
+            logger.debug("[app] unloading plugin {}", plugin.getClass().getName());
+            try (Timings.Phase phase = timings.start("plugin.onUnload " + plugin.getClass().getSimpleName())) {
+                plugin.onUnload(this);
+            }
+        }
+        logger.debug("[app] exiting");
+    }
 
-            ShowProgress currentProgress = getCurrentProgress(selector, show, args.getUser());
-            Episode currentProgressEpisode = currentProgress == null ? null : currentProgress.toEpisode();
-            logger.debug("[app] current progress = {}", currentProgressEpisode);
+    private void executeEpisodes(Arguments args) throws Exception {
+        Timings timings = TV.ENV.getTimings();
+        Show show;
+        try (Timings.Phase phase = timings.start("tvdb.getShow")) {
+            show = getShow();
+        }
+        EpisodeSelector selector = getEpisodeSelector();
+        logger.debug("[app] episode selector = {}", selector.getClass().getName());
 
-            List<EpisodeMatch> matches = selector.findMatchesOrThrow();
-            if(args.getRandomCount() > 0) {
-                matches = RandomFilter.filter(matches);
+        ShowProgress currentProgress = null;
+        if(tvdbAccess != TVDBAccess.NONE) {
+            try (Timings.Phase phase = timings.start("tvdb.getCurrentProgress")) {
+                currentProgress = getCurrentProgress(selector, show, args.getUser());
             }
+        }
+        Episode currentProgressEpisode = currentProgress == null ? null : currentProgress.toEpisode();
+        logger.debug("[app] current progress = {}", currentProgressEpisode);
 
-            logger.debug("[app] executing media action");
-            getMediaAction().execute(show, matches);
+        List<EpisodeMatch> matches;
+        try (Timings.Phase phase = timings.start("selector.findMatches " + selector.getClass().getSimpleName())) {
+            matches = selector.findMatchesOrThrow();
+        }
+        if(args.getRandomCount() > 0) {
+            matches = RandomFilter.filter(matches);
+        }
 
-            for(ActionListener listener : actionListeners) {
-                logger.debug("[app] calling action listener {}", listener.getClass().getName());
+        logger.debug("[app] executing media action");
+        Action action = getMediaAction();
+        try (Timings.Phase phase = timings.start("action.execute " + action.getClass().getSimpleName())) {
+            action.execute(show, matches);
+        }
+
+        for(ActionListener listener : actionListeners) {
+            logger.debug("[app] calling action listener {}", listener.getClass().getName());
+            try (Timings.Phase phase = timings.start("listener.onActionExecuted " + listener.getClass().getSimpleName())) {
                 listener.onActionExecuted(show, selector, matches, currentProgress);
             }
+        }
+    }
 
-            for (Plugin plugin : pluginList) {
-                logger.debug("[app] unloading plugin {}", plugin.getClass().getName());
-                plugin.onUnload(this);
+    /**
+     * Execute the media action on the next episode of the most recently
+     * watched shows (using --up-next). The action listeners are then called
+     * for each show as if its next episode was selected with
+     * {@code TVSHOW next}, so playing the episodes moves the pointers and
+     * marks the episodes as seen on trakt unless the ignore flag is set.
+     * @param args Arguments
+     * @throws Exception if unable to find the episodes or execute the action
+     */
+    private void executeUpNext(Arguments args) throws Exception {
+        Timings timings = TV.ENV.getTimings();
+        UpNextSelector selector = new UpNextSelector(tvPath, args.getSourceFolders(), tvDatabase);
+        Map<ShowProgress, EpisodeMatch> upNext;
+        try (Timings.Phase phase = timings.start("selector.findMatches " + selector.getClass().getSimpleName())) {
+            upNext = selector.findMatches(args.getUser(), args.getUpNextCount());
+        }
+        if(upNext.isEmpty()) {
+            throw new ExitException("Unable to find the next episode of any show", ExitCode.EPISODES_NOT_FOUND);
+        }
+
+        logger.debug("[app] executing media action");
+        Action action = getMediaAction();
+        try (Timings.Phase phase = timings.start("action.execute " + action.getClass().getSimpleName())) {
+            action.execute(null, new ArrayList<>(upNext.values()));
+        }
+        if(actionListeners.isEmpty()) {
+            return;
+        }
+
+        EpisodeSelector pointerSelector = new EpisodeNavigatorProgressSelector(tvPath, tvDatabase);
+        if(tvEpisodeMatcher != null) {
+            pointerSelector.setTVEpisodeMatcher(tvEpisodeMatcher);
+        }
+        for (Map.Entry<ShowProgress, EpisodeMatch> entry : upNext.entrySet()) {
+            // the progress only has the id and name of the show
+            Show show = tvDatabase.getShow(entry.getKey().getShow().getId());
+            if(show == null) {
+                show = entry.getKey().getShow();
+            }
+            List<EpisodeMatch> matches = Collections.singletonList(entry.getValue());
+            for(ActionListener listener : actionListeners) {
+                logger.debug("[app] calling action listener {} for {}", listener.getClass().getName(), show.getName());
+                try (Timings.Phase phase = timings.start("listener.onActionExecuted " + listener.getClass().getSimpleName())) {
+                    listener.onActionExecuted(show, pointerSelector, matches, entry.getKey());
+                }
             }
-            logger.debug("[app] exiting");
         }
     }
 }
@@ -58,4 +58,6 @@ public class ExitCode {
     public final static int UNEXPECTED_ARGUMENT = 22; // unexpected argument given
     public final static int TRAKT_ERROR = 23; // trakt error
     public final static int TVDB_ERROR = 24; // trakt error
+    public final static int DAEMON_ERROR = 25; // daemon socket error
+    public final static int UNEXPECTED_ERROR = 26; // unhandled exception
 }
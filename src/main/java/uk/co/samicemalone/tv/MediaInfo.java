@@ -28,26 +28,83 @@
  */
 package uk.co.samicemalone.tv;
 
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
- *
+ * Reads the duration of media files using the mediainfo cli. The files are
+ * split into chunks that fit within the command line length limit of the OS
+ * and up to {@link #getMaxProcesses()} mediainfo processes are run
+ * concurrently.
  * @author Sam Malone
  */
 public class MediaInfo {
-    
+
+    private final static Logger logger = LoggerFactory.getLogger(MediaInfo.class.getName());
+
+    public static final int DEFAULT_MAX_PROCESSES = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /** time allowed for a single mediainfo process to exit **/
+    public static final long DEFAULT_TIMEOUT_SECONDS = 120;
+
+    /** conservative command line length limit. Windows limits the command
+     * line to 32767 characters. POSIX only guarantees 4096 bytes but Linux
+     * and macOS allow at least 256KB including the environment **/
+    private static final int WINDOWS_MAX_COMMAND_LENGTH = 32000;
+    private static final int MAX_COMMAND_LENGTH = 128 * 1024;
+
+    private static final String OUTPUT_FORMAT = "--Output=General;%CompleteName%|%Duration%\\r\\n";
+
     private final File executable;
     private final List<String> filePaths;
+    private final int maxProcesses;
+    private final long timeoutSeconds;
     
     public MediaInfo(File binary) {
+        this(binary, DEFAULT_MAX_PROCESSES);
+    }
+
+    /**
+     * Creates a new MediaInfo
+     * @param binary mediainfo binary
+     * @param maxProcesses maximum number of mediainfo processes to run
+     * concurrently
+     */
+    public MediaInfo(File binary, int maxProcesses) {
+        this(binary, maxProcesses, DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Creates a new MediaInfo
+     * @param binary mediainfo binary
+     * @param maxProcesses maximum number of mediainfo processes to run
+     * concurrently
+     * @param timeoutSeconds time allowed for each mediainfo process to exit
+     * before it is killed
+     */
+    public MediaInfo(File binary, int maxProcesses, long timeoutSeconds) {
         filePaths = new ArrayList<>();
         executable = binary;
+        this.maxProcesses = Math.max(1, maxProcesses);
+        this.timeoutSeconds = timeoutSeconds;
     }
     
     /**
@@ -58,35 +115,195 @@ public class MediaInfo {
         filePaths.add(file);
     }
 
+    /**
+     * Check if any files have been added
+     * @return true if no files have been added, false otherwise
+     */
+    public boolean isEmpty() {
+        return filePaths.isEmpty();
+    }
+
+    public int getMaxProcesses() {
+        return maxProcesses;
+    }
+
     /**
      * Get the length of the media files in filePaths.
      * mediainfo binary is executed from this method.
      * @return Length in seconds. 0 if filePaths is empty.
      */
     public long getLength() {
+        return getLengthMillis() / 1000;
+    }
+
+    /**
+     * Get the length of the media files in filePaths.
+     * mediainfo binary is executed from this method.
+     * @return Length in milliseconds. 0 if filePaths is empty.
+     */
+    public long getLengthMillis() {
         long lengthMS = 0;
+        for (long duration : getDurations().values()) {
+            lengthMS += duration;
+        }
+        return lengthMS;
+    }
+
+    /**
+     * Get the duration of each media file in filePaths.
+     * mediainfo binary is executed from this method.
+     * @return map of file path (as added) to duration in milliseconds. Files
+     * that mediainfo could not read a duration from, or whose mediainfo
+     * process timed out or failed, are not included.
+     */
+    public Map<String, Long> getDurations() {
+        List<List<String>> chunks = getChunks(isWindows() ? WINDOWS_MAX_COMMAND_LENGTH : MAX_COMMAND_LENGTH);
+        Map<String, Long> durations = new LinkedHashMap<>();
+        if(chunks.isEmpty()) {
+            return durations;
+        }
+        if(chunks.size() == 1) {
+            durations.putAll(execute(chunks.get(0)));
+            return durations;
+        }
+        logger.debug("[mediainfo] reading {} files in {} chunks", filePaths.size(), chunks.size());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(maxProcesses, chunks.size()));
+        try {
+            List<Future<Map<String, Long>>> results = new ArrayList<>(chunks.size());
+            for (List<String> chunk : chunks) {
+                results.add(pool.submit(() -> execute(chunk)));
+            }
+            for (Future<Map<String, Long>> result : results) {
+                // a failed chunk only loses its own durations
+                try {
+                    durations.putAll(result.get());
+                } catch (ExecutionException e) {
+                    logger.warn("[mediainfo] {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return durations;
+    }
+
+    /**
+     * Split filePaths into chunks whose command line length does not exceed
+     * maxCommandLength. The files are spread over at least
+     * {@link #getMaxProcesses()} chunks so the processes share the work.
+     * @param maxCommandLength maximum command line length
+     * @return chunks of file paths or empty list if there are no files
+     */
+    List<List<String>> getChunks(int maxCommandLength) {
+        List<List<String>> chunks = new ArrayList<>();
         if(filePaths.isEmpty()) {
-            return 0;
+            return chunks;
+        }
+        int maxFiles = (filePaths.size() + maxProcesses - 1) / maxProcesses;
+        int baseLength = getArgumentLength(executable.getAbsolutePath()) + getArgumentLength(OUTPUT_FORMAT);
+        List<String> chunk = new ArrayList<>();
+        int length = baseLength;
+        for (String path : filePaths) {
+            int pathLength = getArgumentLength(path);
+            if(!chunk.isEmpty() && (chunk.size() >= maxFiles || length + pathLength > maxCommandLength)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                length = baseLength;
+            }
+            chunk.add(path);
+            length += pathLength;
         }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    /**
+     * Get the length of the argument on the command line including the
+     * separator and quotes
+     */
+    private static int getArgumentLength(String argument) {
+        return argument.length() * (isWindows() ? 1 : 4) + 3;
+    }
+
+    private static boolean isWindows() {
+        return File.separatorChar == '\\';
+    }
+
+    /**
+     * Run mediainfo for the given files. stdout and stderr are drained on
+     * separate threads so the process is killed if it does not exit within
+     * the timeout, even if it stops writing output.
+     * @param paths file paths
+     * @return map of file path to duration in milliseconds
+     */
+    private Map<String, Long> execute(List<String> paths) {
+        Map<String, Long> durations = new ConcurrentHashMap<>();
         List<String> commands = new ArrayList<>();
         commands.add(executable.getAbsolutePath());
-        commands.add("--Output=Video;%Duration%\\r\\n");
-        commands.addAll(filePaths);
+        commands.add(OUTPUT_FORMAT);
+        commands.addAll(paths);
+        Process process;
+        try {
+            process = new ProcessBuilder(commands).start();
+        } catch (IOException e) {
+            logger.warn("[mediainfo] unable to run {}: {}", executable, e.getMessage());
+            return durations;
+        }
+        Thread stdout = drain(process.getInputStream(), "mediainfo-stdout", line -> parseLine(durations, line));
+        Thread stderr = drain(process.getErrorStream(), "mediainfo-stderr", line -> logger.debug("[mediainfo] {}", line));
         try {
-            Process process = new ProcessBuilder(commands).start();
-            InputStream is = process.getInputStream();
-            InputStreamReader isr = new InputStreamReader(is);
-            BufferedReader br = new BufferedReader(isr);
-            String line;
-            while ((line = br.readLine()) != null) {
-                if(!line.isEmpty()) {
-                    lengthMS += parseLong(line, 0);
+            if(!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("[mediainfo] timed out reading {} files", paths.size());
+                process.destroyForcibly();
+            }
+            stdout.join();
+            stderr.join();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        return durations;
+    }
+
+    /**
+     * Read the lines of the given stream on a new thread. mediainfo writes
+     * UTF-8 whatever the platform charset, so the complete names of files
+     * with non-ASCII paths match the paths added.
+     */
+    private static Thread drain(InputStream is, String name, Consumer<String> consumer) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    consumer.accept(line);
                 }
+            } catch (IOException e) {
+                logger.debug("[mediainfo] unable to read {}: {}", name, e.getMessage());
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Parse a line of mediainfo output in the format name|duration
+     * @param durations map to add the parsed duration to
+     * @param line line of output
+     */
+    private void parseLine(Map<String, Long> durations, String line) {
+        int separator = line.lastIndexOf('|');
+        if(separator > 0) {
+            String value = line.substring(separator + 1);
+            // some versions of mediainfo output fractional milliseconds
+            int decimal = value.indexOf('.');
+            long duration = parseLong(decimal < 0 ? value : value.substring(0, decimal), -1);
+            if(duration >= 0) {
+                durations.put(line.substring(0, separator), duration);
             }
-        } catch (IOException e) {
-            
         }
-        return (lengthMS / 1000);
     }
     
     /**
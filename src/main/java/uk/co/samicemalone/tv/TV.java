@@ -32,6 +32,8 @@ import com.j256.ormlite.logger.Level;
 import com.j256.ormlite.logger.Logger;
 
 import uk.co.samicemalone.tv.action.FileAction;
+import uk.co.samicemalone.tv.batch.TVBatch;
+import uk.co.samicemalone.tv.daemon.TVDaemon;
 import uk.co.samicemalone.tv.exception.ExitException;
 import uk.co.samicemalone.tv.io.ConfigParser;
 import uk.co.samicemalone.tv.model.Arguments;
@@ -42,74 +44,215 @@ import uk.co.samicemalone.tv.options.UnixEnvironment;
 import uk.co.samicemalone.tv.options.WindowsEnvironment;
 import uk.co.samicemalone.tv.tvdb.TVDatabase;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Entry point to the application.
  * The command line arguments can take various forms/invocations.
  * The default invocation is when TVSHOW EPISODES arguments are given.
  * The file invocation is used when the --file argument is given.
+ * The daemon invocation is used when the --daemon argument is given.
+ * The batch invocation is used when the --batch argument is given.
  * @author Sam Malone
  */
 public class TV {
       
     public static Environment ENV;
 
+    /** parsed config files cached by path for the lifetime of the daemon **/
+    private static final Map<File, CachedConfig> CONFIG_CACHE = new HashMap<>();
+
     /**
      * @param args the command line arguments
      */
     public static void main(String[] args) {
         Logger.setGlobalLogLevel(Level.INFO);
-        ENV = WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+        int exitCode = execute(args, null);
+        if(exitCode != ExitCode.SUCCESS) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Execute a single invocation of the TV program with the given arguments.
+     * @param args the command line arguments
+     * @param app Application to run the EPISODES invocation with or null to
+     * create a new Application that connects to the TVDB for this invocation
+     * only. A resident Application is given when running as a daemon or
+     * running a batch.
+     * @return exit code
+     */
+    public static int execute(String[] args, Application app) {
+        // a batch invocation replaces ENV for each command it runs
+        Environment env = ENV = WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+        int exitCode = invoke(args, app);
+        if(env.getArguments() != null && env.getArguments().getTimingsFormat() != null) {
+            env.getTimings().print(System.err, env.getArguments().getTimingsFormat());
+        }
+        return exitCode;
+    }
+
+    /**
+     * Parse the arguments and config and run the invocation they select
+     * @param args the command line arguments
+     * @param app Application to run the EPISODES invocation with or null
+     * @return exit code
+     */
+    private static int invoke(String[] args, Application app) {
+        Timings timings = ENV.getTimings();
         try {
-            ENV.setArguments(ArgsParser.parse(args));
+            try (Timings.Phase phase = timings.start("args.parse")) {
+                ENV.setArguments(ArgsParser.parse(args));
+            }
             if(ENV.getArguments().isHelpSet()) {
                 System.out.println(ArgsParser.getHelpMessage());
-                System.exit(ExitCode.SUCCESS);
+                return ExitCode.SUCCESS;
+            }
+            if(ENV.getArguments().isDaemonSet() && app != null) {
+                throw new ExitException("The daemon is already running", ExitCode.UNEXPECTED_ARGUMENT);
+            }
+            if(ENV.getArguments().isBatchSet() && app != null) {
+                throw new ExitException("--batch cannot be used by a batch or daemon command", ExitCode.UNEXPECTED_ARGUMENT);
+            }
+            try (Timings.Phase phase = timings.start("args.validate")) {
+                ArgsParser.validate(ENV.getArguments());
+            }
+            Config config;
+            try (Timings.Phase phase = timings.start("config.parse")) {
+                config = app == null ? ConfigParser.parse(ENV.getConfig()) : getCachedConfig(ENV.getConfig());
             }
-            ArgsParser.validate(ENV.getArguments());
-            Config config = ConfigParser.parse(ENV.getConfig());
             ENV.fromConfig(config);
-            ENV.validate();
+            try (Timings.Phase phase = timings.start("env.validate")) {
+                ENV.validate();
+            }
         } catch (ExitException ex) {
             System.err.println(ex.getMessage());
-            System.exit(ex.getExitCode());
+            return ex.getExitCode();
         }
 
         if(ENV.getArguments().isVersionSet()) {
             System.out.println(Version.VERSION);
+            return ExitCode.SUCCESS;
+        } else if(ENV.getArguments().isDaemonSet()) {
+            return daemonInvocation();
+        } else if(ENV.getArguments().isKillSet()) {
+            // the daemon stops itself after responding to a kill request
+            return app == null ? killInvocation() : ExitCode.SUCCESS;
+        } else if(ENV.getArguments().isBatchSet()) {
+            return batchInvocation(args);
         } else if(ENV.getArguments().isFileSet()) {
-            fileInvocation();
-        } else {
-            episodesInvocation();
+            return fileInvocation();
         }
+        return episodesInvocation(app == null ? new Application(new TVDatabase()) : app);
+    }
+
+    /**
+     * Get the parsed config file, only parsing it again if it has been
+     * modified since it was last parsed.
+     * @param configFile config file
+     * @return parsed Config
+     * @throws ExitException if unable to parse the config file
+     */
+    private static Config getCachedConfig(File configFile) throws ExitException {
+        CachedConfig cached = CONFIG_CACHE.get(configFile);
+        long lastModified = configFile.lastModified();
+        if(cached == null || cached.lastModified != lastModified) {
+            cached = new CachedConfig(ConfigParser.parse(configFile), lastModified);
+            CONFIG_CACHE.put(configFile, cached);
+        }
+        return cached.config;
     }
 
     /**
      * Run the TV program using the EPISODES invocation (the default)
+     * @param app Application
+     * @return exit code
      */
-    private static void episodesInvocation() {
+    private static int episodesInvocation(Application app) {
         Arguments args = ENV.getArguments();
-        Application app = new Application(new TVDatabase());
 
         try {
             app.run(args);
+            return ExitCode.SUCCESS;
         } catch (SQLException | IOException e) {
             System.err.format("[db] [%s] %s\n", e.getClass(), e.getMessage());
+            return ExitCode.TVDB_ERROR;
         } catch (ExitException e) {
             System.err.format("[warning] [%s] %s\n", e.getClass(), e.getMessage());
+            return e.getExitCode();
         } catch (Exception e) {
             System.err.format("[error] [%s] %s\n", e.getClass(), e.getMessage());
             e.printStackTrace();
+            return ExitCode.UNEXPECTED_ERROR;
+        }
+    }
+
+    /**
+     * Run the TV program as a daemon (using --daemon). The daemon blocks until
+     * it is stopped.
+     * @return exit code
+     */
+    private static int daemonInvocation() {
+        try {
+            new TVDaemon(ENV.getDaemonPort(), ENV.getDaemonTokenFile()).run();
+            return ExitCode.SUCCESS;
+        } catch (IOException e) {
+            System.err.format("[daemon] [%s] %s\n", e.getClass(), e.getMessage());
+            return ExitCode.DAEMON_ERROR;
+        }
+    }
+
+    /**
+     * Stop the running daemon (using --kill)
+     * @return exit code
+     */
+    private static int killInvocation() {
+        try {
+            return TVDaemon.stop(ENV.getDaemonPort(), ENV.getDaemonTokenFile());
+        } catch (IOException e) {
+            System.err.format("[daemon] unable to stop the daemon: %s\n", e.getMessage());
+            return ExitCode.DAEMON_ERROR;
         }
     }
     
+    /**
+     * Run each command in the batch file, or stdin, in one Application
+     * (using --batch)
+     * @param args the command line arguments
+     * @return exit code of the first command that failed or success
+     */
+    private static int batchInvocation(String[] args) {
+        String batchPath = ENV.getArguments().getBatchPath();
+        boolean isStdin = Arguments.BATCH_STDIN.equals(batchPath);
+        TVBatch batch = new TVBatch(args, isStdin);
+        try {
+            if(isStdin) {
+                return batch.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), System.err);
+            }
+            try (InputStream in = new FileInputStream(batchPath)) {
+                return batch.run(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), System.err);
+            }
+        } catch (IOException e) {
+            System.err.format("[batch] unable to read the batch commands: %s\n", e.getMessage());
+            return ExitCode.FILE_NOT_FOUND;
+        }
+    }
+
     /**
      * Run the TV program using the FILE invocation (using --file)
+     * @return exit code
      */
-    private static void fileInvocation() {
+    private static int fileInvocation() {
         List<FileAction> actions = FileAction.defaultFileActions();
         Arguments args = ENV.getArguments();
 
@@ -124,9 +267,23 @@ public class TV {
             if(action == null) {
                 throw new ExitException("[action] invalid action type", ExitCode.UNEXPECTED_ARGUMENT);
             }
-            action.execute(args.getFile());
+            try (Timings.Phase phase = ENV.getTimings().start("action.execute")) {
+                action.execute(args.getFile());
+            }
         } catch(ExitException e) {
             System.err.println(e.getMessage());
+            return e.getExitCode();
+        }
+        return ExitCode.SUCCESS;
+    }
+
+    private static class CachedConfig {
+        private final Config config;
+        private final long lastModified;
+
+        private CachedConfig(Config config, long lastModified) {
+            this.config = config;
+            this.lastModified = lastModified;
         }
     }
     
@@ -0,0 +1,192 @@
+package uk.co.samicemalone.tv;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Records the wall time of the phases of an invocation using the monotonic
+ * {@link System#nanoTime()} clock. Phases are started with
+ * {@link #start(String)} and ended by closing the returned {@link Phase}, so
+ * nested phases can be timed with try-with-resources.
+ * <p>
+ * The breakdown is printed as an indented table ({@link #FORMAT_TEXT}) or as
+ * a single line of JSON for scripts ({@link #FORMAT_JSON}).
+ * @author Sam Malone
+ */
+public class Timings {
+
+    public static final String FORMAT_TEXT = "text";
+    public static final String FORMAT_JSON = "json";
+
+    private final long startNanos;
+    private final Instant startInstant;
+    private final List<Phase> phases;
+    private int depth;
+
+    public Timings() {
+        this.startNanos = System.nanoTime();
+        this.startInstant = Instant.now();
+        this.phases = new ArrayList<>();
+    }
+
+    /**
+     * Check if the given value is a supported output format
+     * @param format output format
+     * @return true if supported, false otherwise
+     */
+    public static boolean isFormat(String format) {
+        return FORMAT_TEXT.equals(format) || FORMAT_JSON.equals(format);
+    }
+
+    /**
+     * Start timing a phase. The phase ends when the returned Phase is closed.
+     * @param name phase name
+     * @return started phase
+     */
+    public Phase start(String name) {
+        Phase phase = new Phase(name, depth++);
+        phases.add(phase);
+        return phase;
+    }
+
+    /**
+     * Get the recorded phases in the order they were started
+     * @return phases
+     */
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Get the time from the start of the JVM process until these timings
+     * were created, if the OS reports the process start time
+     * @return JVM startup time in nanoseconds or -1 if unknown
+     */
+    public long getStartupNanos() {
+        Optional<Instant> processStart = ProcessHandle.current().info().startInstant();
+        return processStart.map(instant -> Duration.between(instant, startInstant).toNanos()).orElse(-1L);
+    }
+
+    /**
+     * Get the time elapsed since these timings were created
+     * @return elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Print the timings in the given format
+     * @param out stream to print to
+     * @param format {@link #FORMAT_TEXT} or {@link #FORMAT_JSON}
+     */
+    public void print(PrintStream out, String format) {
+        if(FORMAT_JSON.equals(format)) {
+            out.println(toJson());
+        } else {
+            out.print(toText());
+        }
+    }
+
+    private String toText() {
+        StringBuilder sb = new StringBuilder();
+        long startup = getStartupNanos();
+        if(startup >= 0) {
+            sb.append(String.format(Locale.ROOT, "%10.3f ms  %s%n", millis(startup), "jvm.startup"));
+        }
+        for (Phase phase : phases) {
+            StringBuilder indent = new StringBuilder();
+            for (int i = 0; i < phase.depth; i++) {
+                indent.append("  ");
+            }
+            sb.append(String.format(Locale.ROOT, "%10.3f ms  %s%s%n", millis(phase.getNanos()), indent, phase.name));
+        }
+        sb.append(String.format(Locale.ROOT, "%10.3f ms  %s%n", millis(getElapsedNanos()), "total"));
+        return sb.toString();
+    }
+
+    private String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"startup_ms\":").append(String.format(Locale.ROOT, "%.3f", millis(getStartupNanos())));
+        sb.append(",\"total_ms\":").append(String.format(Locale.ROOT, "%.3f", millis(getElapsedNanos())));
+        sb.append(",\"phases\":[");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            if(i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"name\":\"").append(escapeJson(phase.name)).append('"');
+            sb.append(",\"depth\":").append(phase.depth);
+            sb.append(",\"start_ms\":").append(String.format(Locale.ROOT, "%.3f", millis(phase.startNanos - startNanos)));
+            sb.append(",\"ms\":").append(String.format(Locale.ROOT, "%.3f", millis(phase.getNanos())));
+            sb.append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1e6;
+    }
+
+    private static String escapeJson(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if(c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if(c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A timed phase of an invocation
+     */
+    public class Phase implements AutoCloseable {
+        private final String name;
+        private final int depth;
+        private final long startNanos;
+        private long endNanos = -1;
+
+        private Phase(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+            this.startNanos = System.nanoTime();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Get the duration of this phase
+         * @return duration in nanoseconds. If the phase has not ended, the
+         * time elapsed so far
+         */
+        public long getNanos() {
+            return (endNanos < 0 ? System.nanoTime() : endNanos) - startNanos;
+        }
+
+        @Override
+        public void close() {
+            if(endNanos < 0) {
+                endNanos = System.nanoTime();
+                Timings.this.depth--;
+            }
+        }
+    }
+}
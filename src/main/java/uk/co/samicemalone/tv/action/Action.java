@@ -30,6 +30,7 @@ package uk.co.samicemalone.tv.action;
 
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.exception.ExitException;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 
 import java.util.Arrays;
@@ -40,7 +41,7 @@ import java.util.List;
  * @author Sam Malone
  */
 public interface Action {
-    static List<Action> defaultActions() {
+    static List<Action> defaultActions(TVDatabase tvDatabase) {
         return Arrays.asList(
             new MediaPlayerAction(Action.PLAY),
             new MediaPlayerAction(Action.ENQUEUE),
@@ -48,7 +49,7 @@ public interface Action {
             new ListAction(Action.LIST_PATH),
             new CountAction(),
             new SizeAction(),
-            new LengthAction()
+            new LengthAction(tvDatabase)
         );
     }
         
@@ -26,17 +26,27 @@
 
 package uk.co.samicemalone.tv.action;
 
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.ExitCode;
 import uk.co.samicemalone.tv.MediaInfo;
 import uk.co.samicemalone.tv.TV;
 import uk.co.samicemalone.tv.exception.ExitException;
 import uk.co.samicemalone.tv.exception.FileNotFoundException;
+import uk.co.samicemalone.tv.io.MediaDurationReader;
+import uk.co.samicemalone.tv.tvdb.MediaDurationCache;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.util.MediaUtil;
 
 import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -44,6 +54,27 @@ import java.util.List;
  */
 public class LengthAction implements Action, FileAction {
 
+    private final static Logger logger = LoggerFactory.getLogger(LengthAction.class.getName());
+
+    private final TVDatabase tvDatabase;
+
+    /**
+     * Creates a new LengthAction that probes every file
+     */
+    public LengthAction() {
+        this(null);
+    }
+
+    /**
+     * Creates a new LengthAction that caches the duration of each file in the
+     * TVDB so files are only probed if they have not been seen before or have
+     * been modified
+     * @param tvDatabase connected TVDatabase or null to disable the cache
+     */
+    public LengthAction(TVDatabase tvDatabase) {
+        this.tvDatabase = tvDatabase;
+    }
+
     @Override
     public boolean isAction(int action) {
         return action == Action.LENGTH;
@@ -53,20 +84,89 @@ public class LengthAction implements Action, FileAction {
         if(!TV.ENV.getMediaInfoBinary().exists()) {
             throw new FileNotFoundException("The MediaInfo binary could not be found", ExitCode.FILE_NOT_FOUND);
         }
-        return new MediaInfo(TV.ENV.getMediaInfoBinary());
+        return new MediaInfo(TV.ENV.getMediaInfoBinary(), TV.ENV.getMediaInfoProcesses());
+    }
+
+    private MediaDurationCache loadCache(List<File> files) {
+        if(tvDatabase == null) {
+            return null;
+        }
+        try {
+            MediaDurationCache cache = new MediaDurationCache(tvDatabase);
+            cache.load(files);
+            return cache;
+        } catch (SQLException e) {
+            logger.warn("[tvdb] unable to read the media duration cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the total length of the given files. Cached durations are used if
+     * the file is unchanged. Otherwise, the duration is read from the
+     * container header if supported. MediaInfo is only executed for the files
+     * that could not be read.
+     * @param files media files
+     * @return total length in milliseconds
+     * @throws FileNotFoundException if MediaInfo is required but not found
+     */
+    private long getLengthMillis(List<File> files) throws FileNotFoundException {
+        MediaDurationCache cache = loadCache(files);
+        long lengthMS = 0;
+        List<File> unknown = new ArrayList<>();
+        for (File file : files) {
+            long duration = cache == null ? MediaDurationCache.UNKNOWN_DURATION : cache.getDuration(file);
+            if(duration != MediaDurationCache.UNKNOWN_DURATION) {
+                lengthMS += duration;
+                continue;
+            }
+            try {
+                duration = MediaDurationReader.readDuration(file);
+            } catch (IOException e) {
+                duration = MediaDurationReader.UNKNOWN_DURATION;
+            }
+            if(duration == MediaDurationReader.UNKNOWN_DURATION) {
+                unknown.add(file);
+            } else {
+                lengthMS += duration;
+                if(cache != null) {
+                    cache.putDuration(file, duration);
+                }
+            }
+        }
+        if(!unknown.isEmpty()) {
+            MediaInfo mediaInfo = getMediaInfo();
+            unknown.forEach(f -> mediaInfo.addFile(f.getAbsolutePath()));
+            Map<String, Long> durations = mediaInfo.getDurations();
+            for (File file : unknown) {
+                Long duration = durations.get(file.getAbsolutePath());
+                if(duration != null) {
+                    lengthMS += duration;
+                    if(cache != null) {
+                        cache.putDuration(file, duration);
+                    }
+                }
+            }
+        }
+        if(cache != null) {
+            try {
+                cache.save();
+            } catch (SQLException e) {
+                logger.warn("[tvdb] unable to update the media duration cache: {}", e.getMessage());
+            }
+        }
+        return lengthMS;
     }
 
     @Override
     public void execute(Show show, List<EpisodeMatch> list) throws ExitException {
-        MediaInfo mediaInfo = getMediaInfo();
-        list.forEach(m -> mediaInfo.addFile(m.getEpisodeFile().getAbsolutePath()));
-        System.out.println(MediaUtil.readableLength(mediaInfo.getLength()));
+        List<File> files = new ArrayList<>(list.size());
+        list.forEach(m -> files.add(m.getEpisodeFile()));
+        System.out.println(MediaUtil.readableLength(getLengthMillis(files) / 1000));
     }
 
     @Override
     public void execute(File file) throws ExitException {
-        MediaInfo mediaInfo = getMediaInfo();
-        mediaInfo.addFile(file.getAbsolutePath());
-        System.out.println(MediaUtil.readableLength(mediaInfo.getLength()));
+        System.out.println(MediaUtil.readableLength(getLengthMillis(Collections.singletonList(file)) / 1000));
     }
 }
@@ -26,14 +26,19 @@
 
 package uk.co.samicemalone.tv.action;
 
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.TV;
 import uk.co.samicemalone.tv.exception.ExitException;
+import uk.co.samicemalone.tv.io.PlaylistWriter;
 import uk.co.samicemalone.tv.player.MediaPlayer;
 import uk.co.samicemalone.tv.player.MediaPlayerFactory;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -41,6 +46,8 @@ import java.util.List;
  * @author Sam Malone
  */
 public class MediaPlayerAction implements Action, FileAction {
+
+    private final static Logger logger = LoggerFactory.getLogger(MediaPlayerAction.class.getName());
     
     private int action;
 
@@ -62,8 +69,44 @@ public class MediaPlayerAction implements Action, FileAction {
         return this.action == other.action;
     }
     
-    private void execute(File[] files) {
+    /**
+     * Get the playlist format to give the player multiple files in
+     * @param player media player
+     * @return playlist format or null if playlists are disabled or not
+     * supported by the player
+     */
+    private PlaylistWriter.Format getPlaylistFormat(MediaPlayer player) {
+        if(!TV.ENV.isPlaylistEnabled() || player.getPlaylistFormat() == null) {
+            return null;
+        }
+        return TV.ENV.getPlaylistFormat() == null ? player.getPlaylistFormat() : TV.ENV.getPlaylistFormat();
+    }
+
+    /**
+     * Write the files to a single playlist file if there is more than one
+     * file and the player supports playlists
+     * @param player media player
+     * @param files files to play
+     * @return playlist file or files if a playlist is not used
+     */
+    private File[] toPlaylist(MediaPlayer player, File[] files) {
+        PlaylistWriter.Format format = getPlaylistFormat(player);
+        if(files.length < 2 || format == null) {
+            return files;
+        }
+        try {
+            File playlist = new PlaylistWriter(format).write(Arrays.asList(files));
+            logger.debug("[action] playlist = {}", playlist);
+            return new File[] { playlist };
+        } catch (IOException e) {
+            logger.warn("[action] unable to write playlist: {}", e.getMessage());
+            return files;
+        }
+    }
+    
+    private void execute(File[] list) {
         MediaPlayer player = MediaPlayerFactory.parsePlayer(TV.ENV.getArguments().getPlayerInfo());
+        File[] files = toPlaylist(player, list);
         switch(action) {
             case Action.ENQUEUE:
                 player.enqueue(files);
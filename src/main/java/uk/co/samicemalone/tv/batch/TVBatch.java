@@ -0,0 +1,173 @@
+package uk.co.samicemalone.tv.batch;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.tv.Application;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.exception.InvalidArgumentException;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a list of commands, one per line, in a single resident
+ * {@link Application} so the TVDB connection, TVPath and plugins are shared
+ * between the commands instead of being loaded for each command. Each line
+ * has the same form as the command line arguments e.g.
+ * <pre>
+ * Scrubs next -q
+ * "Modern Family" s02 --list
+ * </pre>
+ * Blank lines and lines starting with # are ignored. The options given with
+ * --batch are added before the arguments of each line so they act as
+ * defaults e.g. --config or --user.
+ * @author Sam Malone
+ */
+public class TVBatch {
+
+    private final static Logger logger = LoggerFactory.getLogger(TVBatch.class.getName());
+
+    private final List<String> sharedArgs;
+    private final Application app;
+    private final boolean isStdin;
+
+    /**
+     * Creates a new TVBatch
+     * @param args the command line arguments of the batch invocation. The
+     * --batch option is removed and the remaining options are added to each
+     * command
+     * @param isStdin true if the commands are read from stdin. stdin is
+     * emptied while each command runs so a command cannot read the commands
+     * after it
+     */
+    public TVBatch(String[] args, boolean isStdin) {
+        this.sharedArgs = getSharedArguments(args);
+        this.app = new Application(new TVDatabase(), true);
+        this.isStdin = isStdin;
+    }
+
+    /**
+     * Run each command read from the given reader and write the exit code of
+     * each command to the given report stream
+     * @param reader reader to read the commands from
+     * @param report stream to write the exit code of each command to
+     * @return {@link ExitCode#SUCCESS} if every command succeeded, otherwise
+     * the exit code of the first command that failed
+     * @throws IOException if unable to read the commands
+     */
+    public int run(BufferedReader reader, PrintStream report) throws IOException {
+        int exitCode = ExitCode.SUCCESS;
+        int commands = 0, failed = 0;
+        try {
+            String line;
+            for (int lineNo = 1; (line = reader.readLine()) != null; lineNo++) {
+                String command = line.trim();
+                if(command.isEmpty() || command.startsWith("#")) {
+                    continue;
+                }
+                int lineExitCode = execute(command);
+                report.format("[batch] line %d exit %d: %s\n", lineNo, lineExitCode, command);
+                commands++;
+                if(lineExitCode != ExitCode.SUCCESS) {
+                    failed++;
+                    if(exitCode == ExitCode.SUCCESS) {
+                        exitCode = lineExitCode;
+                    }
+                }
+            }
+        } finally {
+            app.close();
+        }
+        logger.debug("[batch] {} commands, {} failed", commands, failed);
+        return exitCode;
+    }
+
+    private int execute(String command) {
+        List<String> args = new ArrayList<>(sharedArgs);
+        try {
+            args.addAll(tokenize(command));
+        } catch (InvalidArgumentException e) {
+            System.err.println(e.getMessage());
+            return e.getExitCode();
+        }
+        if(!isStdin) {
+            return TV.execute(args.toArray(new String[0]), app);
+        }
+        InputStream stdin = System.in;
+        try {
+            System.setIn(new ByteArrayInputStream(new byte[0]));
+            return TV.execute(args.toArray(new String[0]), app);
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    /**
+     * Get the arguments of the batch invocation without the --batch option
+     * @param args the command line arguments of the batch invocation
+     * @return arguments to add to each command
+     */
+    static List<String> getSharedArguments(String[] args) {
+        List<String> shared = new ArrayList<>(Arrays.asList(args));
+        int index = shared.indexOf("--batch");
+        if(index >= 0) {
+            shared.subList(index, Math.min(index + 2, shared.size())).clear();
+        }
+        return shared;
+    }
+
+    /**
+     * Split a command into arguments on whitespace. Single or double quotes
+     * group an argument containing whitespace e.g. "Modern Family". A
+     * backslash outside of single quotes escapes the next character.
+     * @param command command line
+     * @return arguments
+     * @throws InvalidArgumentException if a quote is not closed
+     */
+    static List<String> tokenize(String command) throws InvalidArgumentException {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean hasArg = false;
+        char quote = 0;
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if(c == '\\' && quote != '\'' && i + 1 < command.length()) {
+                arg.append(command.charAt(++i));
+                hasArg = true;
+            } else if(quote != 0) {
+                if(c == quote) {
+                    quote = 0;
+                } else {
+                    arg.append(c);
+                }
+            } else if(c == '"' || c == '\'') {
+                quote = c;
+                hasArg = true;
+            } else if(Character.isWhitespace(c)) {
+                if(hasArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    hasArg = false;
+                }
+            } else {
+                arg.append(c);
+                hasArg = true;
+            }
+        }
+        if(quote != 0) {
+            throw new InvalidArgumentException("Unclosed quote in batch command: " + command, ExitCode.UNEXPECTED_ARGUMENT);
+        }
+        if(hasArg) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+}
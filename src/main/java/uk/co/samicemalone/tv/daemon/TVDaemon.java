@@ -0,0 +1,391 @@
+package uk.co.samicemalone.tv.daemon;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.tv.Application;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.options.ArgsParser;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Resident TV process that serves invocations from a thin client over a local
+ * socket so the JVM, TVDB connection, plugins and library stay loaded between
+ * commands.
+ * <p>
+ * A request is a sequence of NUL terminated UTF-8 strings: the token stored in
+ * the token file, the working directory of the client, the number of arguments
+ * and then each argument. The token can't be longer than the token of the
+ * daemon and each other string can't be longer than 64 KiB. Relative paths
+ * given to the path options are resolved against the working directory of
+ * the client. The response
+ * is a sequence of newline terminated frames: {@code O<line>} for stdout,
+ * {@code E<line>} for stderr and a final {@code X<exit code>}.
+ * <p>
+ * Requests are handled one at a time because the environment is global.
+ * Interactive prompts are not supported as the daemon has no stdin.
+ * @author Sam Malone
+ */
+public class TVDaemon {
+
+    private final static Logger logger = LoggerFactory.getLogger(TVDaemon.class.getName());
+
+    private static final int READ_TIMEOUT = 5000;
+    private static final int MAX_ARGUMENTS = 1024;
+    private static final int MAX_STRING_LENGTH = 64 * 1024;
+
+    private final int port;
+    private final File tokenFile;
+    private final Application app;
+    private ServerSocket serverSocket;
+    private byte[] token;
+    private volatile boolean isRunning;
+
+    /**
+     * Creates a new TVDaemon
+     * @param port local port to listen on or 0 to use any free port
+     * @param tokenFile file to write the client token to
+     */
+    public TVDaemon(int port, File tokenFile) {
+        this.port = port;
+        this.tokenFile = tokenFile;
+        this.app = new Application(new TVDatabase(), true);
+    }
+
+    /**
+     * Bind to the loopback address and write a new token to the token file
+     * @throws IOException if unable to bind or write the token file
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        token = writeToken(tokenFile);
+        isRunning = true;
+        logger.info("[daemon] listening on port {}", serverSocket.getLocalPort());
+    }
+
+    /**
+     * Serve requests until the daemon is stopped by a kill request
+     */
+    public void serve() {
+        try {
+            while (isRunning) {
+                try (Socket socket = serverSocket.accept()) {
+                    socket.setSoTimeout(READ_TIMEOUT);
+                    handle(socket);
+                } catch (IOException e) {
+                    if(isRunning) {
+                        logger.error("[daemon] [{}] {}", e.getClass(), e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Start the daemon and serve requests until it is stopped
+     * @throws IOException if unable to start the daemon
+     */
+    public void run() throws IOException {
+        start();
+        serve();
+    }
+
+    /**
+     * Get the port the daemon is listening on
+     * @return local port or -1 if not started
+     */
+    public int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    private void shutdown() {
+        isRunning = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        app.close();
+        tokenFile.delete();
+        logger.info("[daemon] stopped");
+    }
+
+    private void handle(Socket socket) throws IOException {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream socketOut = new BufferedOutputStream(socket.getOutputStream());
+        String[] args;
+        try {
+            byte[] clientToken = readString(in, token.length).getBytes(StandardCharsets.UTF_8);
+            if(!MessageDigest.isEqual(token, clientToken)) {
+                writeFrame(socketOut, 'E', "[daemon] invalid token");
+                writeFrame(socketOut, 'X', String.valueOf(ExitCode.DAEMON_ERROR));
+                socketOut.flush();
+                return;
+            }
+            String workingDirectory = readString(in, MAX_STRING_LENGTH);
+            args = readArguments(in);
+            if(!workingDirectory.isEmpty()) {
+                args = ArgsParser.resolvePaths(args, workingDirectory);
+            }
+        } catch (SocketTimeoutException | NumberFormatException | InvalidRequestException e) {
+            writeFrame(socketOut, 'X', String.valueOf(ExitCode.DAEMON_ERROR));
+            socketOut.flush();
+            return;
+        }
+
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        InputStream stdin = System.in;
+        PrintStream out = new PrintStream(new FrameOutputStream(socketOut, 'O'), true, "UTF-8");
+        PrintStream err = new PrintStream(new FrameOutputStream(socketOut, 'E'), true, "UTF-8");
+        int exitCode;
+        RuntimeException unexpected = null;
+        try {
+            System.setOut(out);
+            System.setErr(err);
+            System.setIn(new ByteArrayInputStream(new byte[0]));
+            exitCode = TV.execute(args, app);
+        } catch (RuntimeException e) {
+            // one failed request mustn't stop the daemon for every later request
+            unexpected = e;
+            exitCode = ExitCode.UNEXPECTED_ERROR;
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+            System.setIn(stdin);
+            out.close();
+            err.close();
+        }
+        if(unexpected != null) {
+            logger.error(unexpected, "[daemon] unexpected error handling the request: {}", unexpected.getMessage());
+        }
+        if(TV.ENV.getArguments() != null && TV.ENV.getArguments().isKillSet()) {
+            isRunning = false;
+        }
+        writeFrame(socketOut, 'X', String.valueOf(exitCode));
+        socketOut.flush();
+    }
+
+    private static String[] readArguments(InputStream in) throws IOException {
+        int argc = Integer.parseInt(readString(in, MAX_STRING_LENGTH));
+        if(argc < 0 || argc > MAX_ARGUMENTS) {
+            throw new NumberFormatException("invalid argument count " + argc);
+        }
+        String[] args = new String[argc];
+        for (int i = 0; i < argc; i++) {
+            args[i] = readString(in, MAX_STRING_LENGTH);
+        }
+        return args;
+    }
+
+    /**
+     * Read a NUL terminated string from the request
+     * @param in request
+     * @param maxLength maximum length of the string in bytes
+     * @return string
+     * @throws InvalidRequestException if the string is longer than maxLength
+     * @throws IOException if unable to read the string
+     */
+    private static String readString(InputStream in, int maxLength) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) > 0) {
+            if(buffer.size() >= maxLength) {
+                throw new InvalidRequestException("request string longer than " + maxLength + " bytes");
+            }
+            buffer.write(b);
+        }
+        if(b < 0) {
+            throw new IOException("unexpected end of request");
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(OutputStream out, String s) throws IOException {
+        out.write(s.getBytes(StandardCharsets.UTF_8));
+        out.write(0);
+    }
+
+    private static void writeFrame(OutputStream out, char type, String line) throws IOException {
+        out.write(type);
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    /**
+     * Generate a new random token and write it to the given file, readable
+     * only by the current user where supported
+     * @param tokenFile token file
+     * @return token
+     * @throws IOException if unable to write the token file
+     */
+    private static byte[] writeToken(File tokenFile) throws IOException {
+        byte[] random = new byte[24];
+        new SecureRandom().nextBytes(random);
+        StringBuilder sb = new StringBuilder(random.length * 2);
+        for (byte b : random) {
+            sb.append(String.format("%02x", b));
+        }
+        File parent = tokenFile.getAbsoluteFile().getParentFile();
+        if(parent != null) {
+            parent.mkdirs();
+        }
+        tokenFile.delete();
+        try {
+            Files.createFile(tokenFile.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(tokenFile.toPath());
+        }
+        Files.write(tokenFile.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Send the given arguments to the daemon and write its output to the given
+     * streams. Relative paths are resolved against the current working
+     * directory.
+     * @param port port the daemon is listening on
+     * @param tokenFile daemon token file
+     * @param args arguments to execute
+     * @param out stream to write the daemon stdout to
+     * @param err stream to write the daemon stderr to
+     * @return exit code of the invocation
+     * @throws IOException if unable to connect to the daemon or read the token
+     */
+    public static int request(int port, File tokenFile, String[] args, PrintStream out, PrintStream err) throws IOException {
+        return request(port, tokenFile, System.getProperty("user.dir"), args, out, err);
+    }
+
+    /**
+     * Send the given arguments to the daemon and write its output to the given
+     * streams
+     * @param port port the daemon is listening on
+     * @param tokenFile daemon token file
+     * @param workingDirectory absolute path of the directory the daemon
+     * resolves relative paths against
+     * @param args arguments to execute
+     * @param out stream to write the daemon stdout to
+     * @param err stream to write the daemon stderr to
+     * @return exit code of the invocation
+     * @throws IOException if unable to connect to the daemon or read the token
+     */
+    public static int request(int port, File tokenFile, String workingDirectory, String[] args, PrintStream out, PrintStream err) throws IOException {
+        String clientToken = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream socketOut = new BufferedOutputStream(socket.getOutputStream());
+            writeString(socketOut, clientToken);
+            writeString(socketOut, workingDirectory);
+            writeString(socketOut, String.valueOf(args.length));
+            for (String arg : args) {
+                writeString(socketOut, arg);
+            }
+            socketOut.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if(line.isEmpty()) {
+                    continue;
+                }
+                switch (line.charAt(0)) {
+                    case 'O':
+                        out.println(line.substring(1));
+                        break;
+                    case 'E':
+                        err.println(line.substring(1));
+                        break;
+                    case 'X':
+                        return Integer.parseInt(line.substring(1));
+                }
+            }
+        }
+        throw new IOException("the daemon closed the connection without an exit code");
+    }
+
+    /**
+     * Stop the daemon listening on the given port
+     * @param port port the daemon is listening on
+     * @param tokenFile daemon token file
+     * @return exit code of the kill request
+     * @throws IOException if unable to connect to the daemon or read the token
+     */
+    public static int stop(int port, File tokenFile) throws IOException {
+        return request(port, tokenFile, new String[] { "--kill" }, System.out, System.err);
+    }
+
+    /**
+     * Thrown if a request doesn't follow the protocol
+     */
+    private static class InvalidRequestException extends IOException {
+
+        public InvalidRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * OutputStream that writes each complete line to the client as a frame of
+     * the given type. An incomplete line is written when the stream is closed.
+     */
+    private static class FrameOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final char type;
+        private final ByteArrayOutputStream line;
+
+        public FrameOutputStream(OutputStream out, char type) {
+            this.out = out;
+            this.type = type;
+            this.line = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if(b == '\n') {
+                writeLine();
+            } else if(b != '\r') {
+                line.write(b);
+            }
+        }
+
+        private void writeLine() throws IOException {
+            synchronized (out) {
+                out.write(type);
+                line.writeTo(out);
+                out.write('\n');
+                out.flush();
+            }
+            line.reset();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(line.size() > 0) {
+                writeLine();
+            }
+        }
+    }
+}
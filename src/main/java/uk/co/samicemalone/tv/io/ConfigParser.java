@@ -31,6 +31,7 @@ package uk.co.samicemalone.tv.io;
 import uk.co.samicemalone.tv.ExitCode;
 import uk.co.samicemalone.tv.exception.ParseException;
 import uk.co.samicemalone.tv.model.Config;
+import uk.co.samicemalone.tv.tvdb.TVDatabaseProfile;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -93,8 +94,9 @@ public class ConfigParser {
      * @param c Config to be applied to
      * @param key key defining which action to apply
      * @param value value of config to set
+     * @throws ParseException if the value is invalid for the given key
      */
-    private static void parseConfig(Config c, String key, String value) {
+    private static void parseConfig(Config c, String key, String value) throws ParseException {
         switch(key) {
             case "TVDB_FILE":
                 c.setTVDBFile(value);
@@ -105,6 +107,13 @@ public class ConfigParser {
             case "MEDIAINFO_BINARY":
                 c.setMediainfoBinary(value);
                 break;
+            case "MEDIAINFO_PROCESSES":
+                try {
+                    c.setMediainfoProcesses(value);
+                } catch (NumberFormatException ex) {
+                    throw new ParseException("Unable to parse the number of mediainfo processes " + value, ExitCode.CONFIG_PARSE_ERROR);
+                }
+                break;
             case "LIBRARY_PATH":
                 c.setLibraryPath(value);
                 break;
@@ -117,6 +126,20 @@ public class ConfigParser {
             case "PLAYER_ARGUMENTS":
                 c.addPlayerArgument(value);
                 break;
+            case "PLAYER_RC_PORT":
+                try {
+                    c.setPlayerRemoteControlPort(value);
+                } catch (NumberFormatException ex) {
+                    throw new ParseException("Unable to parse the player remote control port " + value, ExitCode.CONFIG_PARSE_ERROR);
+                }
+                break;
+            case "PLAYLIST_FORMAT":
+                try {
+                    c.setPlaylistFormat(value);
+                } catch (IllegalArgumentException ex) {
+                    throw new ParseException("Unable to parse the playlist format " + value, ExitCode.CONFIG_PARSE_ERROR);
+                }
+                break;
             case "ENABLE_TRAKT":
                 c.setTraktEnabled(value);
                 break;
@@ -126,6 +149,62 @@ public class ConfigParser {
             case "TRAKT_USE_CHECKINS":
                 c.setTraktUseCheckins(value);
                 break;
+            case "ENABLE_EPISODE_INDEX":
+                c.setEpisodeIndexEnabled(value);
+                break;
+            case "TVDB_JOURNAL_MODE":
+            case "TVDB_SYNCHRONOUS":
+            case "TVDB_MMAP_SIZE":
+            case "TVDB_CACHE_SIZE":
+            case "TVDB_BUSY_TIMEOUT":
+            case "TVDB_BUSY_RETRIES":
+            case "TVDB_TEMP_STORE":
+                try {
+                    parseTVDBProfile(c.getTVDBProfile(), key, value);
+                } catch (IllegalArgumentException ex) {
+                    throw new ParseException(String.format("Unable to parse %s %s", key, value), ExitCode.CONFIG_PARSE_ERROR);
+                }
+                break;
+            case "DAEMON_PORT":
+                try {
+                    c.setDaemonPort(value);
+                } catch (NumberFormatException ex) {
+                    throw new ParseException("Unable to parse the daemon port " + value, ExitCode.CONFIG_PARSE_ERROR);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Apply a TVDB_ setting to the TVDB SQLite settings
+     * @param profile TVDB SQLite settings
+     * @param key TVDB_ setting key
+     * @param value value of the setting
+     * @throws IllegalArgumentException if the value is invalid for the key
+     */
+    private static void parseTVDBProfile(TVDatabaseProfile profile, String key, String value) {
+        switch(key) {
+            case "TVDB_JOURNAL_MODE":
+                profile.setJournalMode(value);
+                break;
+            case "TVDB_SYNCHRONOUS":
+                profile.setSynchronous(value);
+                break;
+            case "TVDB_MMAP_SIZE":
+                profile.setMmapSize(value);
+                break;
+            case "TVDB_CACHE_SIZE":
+                profile.setCacheSize(value);
+                break;
+            case "TVDB_BUSY_TIMEOUT":
+                profile.setBusyTimeout(value);
+                break;
+            case "TVDB_BUSY_RETRIES":
+                profile.setBusyRetries(value);
+                break;
+            case "TVDB_TEMP_STORE":
+                profile.setTempStore(value);
+                break;
         }
     }
     
@@ -0,0 +1,340 @@
+package uk.co.samicemalone.tv.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the duration of a media file from its container headers without
+ * reading the media data. The following containers are supported:
+ * <ul>
+ *   <li>MP4/MOV - the duration of the moov/mvhd box</li>
+ *   <li>Matroska/WebM - Segment/Info/Duration scaled by TimecodeScale</li>
+ *   <li>AVI - the frame count and frame duration of the avih (or OpenDML
+ *   dmlh) header</li>
+ * </ul>
+ * @author Sam Malone
+ */
+public class MediaDurationReader {
+
+    /** returned when the container is not supported or the duration is missing **/
+    public static final long UNKNOWN_DURATION = -1;
+
+    private static final int EBML_HEADER = 0x1A45DFA3;
+    private static final int EBML_SEGMENT = 0x18538067;
+    private static final int EBML_INFO = 0x1549A966;
+    private static final int EBML_CLUSTER = 0x1F43B675;
+    private static final int EBML_TIMECODE_SCALE = 0x2AD7B1;
+    private static final int EBML_DURATION = 0x4489;
+    private static final long EBML_DEFAULT_TIMECODE_SCALE = 1000000;
+
+    private final FileChannel channel;
+    private final long fileSize;
+
+    private MediaDurationReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+    }
+
+    /**
+     * Read the duration of the given media file
+     * @param file media file
+     * @return duration in milliseconds or {@link #UNKNOWN_DURATION} if the
+     * container is not supported or has no duration
+     * @throws IOException if unable to read the file
+     */
+    public static long readDuration(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new MediaDurationReader(channel).readDuration();
+        }
+    }
+
+    private long readDuration() throws IOException {
+        if(fileSize < 12) {
+            return UNKNOWN_DURATION;
+        }
+        ByteBuffer header = read(0, 12);
+        if(header.getInt(0) == EBML_HEADER) {
+            return readMatroskaDuration();
+        }
+        if(isFourCC(header, 0, "RIFF") && isFourCC(header, 8, "AVI ")) {
+            return readAviDuration();
+        }
+        String type = fourCC(header, 4);
+        if(type.equals("ftyp") || type.equals("moov") || type.equals("mdat") || type.equals("wide") || type.equals("free")) {
+            return readMp4Duration();
+        }
+        return UNKNOWN_DURATION;
+    }
+
+    /**
+     * Find the moov box at the top level and read the duration from its mvhd
+     * box. Other boxes e.g. mdat are skipped without being read.
+     */
+    private long readMp4Duration() throws IOException {
+        long moov = findMp4Box(0, fileSize, "moov");
+        if(moov < 0) {
+            return UNKNOWN_DURATION;
+        }
+        long moovEnd = Math.min(fileSize, moov + mp4BoxSize(moov));
+        long mvhd = findMp4Box(moov + mp4HeaderSize(moov), moovEnd, "mvhd");
+        if(mvhd < 0) {
+            return UNKNOWN_DURATION;
+        }
+        long content = mvhd + mp4HeaderSize(mvhd);
+        ByteBuffer box = read(content, 32);
+        int version = box.get(0) & 0xFF;
+        long timescale, duration;
+        if(version == 1) {
+            timescale = box.getInt(20) & 0xFFFFFFFFL;
+            duration = box.getLong(24);
+        } else {
+            timescale = box.getInt(12) & 0xFFFFFFFFL;
+            duration = box.getInt(16) & 0xFFFFFFFFL;
+        }
+        if(timescale == 0 || duration <= 0 || duration == 0xFFFFFFFFL) {
+            return UNKNOWN_DURATION;
+        }
+        return duration * 1000 / timescale;
+    }
+
+    private long findMp4Box(long start, long end, String type) throws IOException {
+        long position = start;
+        while (position + 8 <= end) {
+            long size = mp4BoxSize(position);
+            if(isFourCC(read(position + 4, 4), 0, type)) {
+                return position;
+            }
+            if(size < 8) {
+                return -1;
+            }
+            position += size;
+        }
+        return -1;
+    }
+
+    private long mp4BoxSize(long position) throws IOException {
+        long size = read(position, 4).getInt(0) & 0xFFFFFFFFL;
+        if(size == 1) {
+            return read(position + 8, 8).getLong(0);
+        } else if(size == 0) {
+            return fileSize - position;
+        }
+        return size;
+    }
+
+    private long mp4HeaderSize(long position) throws IOException {
+        return (read(position, 4).getInt(0) == 1) ? 16 : 8;
+    }
+
+    /**
+     * Find the Info element of the Segment and read its Duration. The elements
+     * before Info are skipped. If a Cluster is found before Info, the
+     * duration is considered unknown.
+     */
+    private long readMatroskaDuration() throws IOException {
+        long position = skipEbmlElement(0);
+        while (position < fileSize) {
+            EbmlElement element = readEbmlElement(position);
+            if(element.id == EBML_SEGMENT) {
+                return readMatroskaSegmentDuration(element);
+            }
+            if(element.isSizeUnknown()) {
+                return UNKNOWN_DURATION;
+            }
+            position = element.dataStart + element.size;
+        }
+        return UNKNOWN_DURATION;
+    }
+
+    private long readMatroskaSegmentDuration(EbmlElement segment) throws IOException {
+        long segmentEnd = segment.isSizeUnknown() ? fileSize : Math.min(fileSize, segment.dataStart + segment.size);
+        long position = segment.dataStart;
+        while (position < segmentEnd) {
+            EbmlElement element = readEbmlElement(position);
+            if(element.id == EBML_INFO) {
+                return readMatroskaInfoDuration(element);
+            }
+            if(element.id == EBML_CLUSTER || element.isSizeUnknown()) {
+                return UNKNOWN_DURATION;
+            }
+            position = element.dataStart + element.size;
+        }
+        return UNKNOWN_DURATION;
+    }
+
+    private long readMatroskaInfoDuration(EbmlElement info) throws IOException {
+        long timecodeScale = EBML_DEFAULT_TIMECODE_SCALE;
+        double duration = -1;
+        long infoEnd = Math.min(fileSize, info.dataStart + info.size);
+        long position = info.dataStart;
+        while (position < infoEnd) {
+            EbmlElement element = readEbmlElement(position);
+            if(element.isSizeUnknown()) {
+                return UNKNOWN_DURATION;
+            }
+            if(element.id == EBML_TIMECODE_SCALE && element.size <= 8) {
+                ByteBuffer value = read(element.dataStart, (int) element.size);
+                timecodeScale = 0;
+                for (int i = 0; i < element.size; i++) {
+                    timecodeScale = (timecodeScale << 8) | (value.get(i) & 0xFF);
+                }
+            } else if(element.id == EBML_DURATION) {
+                if(element.size == 4) {
+                    duration = read(element.dataStart, 4).getFloat(0);
+                } else if(element.size == 8) {
+                    duration = read(element.dataStart, 8).getDouble(0);
+                }
+            }
+            position = element.dataStart + element.size;
+        }
+        if(duration <= 0 || timecodeScale <= 0) {
+            return UNKNOWN_DURATION;
+        }
+        return Math.round(duration * timecodeScale / 1000000);
+    }
+
+    private long skipEbmlElement(long position) throws IOException {
+        EbmlElement element = readEbmlElement(position);
+        return element.dataStart + element.size;
+    }
+
+    private EbmlElement readEbmlElement(long position) throws IOException {
+        ByteBuffer buffer = read(position, (int) Math.min(16, fileSize - position));
+        if(buffer.limit() < 2) {
+            throw new IOException("unexpected end of file at " + position);
+        }
+        int idLength = ebmlVintLength(buffer.get(0));
+        if(idLength > 4 || idLength >= buffer.limit()) {
+            throw new IOException("invalid EBML element id at " + position);
+        }
+        int id = 0;
+        for (int i = 0; i < idLength; i++) {
+            id = (id << 8) | (buffer.get(i) & 0xFF);
+        }
+        int sizeLength = ebmlVintLength(buffer.get(idLength));
+        if(sizeLength > 8 || idLength + sizeLength > buffer.limit()) {
+            throw new IOException("invalid EBML element size at " + position);
+        }
+        long size = buffer.get(idLength) & (0xFF >> sizeLength);
+        boolean isUnknown = size == (0xFF >> sizeLength);
+        for (int i = 1; i < sizeLength; i++) {
+            int b = buffer.get(idLength + i) & 0xFF;
+            size = (size << 8) | b;
+            isUnknown &= b == 0xFF;
+        }
+        return new EbmlElement(id, position + idLength + sizeLength, isUnknown ? -1 : size);
+    }
+
+    private static int ebmlVintLength(byte first) {
+        int b = first & 0xFF;
+        for (int length = 1; length <= 8; length++) {
+            if((b & (0x80 >> (length - 1))) != 0) {
+                return length;
+            }
+        }
+        return 9;
+    }
+
+    /**
+     * Read the duration from the main AVI header in the hdrl list. The frame
+     * count of an OpenDML (AVI 2.0) file is read from dmlh if present as the
+     * avih frame count only covers the first RIFF chunk.
+     */
+    private long readAviDuration() throws IOException {
+        long hdrl = findRiffChunk(12, fileSize, "LIST", "hdrl");
+        if(hdrl < 0) {
+            return UNKNOWN_DURATION;
+        }
+        long hdrlEnd = Math.min(fileSize, hdrl + 8 + riffChunkSize(hdrl));
+        long avih = findRiffChunk(hdrl + 12, hdrlEnd, "avih", null);
+        if(avih < 0) {
+            return UNKNOWN_DURATION;
+        }
+        ByteBuffer header = read(avih + 8, 20).order(ByteOrder.LITTLE_ENDIAN);
+        long microSecPerFrame = header.getInt(0) & 0xFFFFFFFFL;
+        long totalFrames = header.getInt(16) & 0xFFFFFFFFL;
+        long odml = findRiffChunk(hdrl + 12, hdrlEnd, "LIST", "odml");
+        if(odml >= 0) {
+            long dmlh = findRiffChunk(odml + 12, Math.min(hdrlEnd, odml + 8 + riffChunkSize(odml)), "dmlh", null);
+            if(dmlh >= 0) {
+                totalFrames = Math.max(totalFrames, read(dmlh + 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(0) & 0xFFFFFFFFL);
+            }
+        }
+        if(microSecPerFrame == 0 || totalFrames == 0) {
+            return UNKNOWN_DURATION;
+        }
+        return microSecPerFrame * totalFrames / 1000;
+    }
+
+    /**
+     * Find a RIFF chunk with the given id (and list type if the id is LIST)
+     * @return position of the chunk header or -1 if not found
+     */
+    private long findRiffChunk(long start, long end, String id, String listType) throws IOException {
+        long position = start;
+        while (position + 8 <= end) {
+            ByteBuffer header = read(position, 8);
+            long size = riffChunkSize(position);
+            if(isFourCC(header, 0, id)) {
+                if(listType == null) {
+                    return position;
+                }
+                if(size >= 4 && isFourCC(read(position + 8, 4), 0, listType)) {
+                    return position;
+                }
+            }
+            position += 8 + size + (size & 1);
+        }
+        return -1;
+    }
+
+    private long riffChunkSize(long position) throws IOException {
+        return read(position + 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(0) & 0xFFFFFFFFL;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        if(buffer.position() < length) {
+            throw new IOException("unexpected end of file at " + (position + buffer.position()));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean isFourCC(ByteBuffer buffer, int offset, String fourCC) {
+        return fourCC(buffer, offset).equals(fourCC);
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private static class EbmlElement {
+        private final int id;
+        private final long dataStart;
+        private final long size;
+
+        public EbmlElement(int id, long dataStart, long size) {
+            this.id = id;
+            this.dataStart = dataStart;
+            this.size = size;
+        }
+
+        public boolean isSizeUnknown() {
+            return size < 0;
+        }
+    }
+}
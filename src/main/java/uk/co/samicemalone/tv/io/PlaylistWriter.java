@@ -0,0 +1,180 @@
+package uk.co.samicemalone.tv.io;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a list of media files to a playlist file so a media player can be
+ * given a single playlist instead of one argument per file.
+ * <p>
+ * Playlists are written to the temporary directory. The player reads the
+ * playlist after tv has exited so playlists are not deleted straight away.
+ * Instead, playlists older than {@link #STALE_PLAYLIST_AGE_MS} are deleted
+ * whenever a new playlist is written.
+ * @author Sam Malone
+ */
+public class PlaylistWriter {
+
+    private final static Logger logger = LoggerFactory.getLogger(PlaylistWriter.class.getName());
+
+    private static final String PREFIX = "tv-playlist-";
+    private static final long STALE_PLAYLIST_AGE_MS = TimeUnit.HOURS.toMillis(1);
+
+    public enum Format {
+        M3U8("m3u8"),
+        XSPF("xspf");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Parse the format from the given file extension
+         * @param extension file extension e.g. m3u8
+         * @return format or null if not a supported format
+         */
+        public static Format fromExtension(String extension) {
+            for (Format format : values()) {
+                if(format.extension.equalsIgnoreCase(extension)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Format format;
+    private final File directory;
+
+    /**
+     * Creates a new PlaylistWriter that writes to the temporary directory
+     * @param format playlist format
+     */
+    public PlaylistWriter(Format format) {
+        this(format, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Creates a new PlaylistWriter
+     * @param format playlist format
+     * @param directory directory to write playlists to
+     */
+    public PlaylistWriter(Format format, File directory) {
+        this.format = format;
+        this.directory = directory;
+    }
+
+    /**
+     * Write the given files to a new playlist file
+     * @param files media files in play order
+     * @return playlist file
+     * @throws IOException if unable to write the playlist
+     */
+    public File write(Iterable<File> files) throws IOException {
+        deleteStalePlaylists();
+        Path playlist = Files.createTempFile(directory.toPath(), PREFIX, '.' + format.getExtension());
+        try (Writer writer = Files.newBufferedWriter(playlist, StandardCharsets.UTF_8)) {
+            write(writer, files);
+        } catch (IOException e) {
+            Files.deleteIfExists(playlist);
+            throw e;
+        }
+        return playlist.toFile();
+    }
+
+    /**
+     * Write the given files as a playlist to the given writer
+     * @param writer writer
+     * @param files media files in play order
+     * @throws IOException if unable to write the playlist
+     */
+    public void write(Writer writer, Iterable<File> files) throws IOException {
+        BufferedWriter out = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+        switch (format) {
+            case XSPF:
+                writeXspf(out, files);
+                break;
+            default:
+                writeM3u8(out, files);
+        }
+        out.flush();
+    }
+
+    private static void writeM3u8(BufferedWriter out, Iterable<File> files) throws IOException {
+        out.write("#EXTM3U");
+        out.newLine();
+        for (File file : files) {
+            out.write("#EXTINF:-1,");
+            out.write(file.getName());
+            out.newLine();
+            out.write(file.getAbsolutePath());
+            out.newLine();
+        }
+    }
+
+    private static void writeXspf(BufferedWriter out, Iterable<File> files) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.newLine();
+        out.write("<playlist version=\"1\" xmlns=\"http://xspf.org/ns/0/\">");
+        out.newLine();
+        out.write("  <trackList>");
+        out.newLine();
+        for (File file : files) {
+            out.write("    <track><location>");
+            out.write(escapeXml(file.getAbsoluteFile().toURI().toASCIIString()));
+            out.write("</location><title>");
+            out.write(escapeXml(file.getName()));
+            out.write("</title></track>");
+            out.newLine();
+        }
+        out.write("  </trackList>");
+        out.newLine();
+        out.write("</playlist>");
+        out.newLine();
+    }
+
+    private static String escapeXml(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\'': sb.append("&apos;"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void deleteStalePlaylists() {
+        long staleBefore = System.currentTimeMillis() - STALE_PLAYLIST_AGE_MS;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), PREFIX + "*")) {
+            for (Path path : stream) {
+                if(Files.getLastModifiedTime(path).toMillis() < staleBefore) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("[playlist] unable to delete stale playlists: {}", e.getMessage());
+        }
+    }
+}
@@ -30,6 +30,7 @@ package uk.co.samicemalone.tv.model;
 
 import uk.co.samicemalone.tv.action.Action;
 import uk.co.samicemalone.tv.options.WindowsEnvironment;
+import uk.co.samicemalone.tv.selector.EpisodeExpression;
 import uk.co.samicemalone.tv.util.CygwinUtil;
 import uk.co.samicemalone.tv.util.WSLUtil;
 
@@ -42,11 +43,18 @@ import java.util.List;
  * @author Sam Malone
  */
 public class Arguments {
+
+    /** batch path to read the batch commands from stdin **/
+    public final static String BATCH_STDIN = "-";
+
+    /** number of shows to select the next episode of if --up-next is given without a count **/
+    public final static int DEFAULT_UP_NEXT_COUNT = 10;
     
     private int mediaAction = Action.PLAY;
     private int randomCount = 0;
     private String USER = "";
     private String EPISODES;
+    private EpisodeExpression episodeExpression;
     private String SHOW;
     private String FILE = "";
     private String CONFIG;
@@ -58,6 +66,11 @@ public class Arguments {
     private boolean isSetOnly = false;
     private boolean isTraktPointerSet = false;
     private boolean isVersionSet = false;
+    private boolean isDaemonSet = false;
+    private boolean isKillSet = false;
+    private String batchPath;
+    private int upNextCount = 0;
+    private String timingsFormat;
 
     /**
      * Creates a new instance of the class
@@ -298,6 +311,22 @@ public class Arguments {
     public String getEpisodes() {
         return EPISODES;
     }
+
+    /**
+     * Gets the parsed episode string
+     * @return episode expression or null if not parsed
+     */
+    public EpisodeExpression getEpisodeExpression() {
+        return episodeExpression;
+    }
+
+    /**
+     * Sets the parsed episode string
+     * @param episodeExpression episode expression
+     */
+    public void setEpisodeExpression(EpisodeExpression episodeExpression) {
+        this.episodeExpression = episodeExpression;
+    }
     
     /**
      * Gets the media player information i.e. type, exe, args
@@ -330,4 +359,104 @@ public class Arguments {
     public boolean isVersionSet() {
         return isVersionSet;
     }
+
+    /**
+     * Checks if the flag is set to run as a daemon
+     * @return true if flag is set, false otherwise
+     */
+    public boolean isDaemonSet() {
+        return isDaemonSet;
+    }
+
+    /**
+     * Sets the flag to run as a daemon
+     * @param isDaemonSet true to run as a daemon
+     */
+    public void setDaemon(boolean isDaemonSet) {
+        this.isDaemonSet = isDaemonSet;
+    }
+
+    /**
+     * Checks if the flag is set to stop a running daemon
+     * @return true if flag is set, false otherwise
+     */
+    public boolean isKillSet() {
+        return isKillSet;
+    }
+
+    /**
+     * Sets the flag to stop a running daemon
+     * @param isKillSet true to stop a running daemon
+     */
+    public void setKill(boolean isKillSet) {
+        this.isKillSet = isKillSet;
+    }
+
+    /**
+     * Checks if the batch argument is set
+     * @return true if --batch argument is set, false otherwise
+     */
+    public boolean isBatchSet() {
+        return batchPath != null;
+    }
+
+    /**
+     * Gets the path of the file to read the batch commands from
+     * @return batch file path, {@link #BATCH_STDIN} to read the commands from
+     * stdin or null if not set
+     */
+    public String getBatchPath() {
+        return batchPath;
+    }
+
+    /**
+     * Sets the path of the file to read the batch commands from
+     * @param batchPath batch file path or {@link #BATCH_STDIN} to read the
+     * commands from stdin
+     */
+    public void setBatchPath(String batchPath) {
+        this.batchPath = batchPath;
+    }
+
+    /**
+     * Checks if the up next argument is set
+     * @return true if --up-next argument is set, false otherwise
+     */
+    public boolean isUpNextSet() {
+        return upNextCount > 0;
+    }
+
+    /**
+     * Gets the maximum number of shows to select the next episode of
+     * @return up next count or 0 if not set
+     */
+    public int getUpNextCount() {
+        return upNextCount;
+    }
+
+    /**
+     * Sets the maximum number of shows to select the next episode of
+     * @param upNextCount up next count or 0 to unset
+     */
+    public void setUpNextCount(int upNextCount) {
+        this.upNextCount = upNextCount;
+    }
+
+    /**
+     * Gets the format to print the phase timings of the invocation in
+     * @return {@link uk.co.samicemalone.tv.Timings#FORMAT_TEXT},
+     * {@link uk.co.samicemalone.tv.Timings#FORMAT_JSON} or null if the
+     * timings should not be printed
+     */
+    public String getTimingsFormat() {
+        return timingsFormat;
+    }
+
+    /**
+     * Sets the format to print the phase timings of the invocation in
+     * @param timingsFormat timings format or null to not print the timings
+     */
+    public void setTimingsFormat(String timingsFormat) {
+        this.timingsFormat = timingsFormat;
+    }
 }
@@ -28,6 +28,9 @@
  */
 package uk.co.samicemalone.tv.model;
 
+import uk.co.samicemalone.tv.io.PlaylistWriter;
+import uk.co.samicemalone.tv.tvdb.TVDatabaseProfile;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -48,6 +51,14 @@ public class Config {
     private boolean isTraktEnabled;
     private boolean isTraktUseCheckins;
     private String traktAuthFile;
+
+    private boolean isEpisodeIndexEnabled = true;
+    private int daemonPort;
+    private int mediainfoProcesses;
+    private int playerRemoteControlPort;
+    private boolean isPlaylistEnabled = true;
+    private PlaylistWriter.Format playlistFormat;
+    private final TVDatabaseProfile tvdbProfile = new TVDatabaseProfile();
     
     public Config() {
         sourceDirs = new ArrayList<>();
@@ -162,5 +173,114 @@ public class Config {
     public void setTraktAuthFile(String traktAuthFile) {
         this.traktAuthFile = traktAuthFile;
     }
-    
+
+    /**
+     * Check whether the episode index should be used to find episode files
+     * instead of listing the source folders every time
+     * @return true if enabled (default), false otherwise
+     */
+    public boolean isEpisodeIndexEnabled() {
+        return isEpisodeIndexEnabled;
+    }
+
+    public void setEpisodeIndexEnabled(String enabled) {
+        isEpisodeIndexEnabled = !"false".equals(enabled);
+    }
+
+    /**
+     * Get the local port the daemon listens on
+     * @return daemon port or 0 if not set
+     */
+    public int getDaemonPort() {
+        return daemonPort;
+    }
+
+    /**
+     * Set the local port the daemon listens on
+     * @param daemonPort daemon port
+     * @throws NumberFormatException if the port is not a number
+     */
+    public void setDaemonPort(String daemonPort) {
+        this.daemonPort = Integer.parseInt(daemonPort);
+    }
+
+    /**
+     * Get the local port of the remote control interface of the player
+     * @return remote control port or 0 if not set
+     */
+    public int getPlayerRemoteControlPort() {
+        return playerRemoteControlPort;
+    }
+
+    /**
+     * Set the local port of the remote control interface of the player
+     * @param port remote control port
+     * @throws NumberFormatException if the port is not a number
+     */
+    public void setPlayerRemoteControlPort(String port) {
+        this.playerRemoteControlPort = Integer.parseInt(port);
+    }
+
+    /**
+     * Check whether multiple files should be given to the player as a
+     * playlist file if the player supports it
+     * @return true if enabled (default), false otherwise
+     */
+    public boolean isPlaylistEnabled() {
+        return isPlaylistEnabled;
+    }
+
+    /**
+     * Get the playlist format to use instead of the player default
+     * @return playlist format or null if not set
+     */
+    public PlaylistWriter.Format getPlaylistFormat() {
+        return playlistFormat;
+    }
+
+    /**
+     * Set the playlist format
+     * @param playlistFormat m3u8, xspf or none to disable playlists
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public void setPlaylistFormat(String playlistFormat) {
+        if("none".equalsIgnoreCase(playlistFormat)) {
+            isPlaylistEnabled = false;
+            this.playlistFormat = null;
+            return;
+        }
+        PlaylistWriter.Format format = PlaylistWriter.Format.fromExtension(playlistFormat);
+        if(format == null) {
+            throw new IllegalArgumentException("unsupported playlist format " + playlistFormat);
+        }
+        isPlaylistEnabled = true;
+        this.playlistFormat = format;
+    }
+
+    /**
+     * Get the maximum number of mediainfo processes to run concurrently
+     * @return maximum number of mediainfo processes or 0 if not set
+     */
+    public int getMediainfoProcesses() {
+        return mediainfoProcesses;
+    }
+
+    /**
+     * Set the maximum number of mediainfo processes to run concurrently
+     * @param mediainfoProcesses maximum number of mediainfo processes
+     * @throws NumberFormatException if the value is not a number
+     */
+    public void setMediainfoProcesses(String mediainfoProcesses) {
+        this.mediainfoProcesses = Integer.parseInt(mediainfoProcesses);
+    }
+
+    /**
+     * Get the SQLite settings used to connect to the TVDB. Settings not
+     * given in the config have their default value
+     * @return TVDB SQLite settings
+     */
+    public TVDatabaseProfile getTVDBProfile() {
+        return tvdbProfile;
+    }
+
 }
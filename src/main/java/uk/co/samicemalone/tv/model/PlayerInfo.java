@@ -39,6 +39,7 @@ public class PlayerInfo {
     private String player;
     private String playerExecutable;
     private String[] playerArguments;
+    private int remoteControlPort;
 
     public PlayerInfo() {
         
@@ -72,12 +73,25 @@ public class PlayerInfo {
         this.playerArguments = playerArguments;
     }
 
+    /**
+     * Get the local port of the remote control interface of the player
+     * @return remote control port or 0 if not set
+     */
+    public int getRemoteControlPort() {
+        return remoteControlPort;
+    }
+
+    public void setRemoteControlPort(int remoteControlPort) {
+        this.remoteControlPort = remoteControlPort;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
         hash = 53 * hash + (this.player != null ? this.player.hashCode() : 0);
         hash = 53 * hash + (this.playerExecutable != null ? this.playerExecutable.hashCode() : 0);
         hash = 53 * hash + Arrays.deepHashCode(this.playerArguments);
+        hash = 53 * hash + this.remoteControlPort;
         return hash;
     }
 
@@ -93,6 +107,9 @@ public class PlayerInfo {
         if((this.playerExecutable == null) ? (other.playerExecutable != null) : !this.playerExecutable.equals(other.playerExecutable)) {
             return false;
         }
+        if(this.remoteControlPort != other.remoteControlPort) {
+            return false;
+        }
         return Arrays.deepEquals(this.playerArguments, other.playerArguments);
     }
     
@@ -29,6 +29,7 @@
 package uk.co.samicemalone.tv.options;
 
 import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.Timings;
 import uk.co.samicemalone.tv.action.Action;
 import uk.co.samicemalone.tv.exception.FileNotFoundException;
 import uk.co.samicemalone.tv.exception.InvalidArgumentException;
@@ -36,14 +37,23 @@ import uk.co.samicemalone.tv.exception.MissingArgumentException;
 import uk.co.samicemalone.tv.filter.RandomFilter;
 import uk.co.samicemalone.tv.io.LibraryManager;
 import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.selector.EpisodeExpressionParser;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  *
  * @author Sam Malone
  */
 public class ArgsParser {
+
+    /** options whose value is a path that may be relative to the working directory **/
+    private static final Set<String> PATH_OPTIONS = new HashSet<>(Arrays.asList(
+        "--config", "--source", "--file", "-f", "--batch"
+    ));
     
     /**
      * Attempts to parse the given program arguments.
@@ -51,7 +61,8 @@ public class ArgsParser {
      * @param args program arguments
      * @return Parsed Arguments instance or null if the help flag is set
      * @throws MissingArgumentException if there is an argument missing
-     * @throws InvalidArgumentException if an unexpected argument is given
+     * @throws InvalidArgumentException if an unexpected argument is given or
+     * the EPISODES input cannot be parsed
      */
     public static Arguments parse(String[] args) throws MissingArgumentException, InvalidArgumentException {
         Arguments arguments = new Arguments();
@@ -78,17 +89,56 @@ public class ArgsParser {
                 throw new MissingArgumentException(args[i]);
             }
         }
-        if(!arguments.isFileSet()) {
+        if(!arguments.isFileSet() && !arguments.isDaemonSet() && !arguments.isKillSet() && !arguments.isBatchSet() && !arguments.isUpNextSet()) {
             if(arguments.getShow() == null) {
                 throw new MissingArgumentException("The SHOW input is required", ExitCode.SHOW_INPUT_REQUIRED);
             }
             if(arguments.getEpisodes() == null) {
                 throw new MissingArgumentException("The EPISODES input is required", ExitCode.EPISODE_INPUT_REQUIRED);
             }
+            arguments.setEpisodeExpression(EpisodeExpressionParser.parse(arguments.getEpisodes()));
         }
         return arguments;
     }
     
+    /**
+     * Resolve the values of the path options (--config, --source, --file and
+     * --batch) that are relative against the given working directory. This is
+     * used by the daemon so the paths given to the client are resolved against
+     * the working directory of the client instead of the daemon.
+     * @param args program arguments
+     * @param workingDirectory absolute path of the directory to resolve
+     * relative paths against
+     * @return program arguments with the relative paths resolved
+     */
+    public static String[] resolvePaths(String[] args, String workingDirectory) {
+        String[] resolved = args.clone();
+        for(int i = 0; i < resolved.length - 1; i++) {
+            if(PATH_OPTIONS.contains(resolved[i])) {
+                resolved[i+1] = resolvePath(resolved[i+1], workingDirectory);
+                i++;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolve the given path against the working directory if it is relative.
+     * Unix paths, including Cygwin and WSL paths given on Windows, are
+     * already absolute and keep their separators so they can be converted.
+     * @param path path
+     * @param workingDirectory absolute path of the working directory
+     * @return the path if absolute or stdin, otherwise the path resolved
+     * against the working directory
+     */
+    private static String resolvePath(String path, String workingDirectory) {
+        if(path.isEmpty() || path.startsWith("/") || Arguments.BATCH_STDIN.equals(path) || new File(path).isAbsolute()) {
+            return path;
+        }
+        String separator = workingDirectory.startsWith("/") ? "/" : File.separator;
+        return workingDirectory.endsWith(separator) ? workingDirectory + path : workingDirectory + separator + path;
+    }
+
     /**
      * Parse an option from the current argument.
      * @param args arguments
@@ -121,6 +171,24 @@ public class ArgsParser {
             args.setRandomCount(1);
             return false;
         }
+        if(programArgs[curIndex].equals("--up-next")) {
+            // the count is optional. check if next argument is a count or another arg
+            if(curIndex + 1 < programArgs.length && programArgs[curIndex+1].matches("[1-9][0-9]*")) {
+                args.setUpNextCount(Integer.parseInt(programArgs[curIndex+1]));
+                return true;
+            }
+            args.setUpNextCount(Arguments.DEFAULT_UP_NEXT_COUNT);
+            return false;
+        }
+        if(programArgs[curIndex].equals("--timings")) {
+            // the format is optional. only consume the next argument if it is a format
+            if(curIndex + 1 < programArgs.length && Timings.isFormat(programArgs[curIndex+1])) {
+                args.setTimingsFormat(programArgs[curIndex+1]);
+                return true;
+            }
+            args.setTimingsFormat(Timings.FORMAT_TEXT);
+            return false;
+        }
         if(programArgs[curIndex].equals("--config")) {
             args.setConfigPath(programArgs[curIndex+1]);
             return true;
@@ -141,6 +209,10 @@ public class ArgsParser {
             args.setFile(programArgs[curIndex+1]);
             return true;
         }
+        if(programArgs[curIndex].equals("--batch")) {
+            args.setBatchPath(programArgs[curIndex+1]);
+            return true;
+        }
         if(args.getShow() == null) {
             args.setShow(programArgs[curIndex]);
             args.setEpisode(programArgs[curIndex+1]);
@@ -195,6 +267,14 @@ public class ArgsParser {
             case "--trakt":
                 args.setTraktPointer(true);
                 break;
+            case "--daemon":
+            case "-d":
+                args.setDaemon(true);
+                break;
+            case "--kill":
+            case "-k":
+                args.setKill(true);
+                break;
             default:
                 return false;
         }
@@ -217,6 +297,24 @@ public class ArgsParser {
         if(arg.getConfigPath() != null && !new File(arg.getConfigPath()).exists()) {
             throw new FileNotFoundException("The config file given does not exist", ExitCode.CONFIG_FILE_NOT_FOUND);
         }
+        if(arg.isDaemonSet() || arg.isKillSet()) {
+            return;
+        }
+        if(arg.isUpNextSet()) {
+            if(arg.getShow() != null) {
+                throw new InvalidArgumentException("TVSHOW EPISODES cannot be used with --up-next", ExitCode.UNEXPECTED_ARGUMENT);
+            }
+            if(arg.getMediaAction() == Action.SEEN || arg.getMediaAction() == Action.UNSEEN) {
+                throw new InvalidArgumentException("--seen and --unseen cannot be used with --up-next", ExitCode.UNEXPECTED_ARGUMENT);
+            }
+            return;
+        }
+        if(arg.isBatchSet()) {
+            if(!Arguments.BATCH_STDIN.equals(arg.getBatchPath()) && !new File(arg.getBatchPath()).exists()) {
+                throw new FileNotFoundException("The batch file does not exist", ExitCode.FILE_NOT_FOUND);
+            }
+            return;
+        }
         if(arg.isFileSet()) {
             File f = arg.getFile();
             if(f == null || !f.exists()) {
@@ -230,10 +328,9 @@ public class ArgsParser {
         if(arg.isSetOnly() && arg.isIgnoreSet()) {
             throw new InvalidArgumentException("-s and -i flags cannot be set together", ExitCode.UNEXPECTED_ARGUMENT);
         }
-//        List<EpisodeSelector> selectors = EpisodeSelector.defaultSelectors(null);
-//        if(selectors.stream().noneMatch(s -> arg.getEpisodes().matches(s.getSelector()))) {
-//            throw new InvalidArgumentException("Unable to parse the episodes given: " + arg.getEpisodes(), ExitCode.PARSE_EPISODES_FAILED);
-//        }
+        if(arg.getEpisodeExpression() == null) {
+            arg.setEpisodeExpression(EpisodeExpressionParser.parse(arg.getEpisodes()));
+        }
     }
     
     /**
@@ -244,7 +341,10 @@ public class ArgsParser {
         StringBuilder sb = new StringBuilder(4000);
         sb.append("Usage: tv TVSHOW EPISODES [ACTION] [-hvsi] [--source DIR]... [--library NAME]\n");
         sb.append("          [-r [NO]] [-p MP] [-u USER] [--trakt] [--config CONFIG]\n");
+        sb.append("          [--timings [FORMAT]]\n");
         sb.append("       tv -f FILE [ACTION] [-p MP] [--config CONFIG]\n");
+        sb.append("       tv -d [--config CONFIG]\n");
+        sb.append("       tv -k [--config CONFIG]\n");
         sb.append('\n');
         sb.append("    -u, --user USER   To be used when EPISODES is either prev, cur, next.\n");
         sb.append("                      To set your episode pointer you have to play a single\n");
@@ -267,6 +367,16 @@ public class ArgsParser {
         sb.append("    --source DIR      TV source folder. You can use this option multiple times\n");
         sb.append("    --library PATH    Windows 7+ Library PATH will be used to determine sources\n");
         sb.append("    -f, --file FILE   Plays FILE from the filesystem. Can use -q to enqueue\n");
+        sb.append("    -d, --daemon      Run in the background and serve requests from the tvc\n");
+        sb.append("                      client so the JVM, TVDB and plugins stay loaded.\n");
+        sb.append("    -k, --kill        Stop the running daemon.\n");
+        sb.append("    --up-next [NO]    Selects the next episode of the NO most recently watched\n");
+        sb.append("                      shows instead of TVSHOW EPISODES. Default NO is 10.\n");
+        sb.append("    --batch FILE      Run each line of FILE as a separate command sharing one\n");
+        sb.append("                      TVDB connection. FILE can be - to read from stdin.\n");
+        sb.append("    --timings [FORMAT]\n");
+        sb.append("                      Print the time taken by each phase to stderr. FORMAT\n");
+        sb.append("                      can be text (default) or json.\n");
         sb.append("    -h, --help        This help message will be printed then exit.\n");
         sb.append("    -v, --version     This version will be printed then exit.\n");
         sb.append('\n');
@@ -302,6 +412,8 @@ public class ArgsParser {
         sb.append(" *  latest              Latest episode\n");
         sb.append(" *  prev, cur, next     Episode based on pointer\n");
         sb.append("    prev-, cur-, next-  Remaining episodes in the season from given pointer\n");
+        sb.append("    s01-s02,s04,!s02e03 Comma separated list of formats. Formats prefixed\n");
+        sb.append("                        with ! are excluded. Pointers cannot be listed\n");
         sb.append('\n');
         sb.append("The pointer will be set whenever single epsisode format is used to play or\n");
         sb.append("enqueue. You can use the ignore flag (-i) to stop the pointer being set.\n");
@@ -29,11 +29,15 @@ package uk.co.samicemalone.tv.options;
 import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
 import uk.co.samicemalone.libtv.thread.DirectoryExistsThread;
 import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.MediaInfo;
+import uk.co.samicemalone.tv.Timings;
 import uk.co.samicemalone.tv.exception.ExitException;
 import uk.co.samicemalone.tv.exception.FileNotFoundException;
 import uk.co.samicemalone.tv.exception.MissingArgumentException;
+import uk.co.samicemalone.tv.io.PlaylistWriter;
 import uk.co.samicemalone.tv.model.Arguments;
 import uk.co.samicemalone.tv.model.Config;
+import uk.co.samicemalone.tv.tvdb.TVDatabaseProfile;
 
 import java.io.File;
 import java.util.List;
@@ -43,6 +47,8 @@ import java.util.List;
  * @author Sam Malone
  */
 public abstract class Environment {
+
+    public static final int DEFAULT_DAEMON_PORT = 5815;
     
     private String tvdb;
     private File mediainfo;
@@ -50,6 +56,13 @@ public abstract class Environment {
     private Arguments args;
     private boolean isTraktEnabled;
     private boolean isTraktUseCheckins;
+    private boolean isEpisodeIndexEnabled = true;
+    private int daemonPort = DEFAULT_DAEMON_PORT;
+    private int mediainfoProcesses = MediaInfo.DEFAULT_MAX_PROCESSES;
+    private boolean isPlaylistEnabled = true;
+    private PlaylistWriter.Format playlistFormat;
+    private TVDatabaseProfile tvdbProfile = new TVDatabaseProfile();
+    private final Timings timings = new Timings();
     
     /**
      * Get the default TVDB file
@@ -75,6 +88,13 @@ public abstract class Environment {
      */
     public abstract File getDefaultTraktAuthFile();
     
+    /**
+     * Get the default daemon token file containing the secret a client has
+     * to send with each request to the daemon
+     * @return default daemon token file
+     */
+    public abstract File getDefaultDaemonTokenFile();
+    
     /**
      * Get the arguments for this Environment
      * @return arguments or null if none set
@@ -151,6 +171,79 @@ public abstract class Environment {
         return isTraktUseCheckins;
     }
     
+    /**
+     * Check whether the episode index stored in the TVDB should be used to
+     * find episode files
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEpisodeIndexEnabled() {
+        return isEpisodeIndexEnabled;
+    }
+
+    /**
+     * Set whether the episode index stored in the TVDB should be used
+     */
+    public void setEpisodeIndexEnabled(boolean isEpisodeIndexEnabled) {
+        this.isEpisodeIndexEnabled = isEpisodeIndexEnabled;
+    }
+
+    /**
+     * Get the local port the daemon listens on
+     * @return daemon port
+     */
+    public int getDaemonPort() {
+        return daemonPort;
+    }
+
+    /**
+     * Get the phase timings of the current invocation
+     * @return timings
+     */
+    public Timings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Check whether multiple files should be given to the player as a
+     * playlist file if the player supports it
+     * @return true if enabled (default), false otherwise
+     */
+    public boolean isPlaylistEnabled() {
+        return isPlaylistEnabled;
+    }
+
+    /**
+     * Get the playlist format to use instead of the player default
+     * @return playlist format or null to use the player default
+     */
+    public PlaylistWriter.Format getPlaylistFormat() {
+        return playlistFormat;
+    }
+
+    /**
+     * Get the maximum number of mediainfo processes to run concurrently
+     * @return maximum number of mediainfo processes
+     */
+    public int getMediaInfoProcesses() {
+        return mediainfoProcesses;
+    }
+
+    /**
+     * Get the SQLite settings used to connect to the TVDB
+     * @return TVDB SQLite settings
+     */
+    public TVDatabaseProfile getTVDBProfile() {
+        return tvdbProfile;
+    }
+
+    /**
+     * Get the daemon token file
+     * @return daemon token file
+     */
+    public File getDaemonTokenFile() {
+        return getDefaultDaemonTokenFile();
+    }
+
     /**
      * Apply the values from the Config file to this Environment
      * @param config Config
@@ -171,7 +264,20 @@ public abstract class Environment {
                 args.getPlayerInfo().setPlayerArguments(config.getPlayerArguments());
             }
         }
+        if(config.getPlayerRemoteControlPort() > 0) {
+            args.getPlayerInfo().setRemoteControlPort(config.getPlayerRemoteControlPort());
+        }
         args.getSourceFolders().addAll(config.getSourceFolders());
+        isEpisodeIndexEnabled = config.isEpisodeIndexEnabled();
+        tvdbProfile = config.getTVDBProfile();
+        if(config.getDaemonPort() > 0) {
+            daemonPort = config.getDaemonPort();
+        }
+        if(config.getMediainfoProcesses() > 0) {
+            mediainfoProcesses = config.getMediainfoProcesses();
+        }
+        isPlaylistEnabled = config.isPlaylistEnabled();
+        playlistFormat = config.getPlaylistFormat();
         if(isTraktEnabled = config.isTraktEnabled()) {
             if(config.getTraktAuthFile() != null) {
                 traktAuthFile = new File(config.getTraktAuthFile());
@@ -191,17 +297,24 @@ public abstract class Environment {
      * be found.
      */
     public void validate() throws ExitException {
-        if(args.isVersionSet() || args.isFileSet()) {
+        if(args.isVersionSet() || args.isFileSet() || args.isDaemonSet() || args.isKillSet() || args.isBatchSet()) {
             return;
         }
         int TIMEOUT = 2000;
-        List<String> existentSources = DirectoryExistsThread.getExistingDirs(args.getSourceFolders(), TIMEOUT);
-        args.getSourceFolders().retainAll(existentSources);
+        try (Timings.Phase phase = timings.start("env.sourcesExist")) {
+            List<String> existentSources = DirectoryExistsThread.getExistingDirs(args.getSourceFolders(), TIMEOUT);
+            args.getSourceFolders().retainAll(existentSources);
+        }
         if(args.getSourceFolders().isEmpty()) {
             throw new MissingArgumentException("The --source or --library input is required", ExitCode.SOURCE_DIR_NOT_FOUND);
         }
-        if(new StandardTVLibrary(args.getSourceFolders()).getSeasonsPath(args.getShow()) == null) {
-            throw new FileNotFoundException("Unable to find show: " + args.getShow(), ExitCode.SHOW_NOT_FOUND);
+        if(args.isUpNextSet()) {
+            return;
+        }
+        try (Timings.Phase phase = timings.start("env.findShow")) {
+            if(new StandardTVLibrary(args.getSourceFolders()).getSeasonsPath(args.getShow()) == null) {
+                throw new FileNotFoundException("Unable to find show: " + args.getShow(), ExitCode.SHOW_NOT_FOUND);
+            }
         }
     }
     
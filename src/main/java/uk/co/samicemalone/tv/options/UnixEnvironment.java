@@ -57,5 +57,10 @@ public class UnixEnvironment extends Environment {
     public File getDefaultTraktAuthFile() {
         return new File(System.getProperty("user.home") + "/.tv/trakt.auth");
     }
+
+    @Override
+    public File getDefaultDaemonTokenFile() {
+        return new File(System.getProperty("user.home") + "/.tv/daemon.token");
+    }
     
 }
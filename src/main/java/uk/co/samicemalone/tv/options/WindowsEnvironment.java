@@ -70,6 +70,11 @@ public class WindowsEnvironment extends Environment {
         return new File(System.getenv("USERPROFILE") + "\\tv\\trakt.auth");
     }
 
+    @Override
+    public File getDefaultDaemonTokenFile() {
+        return new File(System.getenv("USERPROFILE") + "\\tv\\daemon.token");
+    }
+
     @Override
     public void fromConfig(Config config) {
         if(getArguments().getLibraryPath() == null && config.getLibraryPath() != null) {
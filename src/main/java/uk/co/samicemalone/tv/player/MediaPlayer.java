@@ -28,6 +28,8 @@
  */
 package uk.co.samicemalone.tv.player;
 
+import uk.co.samicemalone.tv.io.PlaylistWriter;
+
 import java.io.File;
 import java.util.Arrays;
 
@@ -39,6 +41,7 @@ public abstract class MediaPlayer {
     
     protected File EXECUTABLE;
     protected String[] ARGUMENTS;
+    protected int REMOTE_CONTROL_PORT;
     
     /**
      * Plays the given file list in the media player
@@ -84,6 +87,33 @@ public abstract class MediaPlayer {
         ARGUMENTS = args;
     }
     
+    /**
+     * Gets the local port of the remote control interface of the media player
+     * @return remote control port or 0 if not set
+     */
+    public int getRemoteControlPort() {
+        return REMOTE_CONTROL_PORT;
+    }
+    
+    /**
+     * Sets the local port of the remote control interface of the media
+     * player. Players that support a remote control interface send files to
+     * an already running instance instead of starting a new process.
+     * @param port remote control port or 0 to disable
+     */
+    public void setRemoteControlPort(int port) {
+        REMOTE_CONTROL_PORT = port;
+    }
+    
+    /**
+     * Gets the playlist format the media player can open. A list of files is
+     * given to the player as a single playlist file if supported.
+     * @return playlist format or null if playlists are not supported
+     */
+    public PlaylistWriter.Format getPlaylistFormat() {
+        return null;
+    }
+    
     /**
      * Gets a formatted path from an existing file path.
      * e.g. VLC prepends file:/// to the path
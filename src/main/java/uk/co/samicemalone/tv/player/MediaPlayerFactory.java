@@ -59,6 +59,7 @@ public class MediaPlayerFactory {
         if(player.getPlayerArguments() != null) {
             p.setArguments(player.getPlayerArguments());
         }
+        p.setRemoteControlPort(player.getRemoteControlPort());
         return p;
     }
     
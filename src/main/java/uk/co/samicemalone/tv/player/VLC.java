@@ -30,9 +30,11 @@ package uk.co.samicemalone.tv.player;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import uk.co.samicemalone.tv.URI;
+import uk.co.samicemalone.tv.io.PlaylistWriter;
 import uk.co.samicemalone.tv.options.WindowsEnvironment;
 
 /**
@@ -49,14 +51,41 @@ public class VLC extends MediaPlayer {
         }
     }
 
+    /**
+     * Gets the remote control of the running VLC instance
+     * @return remote control or null if the remote control port is not set
+     */
+    private VLCRemoteControl getRemoteControl() {
+        return getRemoteControlPort() > 0 ? new VLCRemoteControl(getRemoteControlPort()) : null;
+    }
+    
+    /**
+     * Gets the arguments to launch VLC with. If the remote control port is
+     * set, the RC interface is started so the next play or enqueue can reuse
+     * this instance.
+     * @param remote remote control or null
+     * @param args additional arguments
+     * @return launch arguments
+     */
+    private String[] getLaunchArguments(VLCRemoteControl remote, String... args) {
+        List<String> launchArgs = new ArrayList<>();
+        if(getArguments() != null) {
+            launchArgs.addAll(Arrays.asList(getArguments()));
+        }
+        if(remote != null) {
+            launchArgs.addAll(Arrays.asList(remote.getLaunchArguments()));
+        }
+        launchArgs.addAll(Arrays.asList(args));
+        return launchArgs.toArray(new String[] {});
+    }
+
     @Override
     public void play(File[] list) {
-        String[] command;
-        if(getArguments() == null || getArguments().length == 0) {
-            command = buildCommandString(list);
-        } else {
-            command = buildCommandString(list, getArguments());
+        VLCRemoteControl remote = getRemoteControl();
+        if(remote != null && remote.play(list)) {
+            return;
         }
+        String[] command = buildCommandString(list, getLaunchArguments(remote));
         try {
             Runtime.getRuntime().exec(command);
         } catch (IOException e) {
@@ -66,14 +95,11 @@ public class VLC extends MediaPlayer {
 
     @Override
     public void enqueue(File[] list) {
-        String[] command;
-        if(getArguments() == null || getArguments().length == 0) {
-            command = buildCommandString(list, "--playlist-enqueue");
-        } else {
-            List<String> args = Arrays.asList(getArguments());
-            args.add("--playlist-enqueue");
-            command = buildCommandString(list, args.toArray(new String[] {}));
+        VLCRemoteControl remote = getRemoteControl();
+        if(remote != null && remote.enqueue(list)) {
+            return;
         }
+        String[] command = buildCommandString(list, getLaunchArguments(remote, "--playlist-enqueue"));
         try {
             Runtime.getRuntime().exec(command);
         } catch (IOException e) {
@@ -81,6 +107,11 @@ public class VLC extends MediaPlayer {
         }
     }
 
+    @Override
+    public PlaylistWriter.Format getPlaylistFormat() {
+        return PlaylistWriter.Format.M3U8;
+    }
+
     @Override
     protected String getFormattedPath(String fullPath) {
         return "file:///" + URI.encode(fullPath);
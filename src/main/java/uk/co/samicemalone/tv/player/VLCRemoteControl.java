@@ -0,0 +1,132 @@
+package uk.co.samicemalone.tv.player;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client for the RC (remote control) interface of a running VLC instance.
+ * VLC listens for RC connections when started with
+ * {@code --extraintf=rc --rc-host=localhost:<port>}.
+ * <p>
+ * Commands are sent over a single connection. The output of VLC is drained
+ * until VLC closes the connection so the commands are processed before the
+ * connection is closed.
+ * @author Sam Malone
+ */
+public class VLCRemoteControl {
+
+    private final static Logger logger = LoggerFactory.getLogger(VLCRemoteControl.class.getName());
+
+    private static final int CONNECT_TIMEOUT = 250;
+    private static final int READ_TIMEOUT = 2000;
+
+    private final int port;
+
+    /**
+     * Creates a new VLCRemoteControl
+     * @param port local port the VLC RC interface listens on
+     */
+    public VLCRemoteControl(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Get the arguments that start the RC interface on the port of this
+     * remote control when VLC is launched
+     * @return VLC arguments
+     */
+    public String[] getLaunchArguments() {
+        List<String> args = new ArrayList<>();
+        args.add("--extraintf=rc");
+        args.add("--rc-host=localhost:" + port);
+        if(File.separatorChar == '\\') {
+            args.add("--rc-quiet");
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Replace the playlist of the running VLC instance with the given files
+     * and start playing the first file
+     * @param list files to play
+     * @return true if the files were sent to VLC, false if no VLC instance is
+     * listening
+     */
+    public boolean play(File[] list) {
+        List<String> commands = new ArrayList<>();
+        commands.add("clear");
+        for (int i = 0; i < list.length; i++) {
+            commands.add((i == 0 ? "add " : "enqueue ") + toMrl(list[i]));
+        }
+        return send(commands);
+    }
+
+    /**
+     * Add the given files to the end of the playlist of the running VLC
+     * instance and start playback if stopped
+     * @param list files to enqueue
+     * @return true if the files were sent to VLC, false if no VLC instance is
+     * listening
+     */
+    public boolean enqueue(File[] list) {
+        List<String> commands = new ArrayList<>();
+        for (File file : list) {
+            commands.add("enqueue " + toMrl(file));
+        }
+        commands.add("play");
+        return send(commands);
+    }
+
+    private static String toMrl(File file) {
+        return file.getAbsoluteFile().toURI().toASCIIString();
+    }
+
+    /**
+     * Send the given commands to VLC
+     * @param commands RC commands
+     * @return true if sent, false if unable to connect to VLC
+     */
+    boolean send(List<String> commands) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT);
+            socket.setSoTimeout(READ_TIMEOUT);
+            OutputStream out = socket.getOutputStream();
+            StringBuilder sb = new StringBuilder();
+            for (String command : commands) {
+                logger.debug("[vlc] rc {}", command);
+                sb.append(command).append('\n');
+            }
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            socket.shutdownOutput();
+            drain(socket.getInputStream());
+            return true;
+        } catch (IOException e) {
+            logger.debug("[vlc] rc interface not available on port {}: {}", port, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[1024];
+        try {
+            while (in.read(buffer) >= 0) {
+                // discard the RC output
+            }
+        } catch (SocketTimeoutException e) {
+            logger.debug("[vlc] rc interface did not close the connection");
+        }
+    }
+}
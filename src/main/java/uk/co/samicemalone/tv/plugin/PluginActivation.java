@@ -0,0 +1,82 @@
+package uk.co.samicemalone.tv.plugin;
+
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.selector.EpisodeExpression;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Declares the runs a plugin is used by. The Application only creates and
+ * loads a plugin if the arguments of the run activate it, so a plugin and the
+ * libraries it uses aren't loaded by runs that don't need them. A plugin is
+ * activated if the media action is one of its actions, the EPISODES
+ * expression is one of its expression types or one of its flags is set.
+ * @author Sam Malone
+ */
+public class PluginActivation {
+
+    private final Set<Integer> actions = new HashSet<>();
+    private final Set<EpisodeExpression.Type> expressionTypes = EnumSet.noneOf(EpisodeExpression.Type.class);
+    private final List<Predicate<Arguments>> flags = new ArrayList<>();
+
+    /**
+     * Activate the plugin for the given media actions
+     * @param actions media actions e.g. Action.PLAY
+     * @return this PluginActivation
+     */
+    public PluginActivation onActions(int... actions) {
+        for (int action : actions) {
+            this.actions.add(action);
+        }
+        return this;
+    }
+
+    /**
+     * Activate the plugin for the given EPISODES expression types, e.g. the
+     * expression types of the selectors it registers
+     * @param types expression types
+     * @return this PluginActivation
+     */
+    public PluginActivation onExpressionTypes(EpisodeExpression.Type... types) {
+        for (EpisodeExpression.Type type : types) {
+            expressionTypes.add(type);
+        }
+        return this;
+    }
+
+    /**
+     * Activate the plugin if the given flag is set
+     * @param flag tests whether the flag is set in the arguments
+     * @return this PluginActivation
+     */
+    public PluginActivation onFlag(Predicate<Arguments> flag) {
+        flags.add(flag);
+        return this;
+    }
+
+    /**
+     * Check if a run with the given arguments uses the plugin
+     * @param args Arguments
+     * @return true if the plugin is activated
+     */
+    public boolean isActivatedBy(Arguments args) {
+        if(actions.contains(args.getMediaAction())) {
+            return true;
+        }
+        EpisodeExpression expression = args.getEpisodeExpression();
+        if(expression != null && expressionTypes.contains(expression.getType())) {
+            return true;
+        }
+        for (Predicate<Arguments> flag : flags) {
+            if(flag.test(args)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
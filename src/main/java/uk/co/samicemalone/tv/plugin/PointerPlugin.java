@@ -1,12 +1,17 @@
 package uk.co.samicemalone.tv.plugin;
 
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.libtv.model.EpisodeNavigator;
 import uk.co.samicemalone.tv.Application;
 import uk.co.samicemalone.tv.action.Action;
 import uk.co.samicemalone.tv.action.ActionListener;
 import uk.co.samicemalone.tv.exception.ExitException;
 import uk.co.samicemalone.tv.model.Arguments;
 import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.selector.EpisodeExpression;
 import uk.co.samicemalone.tv.selector.EpisodeNavigatorProgressSelector;
 import uk.co.samicemalone.tv.selector.EpisodeProgressSelector;
 import uk.co.samicemalone.tv.selector.EpisodeSelector;
@@ -18,12 +23,30 @@ import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.List;
 
 public class PointerPlugin implements Plugin, ActionListener {
+    private final static Logger logger = LoggerFactory.getLogger(PointerPlugin.class.getName());
+
+    /**
+     * the expression types of the selectors registered by the plugin, or
+     * playing the next episodes with --up-next which moves the pointers
+     */
+    public static final PluginActivation ACTIVATION = new PluginActivation().onExpressionTypes(
+        EpisodeExpression.Type.EPISODE,
+        EpisodeExpression.Type.PILOT,
+        EpisodeExpression.Type.LATEST,
+        EpisodeExpression.Type.POINTER,
+        EpisodeExpression.Type.POINTER_FROM
+    ).onFlag(args -> args.isUpNextSet() && args.getMediaAction() == Action.PLAY && !args.isIgnoreSet());
+
     private TVDatabase tvDatabase;
+    private TVPath tvPath;
+    private List<String> sourceFolders;
 
     public PointerPlugin(TVDatabase tvDatabase) {
         this.tvDatabase = tvDatabase;
@@ -31,6 +54,8 @@ public class PointerPlugin implements Plugin, ActionListener {
 
     @Override
     public void onLoad(Application app) {
+        tvPath = app.getTVPath();
+        sourceFolders = app.getArguments().getSourceFolders();
         app.registerEpisodeSelector(new SingleEpisodeProgressSelector(app.getTVPath(), tvDatabase));
         app.registerEpisodeSelector(new PilotEpisodeProgressSelector(app.getTVPath(), tvDatabase));
         app.registerEpisodeSelector(new LatestEpisodeProgressSelector(app.getTVPath(), tvDatabase));
@@ -51,7 +76,10 @@ public class PointerPlugin implements Plugin, ActionListener {
             if(pointer != null) {
                 try {
                     pointer.setWatchedAt(Instant.now());
-                    tvDatabase.setShowProgress(currentProgress, pointer);
+                    File directory = matches.get(0).getEpisodeFile().getParentFile();
+                    EpisodeMatch next = findNext(selector, pointer, directory);
+                    long nextDirectoryModified = next == null ? 0 : directory.lastModified();
+                    tvDatabase.setShowProgress(pointer, next, nextDirectoryModified);
                 } catch (SQLException ex) {
                     System.err.format("[tvdb] unable to set current progress (%s)\n", pointer);
                     ex.printStackTrace();
@@ -60,6 +88,33 @@ public class PointerPlugin implements Plugin, ActionListener {
         }
     }
 
+    /**
+     * Find the episode after the given pointer so the next invocation can
+     * use it without navigating. The next episode is only stored if it is in
+     * the same directory as the pointer and the show is in a single source
+     * folder, so any change that could alter the next episode, e.g. an
+     * episode being added, modifies that directory.
+     * @param selector selector the pointer was found by
+     * @param pointer new pointer
+     * @param directory directory containing the pointer episode
+     * @return next episode or null if not in the same directory
+     */
+    private EpisodeMatch findNext(EpisodeSelector selector, Episode pointer, File directory) {
+        if(!EpisodeNavigatorProgressSelector.isInSingleSourceFolder(pointer.getShow(), sourceFolders)) {
+            return null;
+        }
+        try {
+            EpisodeNavigator navigator = new EpisodeNavigator(selector.getTVEpisodeMatcher(), tvPath);
+            EpisodeMatch next = navigator.navigate(pointer, EpisodeNavigator.Pointer.NEXT);
+            if(next != null && directory.equals(next.getEpisodeFile().getParentFile())) {
+                return next;
+            }
+        } catch (IOException e) {
+            logger.debug("[pointer] unable to find the episode after {}: {}", pointer, e.getMessage());
+        }
+        return null;
+    }
+
     @Override
     public void onUnload(Application app) {
 
@@ -5,7 +5,6 @@ import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.logger.Logger;
 import com.j256.ormlite.logger.LoggerFactory;
 import com.j256.ormlite.support.ConnectionSource;
-import com.j256.ormlite.table.TableUtils;
 import com.uwetrottmann.trakt5.entities.BaseShow;
 import com.uwetrottmann.trakt5.entities.SearchResult;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
@@ -23,19 +22,17 @@ import uk.co.samicemalone.tv.selector.CurrentProgressProvider;
 import uk.co.samicemalone.tv.selector.EpisodeProgressSelector;
 import uk.co.samicemalone.tv.selector.EpisodeSelector;
 import uk.co.samicemalone.tv.trakt.TraktClient;
+import uk.co.samicemalone.tv.trakt.TraktQueueProcessor;
 import uk.co.samicemalone.tv.trakt.TraktUI;
 import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.TVDatabaseTableConfigs;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
 import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
 
-import java.io.IOException;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,10 +42,20 @@ public class TraktPlugin implements Plugin, CurrentProgressProvider, ActionListe
 
     private final static Logger logger = LoggerFactory.getLogger(Application.class.getName());
 
+    /**
+     * trakt is only used to mark episodes as (un)seen, to mark a played
+     * episode as seen or to get the pointer from trakt
+     */
+    public static final PluginActivation ACTIVATION = new PluginActivation()
+        .onActions(Action.SEEN, Action.UNSEEN)
+        .onFlag(args -> args.getMediaAction() == Action.PLAY && !args.isIgnoreSet())
+        .onFlag(Arguments::isTraktPointerSet);
+
     private TraktClient trakt;
     private TraktAuthToken authToken;
     private TVDatabase tvDatabase;
     private Dao<TraktShowProgressQueue, Integer> dao;
+    private ConnectionSource daoSource;
 
     public TraktPlugin(TVDatabase tvDatabase) {
         this.trakt = new TraktClient();
@@ -69,54 +76,10 @@ public class TraktPlugin implements Plugin, CurrentProgressProvider, ActionListe
         }
     }
 
-    private List<List<TraktShowProgressQueue>> groupQueueByContinuousType(List<TraktShowProgressQueue> queue) {
-        List<List<TraktShowProgressQueue>> batchQueue = new ArrayList<>();
-        List<TraktShowProgressQueue> batchQueueItem = new ArrayList<>();
-
-        for (int i = 0; i < queue.size(); i++) {
-            TraktShowProgressQueue queueItem = queue.get(i);
-            if(i != 0) {
-                TraktShowProgressQueue lastQueueItem = queue.get(i - 1);
-                if(!queueItem.getMarkType().equals(lastQueueItem.getMarkType())) {
-                    batchQueue.add(batchQueueItem);
-                    batchQueueItem = new ArrayList<>();
-                }
-            }
-
-            batchQueueItem.add(queueItem);
-
-            // Add remaining items on the last run
-            if(i == queue.size() - 1 && !batchQueueItem.isEmpty()) {
-                batchQueue.add(batchQueueItem);
-            }
-        }
-        return batchQueue;
-    }
-
-    private void processQueue() throws TraktException, IOException {
+    private void processQueue() throws TraktException {
         try {
-            Map<Integer, Show> showMapById = new HashMap<>();
-            List<TraktShowProgressQueue> queue = dao.query(
-                dao.queryBuilder().orderBy("watchedAt", true).prepare()
-            );
-            List<List<TraktShowProgressQueue>> batchQueue = groupQueueByContinuousType(queue);
-            logger.debug("[trakt] progress queue batches = " + batchQueue.size());
-
-            for (List<TraktShowProgressQueue> batchQueueItem : batchQueue) {
-                logger.debug("[trakt] progress queue items = " + batchQueueItem.size());
-                List<Episode> queueEpisodes = new ArrayList<>();
-
-                for (TraktShowProgressQueue item : batchQueueItem) {
-                    Show show = item.getShow();
-                    showMapById.put(show.getId(), show);
-                    Episode episode = item.toEpisode();
-                    queueEpisodes.add(episode);
-                    logger.info("[trakt] marking {} as seen {}", episode, item.getMarkType());
-                    trakt.syncWatchedProgress(showMapById.values(), queueEpisodes);
-                    logger.debug("[tvdb] deleting {} from the progress queue", episode);
-                    dao.delete(queue);
-                }
-            }
+            int drained = new TraktQueueProcessor(trakt, tvDatabase, dao).process();
+            logger.debug("[trakt] drained {} items from the progress queue", drained);
         } catch (SQLException e) {
             logger.error("[trakt] unable to process the progress queue");
             logger.debug(e, "[trakt] [SQLException]");
@@ -130,17 +93,25 @@ public class TraktPlugin implements Plugin, CurrentProgressProvider, ActionListe
     @Override
     public void onLoad(Application app) {
         ConnectionSource source = tvDatabase.getConnectionSource();
-        try {
-            dao = DaoManager.createDao(source, TraktShowProgressQueue.class);
-
-            TableUtils.createTableIfNotExists(source, TraktShowProgressQueue.class);
-        } catch (SQLException e) {
-            logger.error("[tvdb] unable to create trakt show progress queue table");
-            ENV.setTraktEnabled(false);
-            return;
+        // the plugin is loaded once per run so only set up what has changed
+        // when it is kept resident by the daemon
+        if(dao == null || daoSource != source) {
+            try {
+                // the queue table is created by the TVDB schema migrations
+                TVDatabaseTableConfigs.load();
+                dao = DaoManager.createDao(source, TraktShowProgressQueue.class);
+                daoSource = source;
+            } catch (SQLException e) {
+                logger.error("[tvdb] unable to create trakt show progress queue dao");
+                dao = null;
+                ENV.setTraktEnabled(false);
+                return;
+            }
         }
 
-        authToken = trakt.authenticate(ENV.getTraktAuthFile());
+        if(authToken == null || authToken.hasExpired() || authToken.isRefreshRequired(60)) {
+            authToken = trakt.authenticate(ENV.getTraktAuthFile());
+        }
         if(authToken == null) {
             logger.info("[trakt] auth token is null, disabling trakt...");
             ENV.setTraktEnabled(false);
@@ -210,8 +181,6 @@ public class TraktPlugin implements Plugin, CurrentProgressProvider, ActionListe
                 processQueue();
             } catch (TraktException e) {
                 logger.error(e.getMessage());
-            } catch (IOException e) {
-                logger.error("[trakt] [IOException] unable to process the progress queue");
             }
         }
     }
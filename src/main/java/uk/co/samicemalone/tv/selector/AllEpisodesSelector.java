@@ -53,8 +53,8 @@ public class AllEpisodesSelector extends EpisodeSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "all";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.ALL;
     }
 
     @Override
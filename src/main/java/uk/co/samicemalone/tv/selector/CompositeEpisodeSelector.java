@@ -0,0 +1,136 @@
+package uk.co.samicemalone.tv.selector;
+
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.exception.ExitException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selects the union of the included expressions of a composite EPISODES
+ * argument minus the union of the excluded expressions e.g.
+ * s01e01-s01e05,s03,!s03e07. The episodes of the show are listed once and
+ * each term is evaluated against the list in memory rather than matching each
+ * term against the source folders in turn.
+ * @author Sam Malone
+ */
+public class CompositeEpisodeSelector extends EpisodeSelector {
+
+    private static final Comparator<EpisodeMatch> EPISODE_ORDER = Comparator
+        .comparingInt(EpisodeMatch::getSeason)
+        .thenComparingInt(m -> m.getEpisodesAsRange().getStart());
+
+    public CompositeEpisodeSelector(TVPath tvPath) {
+        super(tvPath);
+    }
+
+    @Override
+    public String getMode() {
+        return "COMPOSITE";
+    }
+
+    @Override
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.COMPOSITE;
+    }
+
+    @Override
+    public List<EpisodeMatch> findMatches() throws IOException {
+        EpisodeExpression episodes = TV.ENV.getArguments().getEpisodeExpression();
+        String show = TV.ENV.getArguments().getShow();
+        List<EpisodeMatch> all = new ArrayList<>(getTVEpisodeMatcher().matchAllEpisodes(show));
+        all.sort(EPISODE_ORDER);
+        List<EpisodeMatch> matches = new ArrayList<>();
+        EpisodeMatch previous = null;
+        for (EpisodeMatch match : all) {
+            if(previous != null && EPISODE_ORDER.compare(previous, match) == 0) {
+                continue;
+            }
+            boolean included = episodes.getIncluded().isEmpty() || anyMatch(episodes.getIncluded(), match, all);
+            if(included && !anyMatch(episodes.getExcluded(), match, all)) {
+                matches.add(match);
+                previous = match;
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public List<EpisodeMatch> findMatchesOrThrow() throws IOException, ExitException {
+        List<EpisodeMatch> matches = findMatches();
+        if(matches.isEmpty()) {
+            throw new ExitException("Unable to match any episodes in the given list", ExitCode.EPISODES_NOT_FOUND);
+        }
+        return matches;
+    }
+
+    private static boolean anyMatch(List<EpisodeExpression> terms, EpisodeMatch match, List<EpisodeMatch> all) {
+        for (EpisodeExpression term : terms) {
+            if(isMatch(term, match, all)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the given episode match is selected by the given term. A multi
+     * episode file is selected if any of its episodes are selected.
+     * @param term EPISODES expression
+     * @param match episode match to check
+     * @param all every episode of the show, sorted by season and episode
+     * @return true if selected, false otherwise
+     */
+    private static boolean isMatch(EpisodeExpression term, EpisodeMatch match, List<EpisodeMatch> all) {
+        int season = match.getSeason();
+        switch (term.getType()) {
+            case ALL:
+                return true;
+            case LATEST_SEASON:
+                return season == all.get(all.size() - 1).getSeason();
+            case LATEST:
+                return EPISODE_ORDER.compare(match, all.get(all.size() - 1)) == 0;
+            case SEASON:
+                return season == term.getSeason();
+            case SEASONS_FROM:
+                return season >= term.getSeason();
+            case SEASON_RANGE:
+                return season >= term.getSeasonRange().getStart() && season <= term.getSeasonRange().getEnd();
+            default:
+                break;
+        }
+        for (int episode : match.getEpisodes()) {
+            if(isEpisodeMatch(term, season, episode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEpisodeMatch(EpisodeExpression term, int season, int episode) {
+        switch (term.getType()) {
+            case PILOT:
+                return season == 1 && episode == 1;
+            case EPISODE:
+                return season == term.getSeason() && episode == term.getEpisode();
+            case EPISODES_FROM:
+                return season == term.getSeason() && episode >= term.getEpisode();
+            case EPISODE_RANGE:
+                int start = compare(season, episode, term.getEpisodeRange().getStartSeason(), term.getEpisodeRange().getStartEpisode());
+                int end = compare(season, episode, term.getEpisodeRange().getEndSeason(), term.getEpisodeRange().getEndEpisode());
+                return start >= 0 && end <= 0;
+            default:
+                return false;
+        }
+    }
+
+    private static int compare(int season, int episode, int otherSeason, int otherEpisode) {
+        int compare = Integer.compare(season, otherSeason);
+        return compare == 0 ? Integer.compare(episode, otherEpisode) : compare;
+    }
+}
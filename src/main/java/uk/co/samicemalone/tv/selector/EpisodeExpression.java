@@ -0,0 +1,147 @@
+package uk.co.samicemalone.tv.selector;
+
+import uk.co.samicemalone.libtv.model.EpisodeNavigator;
+import uk.co.samicemalone.libtv.model.EpisodeRange;
+import uk.co.samicemalone.libtv.model.Range;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed EPISODES argument e.g. s02e03-s02e08. The type of the expression
+ * determines which {@link EpisodeSelector} finds the matching episodes and
+ * which of the season, episode and pointer values are set.
+ * @author Sam Malone
+ * @see EpisodeExpressionParser
+ */
+public final class EpisodeExpression {
+
+    public enum Type {
+        /** all episodes e.g. all **/
+        ALL,
+        /** a season e.g. s01 **/
+        SEASON,
+        /** the latest season e.g. s$ **/
+        LATEST_SEASON,
+        /** a season until the last season e.g. s02- **/
+        SEASONS_FROM,
+        /** a range of seasons e.g. s01-s03 **/
+        SEASON_RANGE,
+        /** a single episode e.g. s01e04 **/
+        EPISODE,
+        /** an episode until the end of its season e.g. s01e04- **/
+        EPISODES_FROM,
+        /** a range of episodes e.g. s01e04-s02e06 **/
+        EPISODE_RANGE,
+        /** the first episode of the show e.g. pilot **/
+        PILOT,
+        /** the latest episode of the show e.g. latest **/
+        LATEST,
+        /** an episode relative to the current progress e.g. next **/
+        POINTER,
+        /** an episode relative to the current progress until the end of its season e.g. next- **/
+        POINTER_FROM,
+        /** a union of expressions minus excluded expressions e.g. s01e01-s01e05,s03,!s03e07 **/
+        COMPOSITE
+    }
+
+    private final Type type;
+    private final String text;
+    private final int season;
+    private final int episode;
+    private final int endSeason;
+    private final int endEpisode;
+    private final EpisodeNavigator.Pointer pointer;
+    private final List<EpisodeExpression> included;
+    private final List<EpisodeExpression> excluded;
+
+    EpisodeExpression(Type type, String text, int season, int episode, int endSeason, int endEpisode, EpisodeNavigator.Pointer pointer) {
+        this.type = type;
+        this.text = text;
+        this.season = season;
+        this.episode = episode;
+        this.endSeason = endSeason;
+        this.endEpisode = endEpisode;
+        this.pointer = pointer;
+        this.included = Collections.emptyList();
+        this.excluded = Collections.emptyList();
+    }
+
+    EpisodeExpression(String text, List<EpisodeExpression> included, List<EpisodeExpression> excluded) {
+        this.type = Type.COMPOSITE;
+        this.text = text;
+        this.season = 0;
+        this.episode = 0;
+        this.endSeason = 0;
+        this.endEpisode = 0;
+        this.pointer = null;
+        this.included = Collections.unmodifiableList(included);
+        this.excluded = Collections.unmodifiableList(excluded);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the start season
+     * @return season number or 0 if the expression has no season
+     */
+    public int getSeason() {
+        return season;
+    }
+
+    /**
+     * Get the start episode
+     * @return episode number or 0 if the expression has no episode
+     */
+    public int getEpisode() {
+        return episode;
+    }
+
+    /**
+     * Get the season range of a {@link Type#SEASON_RANGE} expression
+     * @return season range
+     */
+    public Range getSeasonRange() {
+        return new Range(season, endSeason);
+    }
+
+    /**
+     * Get the episode range of a {@link Type#EPISODE_RANGE} expression
+     * @return episode range
+     */
+    public EpisodeRange getEpisodeRange() {
+        return new EpisodeRange(season, episode, endSeason, endEpisode);
+    }
+
+    /**
+     * Get the navigation pointer of a {@link Type#POINTER} or
+     * {@link Type#POINTER_FROM} expression
+     * @return pointer or null if not a pointer expression
+     */
+    public EpisodeNavigator.Pointer getPointer() {
+        return pointer;
+    }
+
+    /**
+     * Get the included expressions of a {@link Type#COMPOSITE} expression
+     * @return included expressions. If empty, every episode is included
+     */
+    public List<EpisodeExpression> getIncluded() {
+        return included;
+    }
+
+    /**
+     * Get the excluded expressions of a {@link Type#COMPOSITE} expression
+     * @return excluded expressions
+     */
+    public List<EpisodeExpression> getExcluded() {
+        return excluded;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
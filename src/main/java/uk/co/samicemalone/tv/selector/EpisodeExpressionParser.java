@@ -0,0 +1,197 @@
+package uk.co.samicemalone.tv.selector;
+
+import uk.co.samicemalone.libtv.model.EpisodeNavigator;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.exception.InvalidArgumentException;
+import uk.co.samicemalone.tv.selector.EpisodeExpression.Type;
+import uk.co.samicemalone.tv.util.TVUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the EPISODES argument into an {@link EpisodeExpression} in a single
+ * pass. The grammar is:
+ * <pre>
+ * episodes   := expression | term { "," term }
+ * term       := [ "!" ] expression
+ * expression := "all" | "pilot" | "latest" | "s$"
+ *             | pointer [ "-" ]
+ *             | season [ "-" [ season ] ]
+ *             | season episode [ "-" [ season episode ] ]
+ * pointer    := "prev" | "cur" | "current" | "next"
+ * season     := "s" digit digit
+ * episode    := "e" digit digit
+ * </pre>
+ * A list of terms is parsed as a {@link EpisodeExpression.Type#COMPOSITE}
+ * expression. Pointer expressions cannot be used in a list because they
+ * depend on the current progress rather than the library.
+ * @author Sam Malone
+ */
+public class EpisodeExpressionParser {
+
+    private final String text;
+    private int pos;
+
+    private EpisodeExpressionParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse the given EPISODES argument
+     * @param episodes EPISODES argument e.g. s01e02-s01e04
+     * @return parsed expression
+     * @throws InvalidArgumentException if the argument is not a valid
+     * EPISODES expression
+     */
+    public static EpisodeExpression parse(String episodes) throws InvalidArgumentException {
+        if(episodes == null || episodes.isEmpty()) {
+            throw new InvalidArgumentException("The EPISODES input is empty", ExitCode.PARSE_EPISODES_FAILED);
+        }
+        return new EpisodeExpressionParser(episodes).parseEpisodes();
+    }
+
+    private EpisodeExpression parseEpisodes() throws InvalidArgumentException {
+        List<EpisodeExpression> included = new ArrayList<>();
+        List<EpisodeExpression> excluded = new ArrayList<>();
+        do {
+            if(accept('!')) {
+                excluded.add(parseExpression());
+            } else {
+                included.add(parseExpression());
+            }
+        } while (accept(','));
+        expectEnd();
+        if(included.size() == 1 && excluded.isEmpty()) {
+            return included.get(0);
+        }
+        List<EpisodeExpression> terms = new ArrayList<>(included);
+        terms.addAll(excluded);
+        for (EpisodeExpression term : terms) {
+            if(term.getType() == Type.POINTER || term.getType() == Type.POINTER_FROM) {
+                String message = String.format("Unable to parse the episodes given: %s (%s cannot be combined with other episodes)", text, term);
+                throw new InvalidArgumentException(message, ExitCode.PARSE_EPISODES_FAILED);
+            }
+        }
+        return new EpisodeExpression(text, included, excluded);
+    }
+
+    private EpisodeExpression parseExpression() throws InvalidArgumentException {
+        if(peek() == 's') {
+            return parseSeasonExpression();
+        }
+        int start = pos;
+        String word = readWord();
+        switch (word) {
+            case "all":
+                return expression(Type.ALL, start);
+            case "pilot":
+                return expression(Type.PILOT, start);
+            case "latest":
+                return expression(Type.LATEST, start);
+            case "prev":
+            case "cur":
+            case "current":
+            case "next":
+                EpisodeNavigator.Pointer pointer = TVUtil.getNavigationPointer(word);
+                Type type = accept('-') ? Type.POINTER_FROM : Type.POINTER;
+                return new EpisodeExpression(type, text.substring(start, pos), 0, 0, 0, 0, pointer);
+            default:
+                throw error(start);
+        }
+    }
+
+    private EpisodeExpression parseSeasonExpression() throws InvalidArgumentException {
+        int start = pos;
+        expect('s');
+        if(accept('$')) {
+            return expression(Type.LATEST_SEASON, start);
+        }
+        int season = readNumber();
+        if(accept('e')) {
+            int episode = readNumber();
+            if(!accept('-')) {
+                return range(Type.EPISODE, start, season, episode, season, episode);
+            }
+            if(peek() != 's') {
+                return range(Type.EPISODES_FROM, start, season, episode, season, episode);
+            }
+            expect('s');
+            int endSeason = readNumber();
+            expect('e');
+            return range(Type.EPISODE_RANGE, start, season, episode, endSeason, readNumber());
+        }
+        if(!accept('-')) {
+            return range(Type.SEASON, start, season, 0, season, 0);
+        }
+        if(peek() != 's') {
+            return range(Type.SEASONS_FROM, start, season, 0, season, 0);
+        }
+        expect('s');
+        return range(Type.SEASON_RANGE, start, season, 0, readNumber(), 0);
+    }
+
+    private EpisodeExpression expression(Type type, int start) {
+        return new EpisodeExpression(type, text.substring(start, pos), 0, 0, 0, 0, null);
+    }
+
+    private EpisodeExpression range(Type type, int start, int season, int episode, int endSeason, int endEpisode) {
+        return new EpisodeExpression(type, text.substring(start, pos), season, episode, endSeason, endEpisode, null);
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    private boolean accept(char c) {
+        if(peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws InvalidArgumentException {
+        if(!accept(c)) {
+            throw error(pos);
+        }
+    }
+
+    private void expectEnd() throws InvalidArgumentException {
+        if(pos != text.length()) {
+            throw error(pos);
+        }
+    }
+
+    private String readWord() {
+        int start = pos;
+        while (peek() >= 'a' && peek() <= 'z') {
+            pos++;
+        }
+        return text.substring(start, pos);
+    }
+
+    /**
+     * Read a two digit season or episode number
+     * @return number
+     * @throws InvalidArgumentException if not two digits
+     */
+    private int readNumber() throws InvalidArgumentException {
+        int number = 0;
+        for (int i = 0; i < 2; i++) {
+            char c = peek();
+            if(c < '0' || c > '9') {
+                throw error(pos);
+            }
+            number = number * 10 + (c - '0');
+            pos++;
+        }
+        return number;
+    }
+
+    private InvalidArgumentException error(int position) {
+        String unexpected = position < text.length() ? "'" + text.charAt(position) + "'" : "end of input";
+        String message = String.format("Unable to parse the episodes given: %s (unexpected %s at position %d)", text, unexpected, position + 1);
+        return new InvalidArgumentException(message, ExitCode.PARSE_EPISODES_FAILED);
+    }
+}
@@ -29,6 +29,9 @@
 
 package uk.co.samicemalone.tv.selector;
 
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
 import uk.co.samicemalone.libtv.matcher.path.TVPath;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.libtv.model.EpisodeNavigator;
@@ -40,8 +43,8 @@ import uk.co.samicemalone.tv.model.Episode;
 import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
-import uk.co.samicemalone.tv.util.TVUtil;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
@@ -50,11 +53,17 @@ import java.util.List;
  * @author Sam Malone
  */
 public class EpisodeNavigatorProgressSelector extends EpisodeProgressSelector {
-    private EpisodeNavigator episodeNavigator;
+    private final static Logger logger = LoggerFactory.getLogger(EpisodeNavigatorProgressSelector.class.getName());
+
+    private final TVPath tvPath;
 
     public EpisodeNavigatorProgressSelector(TVPath tvPath, TVDatabase tvDatabase) {
         super(tvPath, tvDatabase);
-        episodeNavigator = new EpisodeNavigator(getTVEpisodeMatcher(), tvPath);
+        this.tvPath = tvPath;
+    }
+
+    private EpisodeNavigator getEpisodeNavigator() {
+        return new EpisodeNavigator(getTVEpisodeMatcher(), tvPath);
     }
 
     @Override
@@ -63,20 +72,26 @@ public class EpisodeNavigatorProgressSelector extends EpisodeProgressSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "prev|current|cur|next";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.POINTER;
     }
 
     @Override
     public List<EpisodeMatch> findMatches() throws IOException, ExitException {
         Arguments args = TV.ENV.getArguments();
-        EpisodeNavigator.Pointer offset = TVUtil.getNavigationPointer(args.getEpisodes());
+        EpisodeNavigator.Pointer offset = args.getEpisodeExpression().getPointer();
         ShowProgress currentProgress = getCurrentProgress(new Show(args.getShow()), args.getUser());
         if(currentProgress == null) {
             throw new ExitException("Unable to find the current episode", ExitCode.EPISODES_NOT_FOUND);
         }
+        if(offset == EpisodeNavigator.Pointer.NEXT) {
+            EpisodeMatch next = getStoredNextEpisode(currentProgress, args.getSourceFolders());
+            if(next != null) {
+                return Collections.singletonList(next);
+            }
+        }
         Episode currentEpisode = currentProgress.toEpisode();
-        EpisodeMatch m = episodeNavigator.navigate(currentEpisode, offset);
+        EpisodeMatch m = getEpisodeNavigator().navigate(currentEpisode, offset);
         if(m == null) {
             String message = String.format("Unable to find the episode to navigate to. (current = %s)", currentEpisode);
             throw new ExitException(message, ExitCode.EPISODES_NOT_FOUND);
@@ -84,6 +99,54 @@ public class EpisodeNavigatorProgressSelector extends EpisodeProgressSelector {
         return Collections.singletonList(m);
     }
     
+    /**
+     * Get the next episode stored with the given progress if the directory
+     * containing it has not been modified since it was stored and the show
+     * is still in a single source folder
+     * @param progress current progress
+     * @param sourceFolders source folders
+     * @return next episode or null if not stored or it may have changed
+     */
+    static EpisodeMatch getStoredNextEpisode(ShowProgress progress, List<String> sourceFolders) {
+        EpisodeMatch next = progress.getNextEpisode();
+        if(next == null) {
+            return null;
+        }
+        File directory = next.getEpisodeFile().getParentFile();
+        if(directory == null || directory.lastModified() != progress.getNextDirectoryModified()) {
+            logger.debug("[pointer] stored next episode of {} has changed", progress.getShow().getName());
+            return null;
+        }
+        if(!isInSingleSourceFolder(progress.getShow().getName(), sourceFolders)) {
+            logger.debug("[pointer] {} is in more than one source folder", progress.getShow().getName());
+            return null;
+        }
+        return next;
+    }
+
+    /**
+     * Check if the show is in at most one of the source folders. The next
+     * episode is only stored with the progress if it is: when a season is
+     * split across source folders, an episode can be added in another source
+     * folder without modifying the directory of the stored next episode.
+     * @param show show name
+     * @param sourceFolders source folders
+     * @return true if the show is in at most one source folder
+     */
+    public static boolean isInSingleSourceFolder(String show, List<String> sourceFolders) {
+        if(sourceFolders.size() <= 1) {
+            return true;
+        }
+        int found = 0;
+        for (String sourceFolder : sourceFolders) {
+            TVPath sourcePath = new StandardTVLibrary(Collections.singletonList(sourceFolder));
+            if(sourcePath.getSeasonsPath(show) != null && ++found > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public List<EpisodeMatch> findMatchesOrThrow() throws IOException, ExitException {
         List<EpisodeMatch> matches = findMatches();
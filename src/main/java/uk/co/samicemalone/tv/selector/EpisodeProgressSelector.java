@@ -66,7 +66,9 @@ public abstract class EpisodeProgressSelector extends EpisodeSelector {
 
     public Episode getNewProgress(EpisodeMatch match) throws ExitException {
         Arguments args = TV.ENV.getArguments();
-        return new Episode(match, args.getShow(), args.getUser());
+        // an --up-next run has no TVSHOW, the show of each match is set instead
+        String show = args.getShow() == null ? match.getShow() : args.getShow();
+        return new Episode(match, show, args.getUser());
     }
 
 }
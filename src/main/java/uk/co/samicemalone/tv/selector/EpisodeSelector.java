@@ -50,21 +50,32 @@ public abstract class EpisodeSelector implements Comparable<EpisodeSelector>, Cu
             new EpisodeRangeSelector(tvPath),
             new RemainingEpisodesInShowSelector(tvPath),
             new SeasonRangeSelector(tvPath),
-            new LatestSeasonSelector(tvPath)
+            new LatestSeasonSelector(tvPath),
+            new CompositeEpisodeSelector(tvPath)
         );
     }
 
-    public static EpisodeSelector findEpisodeSelector(Collection<EpisodeSelector> selectors, String selector) {
+    /**
+     * Find the selector that owns the type of the given expression. If more
+     * than one selector owns the type, the selector that sorts first is used.
+     * @param selectors episode selectors
+     * @param expression parsed EPISODES expression
+     * @return selector or null if none of the selectors own the expression type
+     */
+    public static EpisodeSelector findEpisodeSelector(Collection<EpisodeSelector> selectors, EpisodeExpression expression) {
+        EpisodeSelector found = null;
         for (EpisodeSelector episodeSelector : selectors) {
-            if(selector.matches(episodeSelector.getSelector())) {
-                return episodeSelector;
+            if(episodeSelector.getExpressionType() == expression.getType()) {
+                if(found == null || episodeSelector.compareTo(found) < 0) {
+                    found = episodeSelector;
+                }
             }
         }
-        return null;
+        return found;
     }
 
 
-    private final TVEpisodeMatcher tvEpisodeMatcher;
+    private TVEpisodeMatcher tvEpisodeMatcher;
 
     /**
      * Creates a new EpisodeMode instance
@@ -80,7 +91,11 @@ public abstract class EpisodeSelector implements Comparable<EpisodeSelector>, Cu
      */
     public abstract String getMode();
 
-    public abstract String getSelector();
+    /**
+     * Get the type of EPISODES expression this selector finds the matches of
+     * @return expression type
+     */
+    public abstract EpisodeExpression.Type getExpressionType();
 
     @Override
     public ShowProgress getCurrentProgress(Show show, String tag) throws ExitException {
@@ -99,6 +114,15 @@ public abstract class EpisodeSelector implements Comparable<EpisodeSelector>, Cu
         return tvEpisodeMatcher;
     }
 
+    /**
+     * Set the TVEpisodeMatcher used to find the episode files e.g. to query
+     * the episode index instead of the source folders
+     * @param tvEpisodeMatcher TVEpisodeMatcher
+     */
+    public void setTVEpisodeMatcher(TVEpisodeMatcher tvEpisodeMatcher) {
+        this.tvEpisodeMatcher = tvEpisodeMatcher;
+    }
+
     /**
      * Find the episode files that match the specified episode mode
      * @return List of episode Files or empty list if none found
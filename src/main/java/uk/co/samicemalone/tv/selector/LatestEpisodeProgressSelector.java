@@ -55,8 +55,8 @@ public class LatestEpisodeProgressSelector extends EpisodeProgressSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "latest";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.LATEST;
     }
 
     @Override
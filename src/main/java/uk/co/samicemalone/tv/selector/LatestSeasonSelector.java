@@ -53,8 +53,8 @@ public class LatestSeasonSelector extends EpisodeSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "s\\$$";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.LATEST_SEASON;
     }
 
     @Override
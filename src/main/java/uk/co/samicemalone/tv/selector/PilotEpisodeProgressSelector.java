@@ -55,8 +55,8 @@ public class PilotEpisodeProgressSelector extends EpisodeProgressSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "pilot";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.PILOT;
     }
 
     @Override
@@ -40,7 +40,6 @@ import uk.co.samicemalone.tv.model.Episode;
 import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
-import uk.co.samicemalone.tv.util.TVUtil;
 
 import java.io.IOException;
 import java.util.List;
@@ -49,11 +48,15 @@ import java.util.List;
  * @author Sam Malone
  */
 public class RemainingEpisodesInSeasonFromProgressSelector extends EpisodeProgressSelector {
-    private EpisodeNavigator episodeNavigator;
+    private final TVPath tvPath;
 
     public RemainingEpisodesInSeasonFromProgressSelector(TVPath tvPath, TVDatabase tvDatabase) {
         super(tvPath, tvDatabase);
-        episodeNavigator = new EpisodeNavigator(getTVEpisodeMatcher(), tvPath);
+        this.tvPath = tvPath;
+    }
+
+    private EpisodeNavigator getEpisodeNavigator() {
+        return new EpisodeNavigator(getTVEpisodeMatcher(), tvPath);
     }
 
     @Override
@@ -62,18 +65,17 @@ public class RemainingEpisodesInSeasonFromProgressSelector extends EpisodeProgre
     }
 
     @Override
-    public String getSelector() {
-        return "(prev|current|cur|next)-$";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.POINTER_FROM;
     }
 
     @Override
     public List<EpisodeMatch> findMatches() throws IOException, ExitException {
         Arguments args = TV.ENV.getArguments();
-        String episodePointer = args.getEpisodes().substring(0, args.getEpisodes().length() - 1);
-        EpisodeNavigator.Pointer offset = TVUtil.getNavigationPointer(episodePointer);
+        EpisodeNavigator.Pointer offset = args.getEpisodeExpression().getPointer();
         ShowProgress currentProgress = getCurrentProgress(new Show(args.getShow()), args.getUser());
         Episode currentEpisode = currentProgress.toEpisode();
-        EpisodeMatch m = episodeNavigator.navigate(currentEpisode, offset);
+        EpisodeMatch m = getEpisodeNavigator().navigate(currentEpisode, offset);
         if(m == null) {
             String message = String.format("Unable to find the episode to navigate to. (current = %s)", currentEpisode);
             throw new ExitException(message, ExitCode.EPISODES_NOT_FOUND);
@@ -34,7 +34,6 @@ import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.ExitCode;
 import uk.co.samicemalone.tv.TV;
 import uk.co.samicemalone.tv.exception.ExitException;
-import uk.co.samicemalone.tv.util.TVUtil;
 
 import java.io.IOException;
 import java.util.List;
@@ -54,16 +53,15 @@ public class RemainingEpisodesInSeasonSelector extends EpisodeSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "s[0-9][0-9]e[0-9][0-9]-$";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.EPISODES_FROM;
     }
 
     @Override
     public List<EpisodeMatch> findMatches() throws IOException {
-        String episodes = TV.ENV.getArguments().getEpisodes();
+        EpisodeExpression episodes = TV.ENV.getArguments().getEpisodeExpression();
         String show = TV.ENV.getArguments().getShow();
-        int episode = Integer.parseInt(TVUtil.getEpisodeNo(episodes));
-        return getTVEpisodeMatcher().matchEpisodesFrom(show, TVUtil.getSeasonNo(episodes), episode);
+        return getTVEpisodeMatcher().matchEpisodesFrom(show, episodes.getSeason(), episodes.getEpisode());
     }
     
     @Override
@@ -35,7 +35,6 @@ import uk.co.samicemalone.tv.ExitCode;
 import uk.co.samicemalone.tv.TV;
 import uk.co.samicemalone.tv.exception.ExitException;
 import uk.co.samicemalone.tv.tvdb.TVDatabase;
-import uk.co.samicemalone.tv.util.TVUtil;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -56,16 +55,15 @@ public class SingleEpisodeProgressSelector extends EpisodeProgressSelector {
     }
 
     @Override
-    public String getSelector() {
-        return "s[0-9][0-9]e[0-9][0-9]$";
+    public EpisodeExpression.Type getExpressionType() {
+        return EpisodeExpression.Type.EPISODE;
     }
 
     @Override
     public List<EpisodeMatch> findMatches() throws IOException {
+        EpisodeExpression episodes = TV.ENV.getArguments().getEpisodeExpression();
         String show = TV.ENV.getArguments().getShow();
-        int season = TVUtil.getSeasonNo(TV.ENV.getArguments().getEpisodes());
-        int episode = Integer.valueOf(TVUtil.getEpisodeNo(TV.ENV.getArguments().getEpisodes()));
-        return Collections.singletonList(getTVEpisodeMatcher().matchEpisode(show, season, episode));
+        return Collections.singletonList(getTVEpisodeMatcher().matchEpisode(show, episodes.getSeason(), episodes.getEpisode()));
     }
     
     @Override
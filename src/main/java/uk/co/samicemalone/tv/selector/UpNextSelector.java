@@ -0,0 +1,156 @@
+package uk.co.samicemalone.tv.selector;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.libtv.model.EpisodeNavigator;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.exception.ExitException;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Selects the next episode of every show being watched by a user, most
+ * recently watched show first. The progress of every show is read from the
+ * TVDB in a single query and the next episode of each show is found
+ * concurrently, using the next episode stored with the progress where it is
+ * still valid. Only as many shows as there are episodes left to find are
+ * navigated at a time, so a small limit doesn't navigate every show. Shows
+ * that have no next episode, i.e. have been finished, are not in the source
+ * folders or can't be listed, are skipped.
+ * <p>
+ * The episodes are found with a {@link TVEpisodeMatcher} that lists the
+ * source folders rather than the episode index so the shows can be navigated
+ * concurrently without sharing the TVDB connection.
+ * @author Sam Malone
+ */
+public class UpNextSelector {
+
+    private final static Logger logger = LoggerFactory.getLogger(UpNextSelector.class.getName());
+
+    private final TVPath tvPath;
+    private final List<String> sourceFolders;
+    private final TVDatabase tvDatabase;
+    private final int threads;
+
+    /**
+     * Creates a new UpNextSelector that finds the next episodes using a
+     * thread per available processor
+     * @param tvPath TVPath
+     * @param sourceFolders source folders of the TVPath
+     * @param tvDatabase connected TVDatabase
+     */
+    public UpNextSelector(TVPath tvPath, List<String> sourceFolders, TVDatabase tvDatabase) {
+        this(tvPath, sourceFolders, tvDatabase, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new UpNextSelector
+     * @param tvPath TVPath
+     * @param sourceFolders source folders of the TVPath
+     * @param tvDatabase connected TVDatabase
+     * @param threads number of threads used to find the next episodes
+     */
+    public UpNextSelector(TVPath tvPath, List<String> sourceFolders, TVDatabase tvDatabase, int threads) {
+        this.tvPath = tvPath;
+        this.sourceFolders = sourceFolders;
+        this.tvDatabase = tvDatabase;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Find the next episode of the most recently watched shows
+     * @param tag user tag
+     * @param limit maximum number of episodes to find
+     * @return map of the current progress of each show to its next episode,
+     * most recently watched first, or an empty map if none are found
+     * @throws IOException if interrupted while finding the next episodes
+     * @throws ExitException if unable to read the show progress
+     */
+    public Map<ShowProgress, EpisodeMatch> findMatches(String tag, int limit) throws IOException, ExitException {
+        List<ShowProgress> progressList;
+        try {
+            progressList = tvDatabase.getRecentShowProgress(tag);
+        } catch (SQLException e) {
+            throw new ExitException("[db] unable to read the show progress: " + e.getMessage(), ExitCode.TVDB_ERROR);
+        }
+        logger.debug("[up-next] {} shows in progress", progressList.size());
+        Map<ShowProgress, EpisodeMatch> matches = new LinkedHashMap<>();
+        if(progressList.isEmpty() || limit <= 0) {
+            return matches;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.min(limit, progressList.size())));
+        try {
+            List<Future<EpisodeMatch>> futures = new ArrayList<>();
+            int submitted = 0;
+            // read the results in watchedAt order so the most recent shows fill the limit first
+            for (int i = 0; i < progressList.size() && matches.size() < limit; i++) {
+                // top up the shows being navigated to the number of episodes left to find
+                while (submitted < progressList.size() && submitted - i < limit - matches.size()) {
+                    ShowProgress progress = progressList.get(submitted++);
+                    futures.add(executor.submit(() -> findNext(progress)));
+                }
+                EpisodeMatch next = getResult(futures.get(i), progressList.get(i));
+                if(next != null) {
+                    matches.put(progressList.get(i), next);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("[up-next] interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return matches;
+    }
+
+    /**
+     * Get the next episode found for a show. A show that couldn't be
+     * navigated is skipped so it doesn't stop the other shows being found.
+     * @param future next episode being found
+     * @param progress current progress of the show
+     * @return next episode or null if not found or unable to navigate
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static EpisodeMatch getResult(Future<EpisodeMatch> future, ShowProgress progress) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.warn("[up-next] unable to find the next episode of {}: {}", progress.getShow().getName(), e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private EpisodeMatch findNext(ShowProgress progress) throws IOException {
+        String show = progress.getShow().getName();
+        EpisodeMatch stored = EpisodeNavigatorProgressSelector.getStoredNextEpisode(progress, sourceFolders);
+        if(stored != null) {
+            return stored;
+        }
+        if(tvPath.getSeasonsPath(show) == null) {
+            logger.debug("[up-next] {} is not in the source folders", show);
+            return null;
+        }
+        Episode current = new Episode(show, progress.getTag(), progress.getSeason(), progress.getEpisode());
+        EpisodeNavigator navigator = new EpisodeNavigator(new TVEpisodeMatcher(tvPath), tvPath);
+        EpisodeMatch next = navigator.navigate(current, EpisodeNavigator.Pointer.NEXT);
+        if(next != null) {
+            next.setShow(show);
+        }
+        return next;
+    }
+}
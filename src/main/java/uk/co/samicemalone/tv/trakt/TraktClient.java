@@ -53,7 +53,6 @@ import uk.co.samicemalone.tv.tvdb.model.Show;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -81,7 +80,18 @@ public class TraktClient {
     }
 
     public TraktClient() {
-        this(null);
+        this((TraktAuthToken) null);
+    }
+
+    /**
+     * Creates a new TraktClient that sends requests to the given API URL
+     * instead of the Trakt API e.g. a local stand-in server
+     * @param apiUrl base API URL ending with a slash
+     * @param token auth token or null
+     */
+    public TraktClient(String apiUrl, TraktAuthToken token) {
+        trakt = new TraktV2Http11(CLIENT_ID, CLIENT_SECRET, REDIRECT_URI, apiUrl);
+        setAuthToken(token);
     }
     
     private void setAuthToken(TraktAuthToken token) {
@@ -234,14 +244,6 @@ public class TraktClient {
         }
     }
 
-    /**
-     * Sync the episodes in the queue
-     */
-    public void syncWatchedProgress(Collection<Show> shows, List<Episode> queueEpisodes) throws TraktException, IOException {
-        SyncItems sync = TraktSyncBuilder.buildSyncItems(shows, queueEpisodes);
-        executeCall(trakt.sync().addItemsToWatchedHistory(sync));
-    }
-    
     public List<SearchResult> searchShow(String showName) throws TraktException {
         try {
             return executeCall(trakt.search().textQueryShow(
@@ -0,0 +1,211 @@
+package uk.co.samicemalone.tv.trakt;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import com.j256.ormlite.misc.TransactionManager;
+import com.uwetrottmann.trakt5.entities.SyncItems;
+import uk.co.samicemalone.tv.exception.TraktException;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the Trakt show progress queue in batches. Items that are superseded
+ * by a later UNSEEN item for the same episode are dropped first. The remaining
+ * queue is split into contiguous batches of the same mark type (ordered by
+ * watchedAt) and each batch is sent to Trakt in chunks of at most
+ * {@link #getChunkSize()} items. SEEN batches are added to the watched history
+ * and UNSEEN batches are removed from the watched history.
+ * The rows of a chunk are only deleted from the queue once Trakt has accepted
+ * the chunk. Draining stops at the first chunk that fails so the order of the
+ * remaining items is preserved for the next run.
+ * @author Sam Malone
+ */
+public class TraktQueueProcessor {
+
+    private final static Logger logger = LoggerFactory.getLogger(TraktQueueProcessor.class.getName());
+
+    public static final int DEFAULT_CHUNK_SIZE = 250;
+
+    private final TraktClient trakt;
+    private final TVDatabase tvDatabase;
+    private final Dao<TraktShowProgressQueue, Integer> dao;
+    private final int chunkSize;
+
+    /**
+     * Creates a new TraktQueueProcessor using the {@link #DEFAULT_CHUNK_SIZE}
+     * @param trakt authenticated trakt client
+     * @param tvDatabase connected TVDatabase
+     * @param dao trakt show progress queue dao
+     */
+    public TraktQueueProcessor(TraktClient trakt, TVDatabase tvDatabase, Dao<TraktShowProgressQueue, Integer> dao) {
+        this(trakt, tvDatabase, dao, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new TraktQueueProcessor
+     * @param trakt authenticated trakt client
+     * @param tvDatabase connected TVDatabase
+     * @param dao trakt show progress queue dao
+     * @param chunkSize maximum number of queue items to send in a single call
+     */
+    public TraktQueueProcessor(TraktClient trakt, TVDatabase tvDatabase, Dao<TraktShowProgressQueue, Integer> dao, int chunkSize) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be at least 1");
+        }
+        this.trakt = trakt;
+        this.tvDatabase = tvDatabase;
+        this.dao = dao;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Send the queued items to trakt and delete them from the queue
+     * @return number of queue items drained
+     * @throws SQLException if unable to read or delete from the queue
+     * @throws TraktException if trakt rejects a chunk. Chunks sent before the
+     * failed chunk have been drained
+     */
+    public int process() throws SQLException, TraktException {
+        List<TraktShowProgressQueue> queue = dao.query(
+            dao.queryBuilder().orderBy("watchedAt", true).orderBy("id", true).prepare()
+        );
+        if(queue.isEmpty()) {
+            return 0;
+        }
+        resolveShows(queue);
+        List<TraktShowProgressQueue> redundant = removeRedundantItems(queue);
+        if(!redundant.isEmpty()) {
+            logger.debug("[trakt] dropping {} items superseded by unseen items", redundant.size());
+            for (int start = 0; start < redundant.size(); start += chunkSize) {
+                deleteChunk(redundant.subList(start, Math.min(start + chunkSize, redundant.size())));
+            }
+        }
+        List<List<TraktShowProgressQueue>> batchQueue = groupQueueByContinuousType(queue);
+        logger.debug("[trakt] progress queue items = {}, batches = {}", queue.size(), batchQueue.size());
+
+        int drained = redundant.size();
+        for (List<TraktShowProgressQueue> batch : batchQueue) {
+            for (int start = 0; start < batch.size(); start += chunkSize) {
+                List<TraktShowProgressQueue> chunk = batch.subList(start, Math.min(start + chunkSize, batch.size()));
+                sendChunk(chunk);
+                deleteChunk(chunk);
+                drained += chunk.size();
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Replace the show of each queue item with the full show from the TVDB,
+     * querying each show only once
+     * @param queue queue items
+     * @throws SQLException if unable to query a show
+     */
+    private void resolveShows(List<TraktShowProgressQueue> queue) throws SQLException {
+        Map<Integer, Show> showMapById = new HashMap<>();
+        for (TraktShowProgressQueue item : queue) {
+            int showId = item.getShow().getId();
+            Show show = showMapById.get(showId);
+            if(show == null) {
+                show = tvDatabase.getShow(showId);
+                showMapById.put(showId, show);
+            }
+            item.setShow(show);
+        }
+    }
+
+    /**
+     * Remove the items from the queue that are superseded by a later UNSEEN
+     * item for the same episode. Removing an episode from the watched history
+     * removes every play of it, so any SEEN or UNSEEN item before the last
+     * UNSEEN item of an episode has no effect.
+     * @param queue queue ordered by watchedAt. Redundant items are removed.
+     * @return the removed items
+     */
+    static List<TraktShowProgressQueue> removeRedundantItems(List<TraktShowProgressQueue> queue) {
+        Map<String, Integer> lastUnseenIndex = new HashMap<>();
+        for (int i = 0; i < queue.size(); i++) {
+            TraktShowProgressQueue item = queue.get(i);
+            if(TraktShowProgressQueue.UNSEEN.equals(item.getMarkType())) {
+                lastUnseenIndex.put(getEpisodeKey(item), i);
+            }
+        }
+        List<TraktShowProgressQueue> redundant = new ArrayList<>();
+        if(lastUnseenIndex.isEmpty()) {
+            return redundant;
+        }
+        List<TraktShowProgressQueue> kept = new ArrayList<>(queue.size());
+        for (int i = 0; i < queue.size(); i++) {
+            TraktShowProgressQueue item = queue.get(i);
+            Integer unseenIndex = lastUnseenIndex.get(getEpisodeKey(item));
+            if(unseenIndex != null && i < unseenIndex) {
+                redundant.add(item);
+            } else {
+                kept.add(item);
+            }
+        }
+        queue.clear();
+        queue.addAll(kept);
+        return redundant;
+    }
+
+    private static String getEpisodeKey(TraktShowProgressQueue item) {
+        return item.getShow().getId() + ":" + item.getSeason() + ":" + item.getEpisode();
+    }
+
+    private void sendChunk(List<TraktShowProgressQueue> chunk) throws TraktException {
+        Map<Integer, Show> showMapById = new LinkedHashMap<>();
+        List<Episode> episodes = new ArrayList<>(chunk.size());
+        for (TraktShowProgressQueue item : chunk) {
+            showMapById.put(item.getShow().getId(), item.getShow());
+            Episode episode = item.toEpisode();
+            logger.debug("[trakt] marking {} as {}", episode, item.getMarkType());
+            episodes.add(episode);
+        }
+        String markType = chunk.get(0).getMarkType();
+        logger.info("[trakt] marking {} queued episodes as {}", episodes.size(), markType);
+        SyncItems syncItems = TraktSyncBuilder.buildSyncItems(showMapById.values(), episodes);
+        trakt.markEpisodesAs(syncItems, TraktShowProgressQueue.UNSEEN.equals(markType) ? TraktClient.UNSEEN : TraktClient.SEEN);
+    }
+
+    private void deleteChunk(List<TraktShowProgressQueue> chunk) throws SQLException {
+        List<Integer> ids = new ArrayList<>(chunk.size());
+        chunk.forEach(item -> ids.add(item.getId()));
+        logger.debug("[tvdb] deleting {} items from the progress queue", ids.size());
+        TransactionManager.callInTransaction(dao.getConnectionSource(), () -> dao.deleteIds(ids));
+    }
+
+    /**
+     * Split the queue into batches of contiguous items with the same mark type
+     * @param queue queue ordered by watchedAt
+     * @return list of batches in queue order
+     */
+    static List<List<TraktShowProgressQueue>> groupQueueByContinuousType(List<TraktShowProgressQueue> queue) {
+        List<List<TraktShowProgressQueue>> batchQueue = new ArrayList<>();
+        List<TraktShowProgressQueue> batchQueueItem = null;
+        String lastMarkType = null;
+        for (TraktShowProgressQueue queueItem : queue) {
+            if(batchQueueItem == null || !queueItem.getMarkType().equals(lastMarkType)) {
+                batchQueueItem = new ArrayList<>();
+                batchQueue.add(batchQueueItem);
+                lastMarkType = queueItem.getMarkType();
+            }
+            batchQueueItem.add(queueItem);
+        }
+        return batchQueue;
+    }
+}
@@ -3,12 +3,34 @@ package uk.co.samicemalone.tv.trakt;
 import com.uwetrottmann.trakt5.TraktV2;
 import okhttp3.OkHttpClient;
 import okhttp3.Protocol;
+import retrofit2.Retrofit;
 
 import java.util.Collections;
 
 public class TraktV2Http11 extends TraktV2 {
+    private final String apiUrl;
+
     public TraktV2Http11(String apiKey, String clientSecret, String redirectUri) {
+        this(apiKey, clientSecret, redirectUri, null);
+    }
+
+    /**
+     * Creates a new TraktV2Http11 that sends requests to the given API URL
+     * instead of the Trakt API e.g. a local stand-in server
+     * @param apiKey api key
+     * @param clientSecret client secret
+     * @param redirectUri redirect uri
+     * @param apiUrl base API URL ending with a slash or null for the Trakt API
+     */
+    public TraktV2Http11(String apiKey, String clientSecret, String redirectUri, String apiUrl) {
         super(apiKey, clientSecret, redirectUri);
+        this.apiUrl = apiUrl;
+    }
+
+    @Override
+    protected Retrofit.Builder retrofitBuilder() {
+        Retrofit.Builder builder = super.retrofitBuilder();
+        return apiUrl == null ? builder : builder.baseUrl(apiUrl);
     }
 
     @Override
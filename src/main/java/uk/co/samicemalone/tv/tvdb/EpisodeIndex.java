@@ -0,0 +1,221 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.tvdb.model.IndexedDirectory;
+import uk.co.samicemalone.tv.tvdb.model.IndexedEpisode;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Persistent index of the episode files of a show, stored in the TVDB.
+ * The index is refreshed incrementally by comparing the last modified time of
+ * the show and season directories with the stored values, so only the seasons
+ * whose directories have changed are listed again. The SOURCE folders are
+ * stored with each show so a show directory added to another SOURCE folder
+ * is found.
+ * @author Sam Malone
+ */
+public class EpisodeIndex {
+
+    private final static Logger logger = LoggerFactory.getLogger(EpisodeIndex.class.getName());
+
+    private final TVDatabase tvDatabase;
+    private final TVEpisodeMatcher sourceMatcher;
+    private final Set<String> sourceFolders;
+
+    /**
+     * Creates a new EpisodeIndex
+     * @param tvDatabase connected TVDatabase
+     * @param sourceMatcher matcher used to list the episodes of directories
+     * that have changed since they were last indexed
+     * @param sourceFolders SOURCE folders listed by the source matcher
+     */
+    public EpisodeIndex(TVDatabase tvDatabase, TVEpisodeMatcher sourceMatcher, List<String> sourceFolders) {
+        this.tvDatabase = tvDatabase;
+        this.sourceMatcher = sourceMatcher;
+        this.sourceFolders = new TreeSet<>();
+        for (String sourceFolder : sourceFolders) {
+            this.sourceFolders.add(new File(sourceFolder).getAbsolutePath());
+        }
+    }
+
+    /**
+     * Get every episode of the given show, refreshing the index first if any
+     * of the indexed directories have been modified. If the TVDB is read
+     * only, the index isn't refreshed: the episodes of a show whose index is
+     * out of date are listed from the source folders instead.
+     * @param show show
+     * @return list of episodes ordered by season or empty list if none found
+     * @throws IOException if unable to list the show directories
+     * @throws SQLException if unable to read or update the index
+     */
+    public List<EpisodeMatch> getEpisodes(Show show) throws IOException, SQLException {
+        if(!tvDatabase.isReadOnly()) {
+            refresh(show);
+        } else if(!isUpToDate(show)) {
+            logger.debug("[index] {} is out of date, listing the source folders", show.getName());
+            return new ArrayList<>(sourceMatcher.matchAllEpisodes(show.getName()));
+        }
+        List<EpisodeMatch> episodes = new ArrayList<>();
+        for (IndexedEpisode indexedEpisode : tvDatabase.getIndexedEpisodes(show)) {
+            episodes.add(toEpisodeMatch(show.getName(), indexedEpisode));
+        }
+        return episodes;
+    }
+
+    /**
+     * Check if the index of the given show is up to date, i.e. the show has
+     * been indexed with the same SOURCE folders and none of the indexed
+     * directories have been modified since.
+     * @param show show
+     * @return true if the index is up to date
+     * @throws SQLException if unable to read the index
+     */
+    public boolean isUpToDate(Show show) throws SQLException {
+        List<IndexedDirectory> directories = tvDatabase.getIndexedDirectories(show);
+        if(directories.isEmpty()) {
+            return false;
+        }
+        Set<String> indexedSourceFolders = new TreeSet<>();
+        for (IndexedDirectory directory : directories) {
+            if(directory.getSeason() == IndexedDirectory.SOURCE_FOLDER) {
+                indexedSourceFolders.add(directory.getPath());
+            }
+            if(new File(directory.getPath()).lastModified() != directory.getLastModified()) {
+                return false;
+            }
+        }
+        return indexedSourceFolders.equals(sourceFolders);
+    }
+
+    /**
+     * Refresh the index of the given show. Modified season directories are
+     * re-listed. If a directory containing season or show directories has
+     * been modified, an indexed directory no longer exists or the SOURCE
+     * folders have changed, the whole show is re-listed.
+     * @param show show
+     * @throws IOException if unable to list the show directories
+     * @throws SQLException if unable to read or update the index
+     */
+    public void refresh(Show show) throws IOException, SQLException {
+        List<IndexedDirectory> directories = tvDatabase.getIndexedDirectories(show);
+        if(directories.isEmpty()) {
+            rebuild(show);
+            return;
+        }
+        Set<String> indexedSourceFolders = new TreeSet<>();
+        Set<Integer> modifiedSeasons = new TreeSet<>();
+        List<IndexedDirectory> modifiedDirectories = new ArrayList<>();
+        for (IndexedDirectory directory : directories) {
+            if(directory.getSeason() == IndexedDirectory.SOURCE_FOLDER) {
+                indexedSourceFolders.add(directory.getPath());
+            }
+            long lastModified = new File(directory.getPath()).lastModified();
+            if(lastModified == directory.getLastModified()) {
+                continue;
+            }
+            if(lastModified == 0 || directory.getSeason() < 0) {
+                rebuild(show);
+                return;
+            }
+            directory.setLastModified(lastModified);
+            modifiedDirectories.add(directory);
+            modifiedSeasons.add(directory.getSeason());
+        }
+        if(!indexedSourceFolders.equals(sourceFolders)) {
+            rebuild(show);
+            return;
+        }
+        if(!modifiedSeasons.isEmpty()) {
+            logger.debug("[index] re-listing {} seasons {}", show.getName(), modifiedSeasons);
+            List<EpisodeMatch> matches = new ArrayList<>();
+            for (Integer season : modifiedSeasons) {
+                matches.addAll(sourceMatcher.matchSeason(show.getName(), season));
+            }
+            tvDatabase.replaceSeasonIndex(show, modifiedSeasons, toIndexedEpisodes(show, matches), modifiedDirectories);
+        }
+    }
+
+    /**
+     * Re-list every episode of the given show and replace its index
+     * @param show show
+     * @throws IOException if unable to list the show directories
+     * @throws SQLException if unable to update the index
+     */
+    public void rebuild(Show show) throws IOException, SQLException {
+        logger.debug("[index] re-listing all episodes of {}", show.getName());
+        List<EpisodeMatch> matches = sourceMatcher.matchAllEpisodes(show.getName());
+        List<IndexedDirectory> directories = toIndexedDirectories(show, matches);
+        for (String sourceFolder : sourceFolders) {
+            long lastModified = new File(sourceFolder).lastModified();
+            directories.add(new IndexedDirectory(show, sourceFolder, IndexedDirectory.SOURCE_FOLDER, lastModified));
+        }
+        tvDatabase.replaceShowIndex(show, toIndexedEpisodes(show, matches), directories);
+    }
+
+    private static List<IndexedEpisode> toIndexedEpisodes(Show show, List<EpisodeMatch> matches) {
+        List<IndexedEpisode> indexedEpisodes = new ArrayList<>(matches.size());
+        for (EpisodeMatch match : matches) {
+            StringBuilder episodes = new StringBuilder();
+            for (Integer episode : match.getEpisodes()) {
+                if(episodes.length() > 0) {
+                    episodes.append(',');
+                }
+                episodes.append(episode);
+            }
+            String path = match.getEpisodeFile().getAbsolutePath();
+            indexedEpisodes.add(new IndexedEpisode(show, match.getSeason(), episodes.toString(), path));
+        }
+        return indexedEpisodes;
+    }
+
+    /**
+     * Build the directories to index from the given matches. The directory of
+     * each episode file is stored with its season number and the parent of
+     * that directory (i.e. the show directory) is stored without a season so
+     * that added or removed seasons can be detected.
+     * @param show show
+     * @param matches episode matches
+     * @return indexed directories
+     */
+    private static List<IndexedDirectory> toIndexedDirectories(Show show, List<EpisodeMatch> matches) {
+        Map<String, IndexedDirectory> directories = new LinkedHashMap<>();
+        for (EpisodeMatch match : matches) {
+            File seasonDir = match.getEpisodeFile().getAbsoluteFile().getParentFile();
+            if(seasonDir == null) {
+                continue;
+            }
+            String seasonKey = seasonDir.getPath() + File.pathSeparator + match.getSeason();
+            if(!directories.containsKey(seasonKey)) {
+                directories.put(seasonKey, new IndexedDirectory(show, seasonDir.getPath(), match.getSeason(), seasonDir.lastModified()));
+            }
+            File showDir = seasonDir.getParentFile();
+            if(showDir != null && !directories.containsKey(showDir.getPath())) {
+                directories.put(showDir.getPath(), new IndexedDirectory(show, showDir.getPath(), IndexedDirectory.NO_SEASON, showDir.lastModified()));
+            }
+        }
+        return new ArrayList<>(directories.values());
+    }
+
+    private static EpisodeMatch toEpisodeMatch(String show, IndexedEpisode indexedEpisode) {
+        String[] episodes = indexedEpisode.getEpisodes().split(",");
+        EpisodeMatch match = new EpisodeMatch(show, indexedEpisode.getSeason(), Integer.parseInt(episodes[0]));
+        for (int i = 1; i < episodes.length; i++) {
+            match.getEpisodes().add(Integer.parseInt(episodes[i]));
+        }
+        match.setEpisodeFile(new File(indexedEpisode.getPath()));
+        return match;
+    }
+}
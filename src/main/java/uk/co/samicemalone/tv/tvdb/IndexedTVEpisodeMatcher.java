@@ -0,0 +1,155 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.libtv.model.EpisodeRange;
+import uk.co.samicemalone.libtv.model.Range;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * TVEpisodeMatcher that answers episode queries from the {@link EpisodeIndex}
+ * instead of listing the source folders on every query.
+ * @author Sam Malone
+ */
+public class IndexedTVEpisodeMatcher extends TVEpisodeMatcher {
+
+    private final TVDatabase tvDatabase;
+    private final TVEpisodeMatcher sourceMatcher;
+    private final EpisodeIndex episodeIndex;
+    private final Map<String, List<EpisodeMatch>> showEpisodes;
+
+    /**
+     * Creates a new IndexedTVEpisodeMatcher
+     * @param tvPath TVPath used to list directories that have changed since
+     * they were last indexed
+     * @param sourceFolders SOURCE folders of the TVPath
+     * @param tvDatabase connected TVDatabase
+     */
+    public IndexedTVEpisodeMatcher(TVPath tvPath, List<String> sourceFolders, TVDatabase tvDatabase) {
+        super(tvPath);
+        this.tvDatabase = tvDatabase;
+        this.sourceMatcher = new TVEpisodeMatcher(tvPath);
+        this.episodeIndex = new EpisodeIndex(tvDatabase, sourceMatcher, sourceFolders);
+        this.showEpisodes = new HashMap<>();
+    }
+
+    /**
+     * Get every episode of the given show from the index. The index is only
+     * refreshed the first time a show is requested, and never if the TVDB is
+     * read only. A show that isn't in the TVDB isn't added to it: its
+     * episodes are listed from the source folders.
+     * @param showName show
+     * @return list of episodes ordered by season or empty list
+     * @throws IOException if unable to read or refresh the index
+     */
+    private List<EpisodeMatch> getEpisodes(String showName) throws IOException {
+        List<EpisodeMatch> episodes = showEpisodes.get(showName);
+        if(episodes == null) {
+            try {
+                Show show = tvDatabase.getShowByName(showName);
+                if(show == null) {
+                    episodes = new ArrayList<>(sourceMatcher.matchAllEpisodes(showName));
+                } else {
+                    episodes = episodeIndex.getEpisodes(show);
+                }
+                episodes.sort(Comparator.comparingInt(EpisodeMatch::getSeason).thenComparingInt(IndexedTVEpisodeMatcher::getFirstEpisode));
+            } catch (SQLException e) {
+                throw new IOException("[index] unable to read the episode index for " + showName, e);
+            }
+            showEpisodes.put(showName, episodes);
+        }
+        return episodes;
+    }
+
+    private List<EpisodeMatch> filter(String show, Predicate<EpisodeMatch> predicate) throws IOException {
+        return getEpisodes(show).stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private static int getFirstEpisode(EpisodeMatch m) {
+        return m.getEpisodes().get(0);
+    }
+
+    private static int getLastEpisode(EpisodeMatch m) {
+        return m.getEpisodes().get(m.getEpisodes().size() - 1);
+    }
+
+    private static int compare(int season, int episode, int otherSeason, int otherEpisode) {
+        int result = Integer.compare(season, otherSeason);
+        return result == 0 ? Integer.compare(episode, otherEpisode) : result;
+    }
+
+    @Override
+    public List<EpisodeMatch> matchAllEpisodes(String show) throws IOException {
+        return filter(show, m -> true);
+    }
+
+    @Override
+    public List<EpisodeMatch> matchSeason(String show, int season) throws IOException {
+        return filter(show, m -> m.getSeason() == season);
+    }
+
+    @Override
+    public List<EpisodeMatch> matchSeasonsFrom(String show, int season) throws IOException {
+        return filter(show, m -> m.getSeason() >= season);
+    }
+
+    @Override
+    public List<EpisodeMatch> matchSeasonRange(String show, Range range) throws IOException {
+        return filter(show, m -> m.getSeason() >= range.getStart() && m.getSeason() <= range.getEnd());
+    }
+
+    @Override
+    public List<EpisodeMatch> matchLargestSeason(String show) throws IOException {
+        List<EpisodeMatch> episodes = getEpisodes(show);
+        if(episodes.isEmpty()) {
+            return episodes;
+        }
+        int largestSeason = episodes.get(episodes.size() - 1).getSeason();
+        return filter(show, m -> m.getSeason() == largestSeason);
+    }
+
+    @Override
+    public List<EpisodeMatch> matchEpisodesFrom(String show, int season, int episode) throws IOException {
+        return filter(show, m -> m.getSeason() == season && getLastEpisode(m) >= episode);
+    }
+
+    @Override
+    public List<EpisodeMatch> matchEpisodeRange(String show, EpisodeRange range) throws IOException {
+        return filter(show, m ->
+            compare(m.getSeason(), getLastEpisode(m), range.getStartSeason(), range.getStartEpisode()) >= 0 &&
+            compare(m.getSeason(), getFirstEpisode(m), range.getEndSeason(), range.getEndEpisode()) <= 0
+        );
+    }
+
+    @Override
+    public EpisodeMatch matchEpisode(String show, int season, int episode) throws IOException {
+        for (EpisodeMatch m : getEpisodes(show)) {
+            if(m.getSeason() == season && m.getEpisodes().contains(episode)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public EpisodeMatch matchLatestEpisode(String show) throws IOException {
+        EpisodeMatch latest = null;
+        for (EpisodeMatch m : getEpisodes(show)) {
+            if(latest == null || compare(m.getSeason(), getLastEpisode(m), latest.getSeason(), getLastEpisode(latest)) > 0) {
+                latest = m;
+            }
+        }
+        return latest;
+    }
+}
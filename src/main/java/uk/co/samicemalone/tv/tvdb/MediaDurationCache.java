@@ -0,0 +1,145 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import uk.co.samicemalone.tv.tvdb.model.MediaDuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of media file durations stored in the TVDB. A cached duration is only
+ * used if the size and last modified time of the file are unchanged since the
+ * duration was stored, so a replaced file is probed again.
+ * @author Sam Malone
+ */
+public class MediaDurationCache {
+
+    private final static Logger logger = LoggerFactory.getLogger(MediaDurationCache.class.getName());
+
+    /** returned when the file has not been cached or has changed **/
+    public static final long UNKNOWN_DURATION = -1;
+
+    private final TVDatabase tvDatabase;
+    private final Map<File, FileKey> fileKeys;
+    private final Map<String, MediaDuration> cachedDurations;
+    private final Map<String, MediaDuration> modifiedDurations;
+
+    /**
+     * Creates a new MediaDurationCache
+     * @param tvDatabase connected TVDatabase
+     */
+    public MediaDurationCache(TVDatabase tvDatabase) {
+        this.tvDatabase = tvDatabase;
+        this.fileKeys = new HashMap<>();
+        this.cachedDurations = new HashMap<>();
+        this.modifiedDurations = new LinkedHashMap<>();
+    }
+
+    /**
+     * Load the cached durations of the given files using a single lookup.
+     * Files that cannot be read are ignored and will never be cached.
+     * @param files media files
+     * @throws SQLException if unable to query the duration cache
+     */
+    public void load(Collection<File> files) throws SQLException {
+        List<String> paths = new ArrayList<>(files.size());
+        for (File file : files) {
+            try {
+                FileKey key = FileKey.of(file);
+                fileKeys.put(file, key);
+                paths.add(key.path);
+            } catch (IOException e) {
+                logger.debug("[tvdb] unable to read attributes of {}: {}", file, e.getMessage());
+            }
+        }
+        for (MediaDuration duration : tvDatabase.getMediaDurations(paths)) {
+            cachedDurations.put(duration.getPath(), duration);
+        }
+        logger.debug("[tvdb] media durations cached = {}/{}", cachedDurations.size(), files.size());
+    }
+
+    /**
+     * Get the cached duration of the given file
+     * @param file media file given to {@link #load(Collection)}
+     * @return duration in milliseconds or {@link #UNKNOWN_DURATION} if the file
+     * has not been cached or has been modified since it was cached
+     */
+    public long getDuration(File file) {
+        FileKey key = fileKeys.get(file);
+        if(key == null) {
+            return UNKNOWN_DURATION;
+        }
+        MediaDuration cached = cachedDurations.get(key.path);
+        if(cached == null || cached.getSize() != key.size || cached.getLastModified() != key.lastModified) {
+            return UNKNOWN_DURATION;
+        }
+        return cached.getDuration();
+    }
+
+    /**
+     * Set the duration of the given file. The duration is stored by
+     * {@link #save()}.
+     * @param file media file given to {@link #load(Collection)}
+     * @param duration duration in milliseconds
+     */
+    public void putDuration(File file, long duration) {
+        FileKey key = fileKeys.get(file);
+        if(key == null) {
+            return;
+        }
+        MediaDuration cached = cachedDurations.get(key.path);
+        if(cached == null) {
+            cached = new MediaDuration(key.path, key.size, key.lastModified, duration);
+            cachedDurations.put(key.path, cached);
+        } else {
+            cached.setSize(key.size);
+            cached.setLastModified(key.lastModified);
+            cached.setDuration(duration);
+        }
+        modifiedDurations.put(key.path, cached);
+    }
+
+    /**
+     * Store the durations set since the last save
+     * @throws SQLException if unable to update the duration cache
+     */
+    public void save() throws SQLException {
+        if(modifiedDurations.isEmpty()) {
+            return;
+        }
+        logger.debug("[tvdb] saving {} media durations", modifiedDurations.size());
+        tvDatabase.saveMediaDurations(modifiedDurations.values());
+        modifiedDurations.clear();
+    }
+
+    /**
+     * Canonical path, size and last modified time of a file at the time it
+     * was loaded
+     */
+    private static class FileKey {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        private FileKey(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private static FileKey of(File file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return new FileKey(file.getCanonicalPath(), attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+    }
+}
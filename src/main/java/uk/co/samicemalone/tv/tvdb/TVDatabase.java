@@ -3,27 +3,70 @@ package uk.co.samicemalone.tv.tvdb;
 
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.PreparedQuery;
 import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.stmt.SelectArg;
-import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.support.ConnectionSource;
-import com.j256.ormlite.table.TableUtils;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.tvdb.model.IndexedDirectory;
+import uk.co.samicemalone.tv.tvdb.model.IndexedEpisode;
+import uk.co.samicemalone.tv.tvdb.model.MediaDuration;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
 
+import java.io.File;
 import java.sql.SQLException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 public class TVDatabase {
 
+    private final static Logger logger = LoggerFactory.getLogger(TVDatabase.class.getName());
+
     public static final String IN_MEMORY_DATABASE = ":memory:";
 
+    /** maximum number of values bound in a single IN clause **/
+    private static final int MAX_IN_VALUES = 500;
+
+    /** insert the progress of a show or update it if the show has progress for the tag **/
+    private static final String UPSERT_SHOW_PROGRESS = "INSERT INTO showProgress " +
+        "(showId, tag, season, episode, watchedAt, nextSeason, nextEpisodes, nextPath, nextDirectoryModified) " +
+        "VALUES ((SELECT id FROM show WHERE name = ?), ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (showId, tag) DO UPDATE SET season = excluded.season, episode = excluded.episode, " +
+        "watchedAt = excluded.watchedAt, nextSeason = excluded.nextSeason, nextEpisodes = excluded.nextEpisodes, " +
+        "nextPath = excluded.nextPath, nextDirectoryModified = excluded.nextDirectoryModified";
+
+    /** primary result code of an SQLite error caused by another connection holding a lock **/
+    private static final int SQLITE_BUSY = 5;
+
     private ConnectionSource connectionSource;
+    private boolean isReadOnly;
+    private TVDatabaseProfile profile = new TVDatabaseProfile();
 
     private Dao<Show, Integer> showDao;
     private Dao<ShowProgress, Integer> showProgressDao;
+    private Dao<IndexedEpisode, Integer> indexedEpisodeDao;
+    private Dao<IndexedDirectory, Integer> indexedDirectoryDao;
+    private Dao<MediaDuration, Integer> mediaDurationDao;
+
+    // queries prepared once per connection. The arguments are bound before each query
+    private SelectArg showNameArg;
+    private SelectArg progressShowNameArg;
+    private SelectArg progressTagArg;
+    private PreparedQuery<Show> showByNameQuery;
+    private PreparedQuery<ShowProgress> showProgressQuery;
 
     public TVDatabase() {
         this(null);
@@ -33,68 +76,345 @@ public class TVDatabase {
         this.connectionSource = source;
     }
 
+    /**
+     * Set the SQLite settings used by the next connection
+     * @param profile SQLite settings
+     */
+    public void setProfile(TVDatabaseProfile profile) {
+        this.profile = profile;
+    }
+
+    public TVDatabaseProfile getProfile() {
+        return profile;
+    }
+
     public ConnectionSource connect(String databasePath) throws SQLException {
-        String databaseUrl = String.format("jdbc:sqlite:%s", databasePath);
+        return connect(databasePath, false);
+    }
+
+    /**
+     * Connect to the TVDB
+     * @param databasePath path to the TVDB
+     * @param readOnly true to open the TVDB read only, using the SQLite
+     * mode=ro URI parameter, without migrating the schema. If the TVDB
+     * doesn't exist yet or its schema is out of date, it is opened for
+     * writing instead.
+     * @return connection source
+     * @throws SQLException if unable to connect
+     * @see #isReadOnly()
+     */
+    public ConnectionSource connect(String databasePath, boolean readOnly) throws SQLException {
+        if(readOnly && new File(databasePath).isFile()) {
+            connectionSource = new JdbcConnectionSource(getReadOnlyUrl(databasePath, profile));
+            createDaos();
+            if(TVDatabaseSchema.getVersion(connectionSource) >= TVDatabaseSchema.VERSION) {
+                isReadOnly = true;
+                return connectionSource;
+            }
+            connectionSource.closeQuietly();
+        }
+        isReadOnly = false;
+        String databaseUrl = String.format("jdbc:sqlite:%s?%s", databasePath, profile.getQuery(false));
         connectionSource = new JdbcConnectionSource(databaseUrl);
+        createDaos();
+        retryIfBusy(() -> {
+            TVDatabaseSchema.migrate(connectionSource);
+            return null;
+        });
+
+        return connectionSource;
+    }
+
+    /**
+     * Get the URL of the TVDB opened read only. The path is given as an
+     * SQLite URI filename so the characters that have a meaning in a URI are
+     * escaped.
+     * @param databasePath path to the TVDB
+     * @param profile SQLite settings
+     * @return read only database URL
+     */
+    static String getReadOnlyUrl(String databasePath, TVDatabaseProfile profile) {
+        String path = databasePath.replace('\\', '/')
+            .replace("%", "%25")
+            .replace("?", "%3f")
+            .replace("#", "%23");
+        return String.format("jdbc:sqlite:file:%s?mode=ro&%s", path, profile.getQuery(true));
+    }
+
+    /**
+     * Run the given write to the TVDB, retrying it if another connection
+     * still holds a lock once the busy timeout has elapsed
+     * @param write write to run
+     * @param <T> result type
+     * @return result of the write
+     * @throws SQLException if the write fails or the TVDB is still locked
+     * after the last retry
+     */
+    private <T> T retryIfBusy(Callable<T> write) throws SQLException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return write.call();
+            } catch (SQLException e) {
+                if(attempt >= profile.getBusyRetries() || !isBusy(e)) {
+                    throw e;
+                }
+                logger.debug("[tvdb] database is locked, retrying ({}/{})", attempt + 1, profile.getBusyRetries());
+            } catch (Exception e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+    }
 
+    /**
+     * Check if the given exception, or any of its causes, is an SQLite busy
+     * error i.e. "database is locked"
+     * @param e exception
+     * @return true if a busy error, false otherwise
+     */
+    static boolean isBusy(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if(cause instanceof SQLException && (((SQLException) cause).getErrorCode() & 0xff) == SQLITE_BUSY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create the DAOs and prepare the queries used for every invocation so
+     * they are reused for the lifetime of the connection
+     * @throws SQLException if unable to create the DAOs
+     */
+    private void createDaos() throws SQLException {
+        TVDatabaseTableConfigs.load();
         showDao = DaoManager.createDao(connectionSource, Show.class);
         showProgressDao = DaoManager.createDao(connectionSource, ShowProgress.class);
+        indexedEpisodeDao = DaoManager.createDao(connectionSource, IndexedEpisode.class);
+        indexedDirectoryDao = DaoManager.createDao(connectionSource, IndexedDirectory.class);
+        mediaDurationDao = DaoManager.createDao(connectionSource, MediaDuration.class);
 
-        TableUtils.createTableIfNotExists(connectionSource, Show.class);
-        TableUtils.createTableIfNotExists(connectionSource, ShowProgress.class);
+        showNameArg = new SelectArg();
+        progressShowNameArg = new SelectArg();
+        progressTagArg = new SelectArg();
+        QueryBuilder<Show, Integer> showQb = showDao.queryBuilder();
+        showQb.where().eq("name", showNameArg);
+        showByNameQuery = showQb.prepare();
 
-        return connectionSource;
+        QueryBuilder<Show, Integer> progressShowQb = showDao.queryBuilder();
+        progressShowQb.where().eq("name", progressShowNameArg);
+        QueryBuilder<ShowProgress, Integer> progressQb = showProgressDao.queryBuilder().join(progressShowQb);
+        progressQb.where().eq("tag", progressTagArg);
+        showProgressQuery = progressQb.prepare();
     }
 
-    public Show getShowByName(String showName) throws SQLException {
-        QueryBuilder<Show, Integer> qb = showDao.queryBuilder();
-        qb.where().eq("name", new SelectArg(showName));
-        PreparedQuery<Show> query = qb.prepare();
-        return showDao.queryForFirst(query);
+    /**
+     * Check if the TVDB was opened read only
+     * @return true if read only, false if the TVDB can be written to
+     */
+    public boolean isReadOnly() {
+        return isReadOnly;
+    }
+
+    public synchronized Show getShowByName(String showName) throws SQLException {
+        showNameArg.setValue(showName);
+        return showDao.queryForFirst(showByNameQuery);
+    }
+
+    public Show getShow(int id) throws SQLException {
+        return showDao.queryForId(id);
     }
 
     public ShowProgress getShowProgress(int id) throws SQLException {
         return showProgressDao.queryForId(id);
     }
 
-    public ShowProgress getShowProgress(Show show, String tag) throws SQLException {
-        QueryBuilder<Show, Integer> showQb = showDao.queryBuilder();
-        showQb.where().eq("name", new SelectArg(show.getName()));
-
-        QueryBuilder<ShowProgress, Integer> progressQb = showProgressDao.queryBuilder().join(showQb);
-        progressQb.where().eq("tag", new SelectArg(tag));
-
-        return showProgressDao.queryForFirst(progressQb.prepare());
-    }
-
-    public void setShowProgress(ShowProgress currentProgress, Episode newEpisode) throws SQLException {
-        if(currentProgress == null || currentProgress.getId() == 0) {
-            Show show = getShowByName(newEpisode.getShow());
-            ShowProgress showProgress = new ShowProgress(
-                show,
-                newEpisode.getUser(),
-                newEpisode.getSeason(),
-                newEpisode.getEpisode()
-            );
-            showProgress.setWatchedAt(newEpisode.getWatchedAt());
-            showProgressDao.create(showProgress);
-        } else {
-            UpdateBuilder<ShowProgress, Integer> updateBuilder = showProgressDao.updateBuilder();
-            updateBuilder
-                .updateColumnValue("season", newEpisode.getSeason())
-                .updateColumnValue("episode", newEpisode.getEpisode())
-                .where()
-                .idEq(currentProgress.getId());
-            updateBuilder.update();
-        }
+    public synchronized ShowProgress getShowProgress(Show show, String tag) throws SQLException {
+        progressShowNameArg.setValue(show.getName());
+        progressTagArg.setValue(tag);
+        return showProgressDao.queryForFirst(showProgressQuery);
+    }
+
+    /**
+     * Get the progress of every show for the given tag in a single query,
+     * most recently watched first. The show of each progress only has its id
+     * and name set.
+     * @param tag user tag
+     * @return show progress or empty list if none have been recorded
+     * @throws SQLException if unable to query the show progress
+     */
+    public List<ShowProgress> getRecentShowProgress(String tag) throws SQLException {
+        String query = "SELECT p.id, p.season, p.episode, p.watchedAt, s.id, s.name, " +
+            "p.nextSeason, p.nextEpisodes, p.nextPath, p.nextDirectoryModified FROM showProgress p " +
+            "JOIN show s ON s.id = p.showId WHERE p.tag = ? ORDER BY p.watchedAt DESC";
+        SimpleDateFormat watchedAtFormat = new SimpleDateFormat(ShowProgress.WATCHED_AT_FORMAT);
+        // getResults() closes the results
+        GenericRawResults<ShowProgress> results = showProgressDao.queryRaw(query, (columns, row) -> {
+            Show show = new Show(row[5]);
+            show.setId(Integer.parseInt(row[4]));
+            ShowProgress progress = new ShowProgress(show, tag, Integer.parseInt(row[1]), Integer.parseInt(row[2]));
+            progress.setId(Integer.parseInt(row[0]));
+            if(row[8] != null) {
+                progress.setNextEpisode(Integer.parseInt(row[6]), row[7], row[8], Long.parseLong(row[9]));
+            }
+            if(row[3] != null) {
+                try {
+                    progress.setWatchedAt(watchedAtFormat.parse(row[3]).toInstant());
+                } catch (ParseException e) {
+                    throw new SQLException("invalid watchedAt " + row[3], e);
+                }
+            }
+            return progress;
+        }, tag == null ? "" : tag);
+        return results.getResults();
+    }
+
+    public void setShowProgress(Episode newEpisode) throws SQLException {
+        setShowProgress(newEpisode, null, 0);
+    }
+
+    /**
+     * Set the progress of a show and store the episode after it so the next
+     * episode can be found without listing the season directories. The
+     * progress is inserted, or updated if the show already has progress for
+     * the user, in a single statement.
+     * @param newEpisode new progress
+     * @param nextEpisode episode after the new progress with its episode file
+     * set or null if unknown
+     * @param nextDirectoryModified last modified time of the directory
+     * containing the next episode
+     * @throws SQLException if unable to set the progress
+     */
+    public void setShowProgress(Episode newEpisode, EpisodeMatch nextEpisode, long nextDirectoryModified) throws SQLException {
+        retryIfBusy(() -> {
+            writeShowProgress(newEpisode, nextEpisode, nextDirectoryModified);
+            return null;
+        });
+    }
+
+    private void writeShowProgress(Episode newEpisode, EpisodeMatch nextEpisode, long nextDirectoryModified) throws SQLException {
+        ShowProgress next = new ShowProgress();
+        next.setNextEpisode(nextEpisode, nextDirectoryModified);
+        SimpleDateFormat watchedAtFormat = new SimpleDateFormat(ShowProgress.WATCHED_AT_FORMAT);
+        showProgressDao.executeRaw(UPSERT_SHOW_PROGRESS,
+            newEpisode.getShow(),
+            newEpisode.getUser(),
+            String.valueOf(newEpisode.getSeason()),
+            String.valueOf(newEpisode.getEpisode()),
+            watchedAtFormat.format(Date.from(newEpisode.getWatchedAt())),
+            String.valueOf(next.getNextSeason()),
+            next.getNextEpisodes(),
+            next.getNextPath(),
+            String.valueOf(next.getNextDirectoryModified())
+        );
     }
 
     public void createOrUpdateShow(Show show) throws SQLException {
-        if(show.getId() == 0) {
-            showDao.create(show);
-        } else {
-            showDao.update(show);
+        retryIfBusy(() -> show.getId() == 0 ? showDao.create(show) : showDao.update(show));
+    }
+
+    /**
+     * Get the indexed episodes for the given show ordered by season
+     * @param show show
+     * @return indexed episodes or empty list if the show has not been indexed
+     * @throws SQLException if unable to query the episode index
+     */
+    public List<IndexedEpisode> getIndexedEpisodes(Show show) throws SQLException {
+        QueryBuilder<IndexedEpisode, Integer> qb = indexedEpisodeDao.queryBuilder();
+        qb.orderBy("season", true).orderBy("id", true).where().eq("showId", show.getId());
+        return indexedEpisodeDao.query(qb.prepare());
+    }
+
+    /**
+     * Get the indexed directories for the given show
+     * @param show show
+     * @return indexed directories or empty list if the show has not been indexed
+     * @throws SQLException if unable to query the directory index
+     */
+    public List<IndexedDirectory> getIndexedDirectories(Show show) throws SQLException {
+        return indexedDirectoryDao.queryForEq("showId", show.getId());
+    }
+
+    /**
+     * Replace the whole episode and directory index of the given show in a
+     * single transaction
+     * @param show show
+     * @param episodes indexed episodes
+     * @param directories indexed directories
+     * @throws SQLException if unable to replace the index
+     */
+    public void replaceShowIndex(Show show, Collection<IndexedEpisode> episodes, Collection<IndexedDirectory> directories) throws SQLException {
+        retryIfBusy(() -> TransactionManager.callInTransaction(connectionSource, () -> {
+            DeleteBuilder<IndexedEpisode, Integer> episodeDelete = indexedEpisodeDao.deleteBuilder();
+            episodeDelete.where().eq("showId", show.getId());
+            episodeDelete.delete();
+            DeleteBuilder<IndexedDirectory, Integer> directoryDelete = indexedDirectoryDao.deleteBuilder();
+            directoryDelete.where().eq("showId", show.getId());
+            directoryDelete.delete();
+            indexedEpisodeDao.create(episodes);
+            indexedDirectoryDao.create(directories);
+            return null;
+        }));
+    }
+
+    /**
+     * Replace the indexed episodes in the given seasons of the show and update
+     * the modified directories in a single transaction
+     * @param show show
+     * @param seasons seasons to replace
+     * @param episodes indexed episodes in the given seasons
+     * @param directories modified directories to update
+     * @throws SQLException if unable to replace the index
+     */
+    public void replaceSeasonIndex(Show show, Collection<Integer> seasons, Collection<IndexedEpisode> episodes, Collection<IndexedDirectory> directories) throws SQLException {
+        retryIfBusy(() -> TransactionManager.callInTransaction(connectionSource, () -> {
+            DeleteBuilder<IndexedEpisode, Integer> episodeDelete = indexedEpisodeDao.deleteBuilder();
+            episodeDelete.where().eq("showId", show.getId()).and().in("season", seasons);
+            episodeDelete.delete();
+            indexedEpisodeDao.create(episodes);
+            for (IndexedDirectory directory : directories) {
+                indexedDirectoryDao.update(directory);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Get the cached media durations of the given canonical paths
+     * @param paths canonical file paths
+     * @return cached media durations. Paths that have not been cached are
+     * not included
+     * @throws SQLException if unable to query the duration cache
+     */
+    public List<MediaDuration> getMediaDurations(Collection<String> paths) throws SQLException {
+        List<MediaDuration> durations = new ArrayList<>();
+        List<String> pathList = new ArrayList<>(paths);
+        for (int start = 0; start < pathList.size(); start += MAX_IN_VALUES) {
+            List<String> chunk = pathList.subList(start, Math.min(start + MAX_IN_VALUES, pathList.size()));
+            List<SelectArg> args = new ArrayList<>(chunk.size());
+            chunk.forEach(path -> args.add(new SelectArg(path)));
+            QueryBuilder<MediaDuration, Integer> qb = mediaDurationDao.queryBuilder();
+            qb.where().in("path", args.toArray());
+            durations.addAll(mediaDurationDao.query(qb.prepare()));
         }
+        return durations;
+    }
+
+    /**
+     * Create or update the given media durations in a single transaction
+     * @param durations media durations. Durations without an id are created
+     * @throws SQLException if unable to update the duration cache
+     */
+    public void saveMediaDurations(Collection<MediaDuration> durations) throws SQLException {
+        retryIfBusy(() -> TransactionManager.callInTransaction(connectionSource, () -> {
+            for (MediaDuration duration : durations) {
+                if(duration.getId() == 0) {
+                    mediaDurationDao.create(duration);
+                } else {
+                    mediaDurationDao.update(duration);
+                }
+            }
+            return null;
+        }));
     }
 
     public ConnectionSource getConnectionSource() {
@@ -0,0 +1,177 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The SQLite settings used to connect to the TVDB. The defaults are tuned so
+ * that two tv processes can use the TVDB at the same time: the write ahead
+ * log lets readers and a writer run concurrently, synchronous=NORMAL only
+ * syncs the log on checkpoints, and a writer waits for the busy timeout, then
+ * retries, instead of failing with "database is locked". Each setting can be
+ * changed in the config file.
+ * @author Sam Malone
+ */
+public class TVDatabaseProfile {
+
+    private static final List<String> JOURNAL_MODES = Arrays.asList("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final List<String> SYNCHRONOUS_MODES = Arrays.asList("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final List<String> TEMP_STORES = Arrays.asList("DEFAULT", "FILE", "MEMORY");
+
+    private String journalMode = "WAL";
+    private String synchronous = "NORMAL";
+    private long mmapSize = 64 * 1024 * 1024;
+    private int cacheSize = -8000;
+    private int busyTimeout = 5000;
+    private int busyRetries = 3;
+    private String tempStore = "MEMORY";
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    /**
+     * Set the journal mode
+     * @param journalMode delete, truncate, persist, memory, wal or off
+     * @throws IllegalArgumentException if not a journal mode
+     */
+    public void setJournalMode(String journalMode) {
+        this.journalMode = parse("journal mode", journalMode, JOURNAL_MODES);
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    /**
+     * Set when SQLite syncs writes to disk
+     * @param synchronous off, normal, full or extra
+     * @throws IllegalArgumentException if not a synchronous mode
+     */
+    public void setSynchronous(String synchronous) {
+        this.synchronous = parse("synchronous mode", synchronous, SYNCHRONOUS_MODES);
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    /**
+     * Set the maximum number of bytes of the TVDB to memory map
+     * @param mmapSize number of bytes or 0 to disable memory mapping
+     * @throws NumberFormatException if not a number
+     * @throws IllegalArgumentException if negative
+     */
+    public void setMmapSize(String mmapSize) {
+        long size = Long.parseLong(mmapSize);
+        if(size < 0) {
+            throw new IllegalArgumentException("mmap size cannot be negative " + mmapSize);
+        }
+        this.mmapSize = size;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the page cache size
+     * @param cacheSize number of pages, or the number of KiB if negative
+     * @throws NumberFormatException if not a number
+     */
+    public void setCacheSize(String cacheSize) {
+        this.cacheSize = Integer.parseInt(cacheSize);
+    }
+
+    public int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    /**
+     * Set how long to wait for another connection to release a lock
+     * @param busyTimeout timeout in milliseconds
+     * @throws NumberFormatException if not a number
+     * @throws IllegalArgumentException if negative
+     */
+    public void setBusyTimeout(String busyTimeout) {
+        int timeout = Integer.parseInt(busyTimeout);
+        if(timeout < 0) {
+            throw new IllegalArgumentException("busy timeout cannot be negative " + busyTimeout);
+        }
+        this.busyTimeout = timeout;
+    }
+
+    public int getBusyRetries() {
+        return busyRetries;
+    }
+
+    /**
+     * Set how many times a write is retried if the TVDB is still locked
+     * after the busy timeout
+     * @param busyRetries number of retries
+     * @throws NumberFormatException if not a number
+     * @throws IllegalArgumentException if negative
+     */
+    public void setBusyRetries(String busyRetries) {
+        int retries = Integer.parseInt(busyRetries);
+        if(retries < 0) {
+            throw new IllegalArgumentException("busy retries cannot be negative " + busyRetries);
+        }
+        this.busyRetries = retries;
+    }
+
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    /**
+     * Set where temporary tables and indices are stored
+     * @param tempStore default, file or memory
+     * @throws IllegalArgumentException if not a temp store
+     */
+    public void setTempStore(String tempStore) {
+        this.tempStore = parse("temp store", tempStore, TEMP_STORES);
+    }
+
+    /**
+     * Get the pragmas to set on each connection, in the order they are set
+     * @param readOnly true if the TVDB is opened read only. The journal mode
+     * is not set because it can only be changed by a writer
+     * @return map of pragma name to value
+     */
+    Map<String, String> getPragmas(boolean readOnly) {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+        if(!readOnly) {
+            pragmas.put("journal_mode", journalMode);
+        }
+        pragmas.put("synchronous", synchronous);
+        pragmas.put("mmap_size", String.valueOf(mmapSize));
+        pragmas.put("cache_size", String.valueOf(cacheSize));
+        pragmas.put("busy_timeout", String.valueOf(busyTimeout));
+        pragmas.put("temp_store", tempStore);
+        return pragmas;
+    }
+
+    /**
+     * Get the query string of the database URL that sets the pragmas
+     * @param readOnly true if the TVDB is opened read only
+     * @return query string without the leading ? e.g. journal_mode=WAL&amp;synchronous=NORMAL
+     */
+    String getQuery(boolean readOnly) {
+        StringJoiner query = new StringJoiner("&");
+        getPragmas(readOnly).forEach((name, value) -> query.add(name + '=' + value));
+        return query.toString();
+    }
+
+    private static String parse(String setting, String value, List<String> values) {
+        String upper = value.toUpperCase(Locale.ENGLISH);
+        if(!values.contains(upper)) {
+            throw new IllegalArgumentException(String.format("unsupported %s %s", setting, value));
+        }
+        return upper;
+    }
+}
@@ -0,0 +1,163 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.table.TableUtils;
+import uk.co.samicemalone.tv.tvdb.model.IndexedDirectory;
+import uk.co.samicemalone.tv.tvdb.model.IndexedEpisode;
+import uk.co.samicemalone.tv.tvdb.model.MediaDuration;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates and upgrades the TVDB tables. Each change to the tables is a
+ * migration and the migrations are applied in order. The version of each
+ * applied migration is stored in the schema_version table so a TVDB that is
+ * up to date is checked with a single query instead of checking every table
+ * on each connection.
+ * <p>
+ * New migrations must be added to the end of the list and must not change
+ * once released. The first migration creates the tables that don't exist yet
+ * so it can be applied to a TVDB created before the schema was versioned.
+ * Indexes added by a later migration are not declared on the models because
+ * the first migration would create them before the later migration has
+ * prepared the table.
+ * @author Sam Malone
+ */
+class TVDatabaseSchema {
+
+    private final static Logger logger = LoggerFactory.getLogger(TVDatabaseSchema.class.getName());
+
+    private interface Migration {
+        void migrate(ConnectionSource source, DatabaseConnection connection) throws SQLException;
+    }
+
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+        TVDatabaseSchema::createTables,
+        TVDatabaseSchema::addNextEpisodeColumns,
+        TVDatabaseSchema::addShowProgressUniqueIndex,
+        TVDatabaseSchema::addQueueWatchedAtIndex,
+        TVDatabaseSchema::addProgressTagWatchedAtIndex
+    );
+
+    /** version of the schema once every migration has been applied **/
+    static final int VERSION = MIGRATIONS.size();
+
+    private TVDatabaseSchema() {
+
+    }
+
+    /**
+     * Get the version of the schema of the TVDB
+     * @param source TVDB connection source
+     * @return schema version or 0 if the schema hasn't been versioned
+     * @throws SQLException if unable to query the version
+     */
+    static int getVersion(ConnectionSource source) throws SQLException {
+        DatabaseConnection connection = source.getReadOnlyConnection(null);
+        try {
+            String versionTable = "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'schema_version'";
+            if(connection.queryForLong(versionTable) == 0) {
+                return 0;
+            }
+            return (int) connection.queryForLong("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+        } finally {
+            source.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Apply the migrations that haven't been applied to the TVDB. Each
+     * migration is applied in its own transaction.
+     * @param source TVDB connection source
+     * @throws SQLException if unable to apply a migration
+     */
+    static void migrate(ConnectionSource source) throws SQLException {
+        int version = getVersion(source);
+        if(version >= VERSION) {
+            return;
+        }
+        execute(source, "CREATE TABLE IF NOT EXISTS schema_version " +
+            "(version INTEGER PRIMARY KEY, appliedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        for (int i = version; i < VERSION; i++) {
+            Migration migration = MIGRATIONS.get(i);
+            int migrationVersion = i + 1;
+            logger.info("[tvdb] migrating schema to version {}", migrationVersion);
+            TransactionManager.callInTransaction(source, () -> {
+                DatabaseConnection connection = source.getReadWriteConnection(null);
+                try {
+                    migration.migrate(source, connection);
+                    execute(connection, "INSERT INTO schema_version (version) VALUES (" + migrationVersion + ")");
+                } finally {
+                    source.releaseConnection(connection);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static void execute(ConnectionSource source, String statement) throws SQLException {
+        DatabaseConnection connection = source.getReadWriteConnection(null);
+        try {
+            execute(connection, statement);
+        } finally {
+            source.releaseConnection(connection);
+        }
+    }
+
+    private static void execute(DatabaseConnection connection, String statement) throws SQLException {
+        connection.executeStatement(statement, DatabaseConnection.DEFAULT_RESULT_FLAGS);
+    }
+
+    private static void createTables(ConnectionSource source, DatabaseConnection connection) throws SQLException {
+        TableUtils.createTableIfNotExists(source, Show.class);
+        TableUtils.createTableIfNotExists(source, ShowProgress.class);
+        TableUtils.createTableIfNotExists(source, IndexedEpisode.class);
+        TableUtils.createTableIfNotExists(source, IndexedDirectory.class);
+        TableUtils.createTableIfNotExists(source, MediaDuration.class);
+        TableUtils.createTableIfNotExists(source, TraktShowProgressQueue.class);
+    }
+
+    /**
+     * Add the next episode columns to a showProgress table created before
+     * they were added
+     */
+    private static void addNextEpisodeColumns(ConnectionSource source, DatabaseConnection connection) throws SQLException {
+        String nextPath = "SELECT COUNT(*) FROM pragma_table_info('showProgress') WHERE name = 'nextPath'";
+        if(connection.queryForLong(nextPath) == 0) {
+            execute(connection, "ALTER TABLE showProgress ADD COLUMN nextSeason INTEGER");
+            execute(connection, "ALTER TABLE showProgress ADD COLUMN nextEpisodes VARCHAR");
+            execute(connection, "ALTER TABLE showProgress ADD COLUMN nextPath VARCHAR");
+            execute(connection, "ALTER TABLE showProgress ADD COLUMN nextDirectoryModified BIGINT");
+        }
+    }
+
+    /**
+     * Add a unique index on the show and tag of the showProgress table. If a
+     * show has more than one progress for a tag, only the latest is kept.
+     */
+    private static void addShowProgressUniqueIndex(ConnectionSource source, DatabaseConnection connection) throws SQLException {
+        execute(connection, "DELETE FROM showProgress WHERE id NOT IN (SELECT MAX(id) FROM showProgress GROUP BY showId, tag)");
+        execute(connection, "CREATE UNIQUE INDEX IF NOT EXISTS indexProgressShowTag ON showProgress (showId, tag)");
+    }
+
+    private static void addQueueWatchedAtIndex(ConnectionSource source, DatabaseConnection connection) throws SQLException {
+        execute(connection, "CREATE INDEX IF NOT EXISTS indexQueueWatchedAt ON showProgressQueue (watchedAt)");
+    }
+
+    /**
+     * Add an index on the tag and watchedAt of the showProgress table so the
+     * recent progress of a tag (i.e. --up-next) is read in order
+     */
+    private static void addProgressTagWatchedAtIndex(ConnectionSource source, DatabaseConnection connection) throws SQLException {
+        execute(connection, "CREATE INDEX IF NOT EXISTS indexProgressTagWatchedAt ON showProgress (tag, watchedAt)");
+    }
+}
@@ -0,0 +1,171 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.DatabaseFieldConfig;
+import com.j256.ormlite.jdbc.db.SqliteDatabaseType;
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import com.j256.ormlite.table.DatabaseTableConfigLoader;
+import uk.co.samicemalone.tv.tvdb.model.IndexedDirectory;
+import uk.co.samicemalone.tv.tvdb.model.IndexedEpisode;
+import uk.co.samicemalone.tv.tvdb.model.MediaDuration;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ORMLite table configs of the TVDB models. The configs are generated
+ * from the model annotations when tv is built (see the ormlite-config
+ * execution in pom.xml) and stored in the jar as {@link #RESOURCE}. Loading
+ * them into the {@link DaoManager} lets the DAOs be created without scanning
+ * the annotations of every model on each start. If the resource is missing,
+ * e.g. when the classes weren't built by maven, the DAOs fall back to
+ * reading the annotations.
+ * @author Sam Malone
+ */
+public final class TVDatabaseTableConfigs {
+
+    private final static Logger logger = LoggerFactory.getLogger(TVDatabaseTableConfigs.class.getName());
+
+    /** classpath resource containing the generated table configs **/
+    public static final String RESOURCE = "/ormlite_config.txt";
+
+    /** the models stored in the TVDB **/
+    static final List<Class<?>> MODELS = Arrays.asList(
+        Show.class,
+        ShowProgress.class,
+        IndexedEpisode.class,
+        IndexedDirectory.class,
+        MediaDuration.class,
+        TraktShowProgressQueue.class
+    );
+
+    private static boolean isRead;
+    private static String resource;
+
+    private TVDatabaseTableConfigs() {
+
+    }
+
+    /**
+     * Load the generated table configs into the {@link DaoManager}. ORMLite
+     * binds the field types of a table config to the first DAO created from
+     * it, so each connection needs its own table configs: the resource is
+     * only read once but the table configs are parsed on each call.
+     * @return true if the table configs are loaded, false if the DAOs will
+     * read the model annotations
+     */
+    public static boolean load() {
+        try {
+            List<DatabaseTableConfig<?>> configs = readConfigs();
+            if(configs == null) {
+                return false;
+            }
+            DaoManager.addCachedDatabaseConfigs(configs);
+            return true;
+        } catch (IOException | SQLException e) {
+            logger.warn("[tvdb] unable to load {}, reading the model annotations: {}", RESOURCE, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Read the generated table configs
+     * @return table configs or null if the resource doesn't exist
+     * @throws IOException if unable to read the resource
+     * @throws SQLException if unable to parse the table configs
+     */
+    public static List<DatabaseTableConfig<?>> readConfigs() throws IOException, SQLException {
+        String configs = readResource();
+        if(configs == null) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader(configs))) {
+            return DatabaseTableConfigLoader.loadDatabaseConfigFromReader(reader);
+        }
+    }
+
+    private static synchronized String readResource() throws IOException {
+        if(isRead) {
+            return resource;
+        }
+        InputStream in = TVDatabaseTableConfigs.class.getResourceAsStream(RESOURCE);
+        if(in == null) {
+            logger.debug("[tvdb] {} not found, reading the model annotations", RESOURCE);
+        } else {
+            try (InputStream resourceIn = in) {
+                resource = new String(resourceIn.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        isRead = true;
+        return resource;
+    }
+
+    /**
+     * Write the table config of each model, read from its annotations
+     * @param writer writer to write the table configs to
+     * @throws IOException if unable to write the table configs
+     * @throws SQLException if unable to read the annotations of a model
+     */
+    static void writeConfigs(BufferedWriter writer) throws IOException, SQLException {
+        SqliteDatabaseType databaseType = new SqliteDatabaseType();
+        writer.write("# generated from the TVDB model annotations by " + TVDatabaseTableConfigs.class.getName());
+        writer.newLine();
+        for (Class<?> model : MODELS) {
+            DatabaseTableConfigLoader.write(writer, fromAnnotations(databaseType, model));
+        }
+    }
+
+    /**
+     * Read the table config of a model from its annotations, including the
+     * fields of its superclasses
+     * @param databaseType database type
+     * @param model model class
+     * @return table config
+     * @throws SQLException if a field annotation is invalid
+     */
+    private static <T> DatabaseTableConfig<T> fromAnnotations(DatabaseType databaseType, Class<T> model) throws SQLException {
+        String tableName = DatabaseTableConfig.extractTableName(databaseType, model);
+        List<DatabaseFieldConfig> fieldConfigs = new ArrayList<>();
+        for (Class<?> c = model; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                DatabaseFieldConfig fieldConfig = DatabaseFieldConfig.fromField(databaseType, tableName, field);
+                if(fieldConfig != null) {
+                    fieldConfigs.add(fieldConfig);
+                }
+            }
+        }
+        return new DatabaseTableConfig<>(model, tableName, fieldConfigs);
+    }
+
+    /**
+     * Generate the table configs at build time
+     * @param args path of the file to write the table configs to
+     * @throws Exception if unable to write the table configs
+     */
+    public static void main(String[] args) throws Exception {
+        if(args.length != 1) {
+            System.err.println("usage: TVDatabaseTableConfigs OUTPUT_FILE");
+            System.exit(1);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            writeConfigs(writer);
+        }
+    }
+}
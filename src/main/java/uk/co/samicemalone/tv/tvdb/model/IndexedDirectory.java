@@ -0,0 +1,68 @@
+package uk.co.samicemalone.tv.tvdb.model;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@DatabaseTable(tableName = "directoryIndex")
+public class IndexedDirectory {
+    /** season value of a directory that contains season directories **/
+    public static final int NO_SEASON = -1;
+    /** season value of a SOURCE folder i.e. a directory that contains show directories **/
+    public static final int SOURCE_FOLDER = -2;
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField(canBeNull = false, columnName = "showId", foreign = true, indexName = "indexDirectoryShow")
+    private Show show;
+
+    @DatabaseField(canBeNull = false)
+    private String path;
+
+    @DatabaseField(canBeNull = false, defaultValue = "-1")
+    private int season;
+
+    @DatabaseField(canBeNull = false)
+    private long lastModified;
+
+    public IndexedDirectory() {
+
+    }
+
+    public IndexedDirectory(Show show, String path, int season, long lastModified) {
+        this.show = show;
+        this.path = path;
+        this.season = season;
+        this.lastModified = lastModified;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Show getShow() {
+        return show;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the season number of the episodes in this directory
+     * @return season number, {@link #NO_SEASON} if this directory contains
+     * season directories or {@link #SOURCE_FOLDER} if this directory contains
+     * show directories
+     */
+    public int getSeason() {
+        return season;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+}
@@ -0,0 +1,57 @@
+package uk.co.samicemalone.tv.tvdb.model;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@DatabaseTable(tableName = "episodeIndex")
+public class IndexedEpisode {
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField(canBeNull = false, columnName = "showId", foreign = true, indexName = "indexEpisodeShowSeason")
+    private Show show;
+
+    @DatabaseField(canBeNull = false, indexName = "indexEpisodeShowSeason")
+    private int season;
+
+    @DatabaseField(canBeNull = false)
+    private String episodes;
+
+    @DatabaseField(canBeNull = false)
+    private String path;
+
+    public IndexedEpisode() {
+
+    }
+
+    public IndexedEpisode(Show show, int season, String episodes, String path) {
+        this.show = show;
+        this.season = season;
+        this.episodes = episodes;
+        this.path = path;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Show getShow() {
+        return show;
+    }
+
+    public int getSeason() {
+        return season;
+    }
+
+    /**
+     * Get the comma separated episode numbers stored in the episode file
+     * @return comma separated episode numbers e.g. 1 or 1,2
+     */
+    public String getEpisodes() {
+        return episodes;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,74 @@
+package uk.co.samicemalone.tv.tvdb.model;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+@DatabaseTable(tableName = "mediaDuration")
+public class MediaDuration {
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField(canBeNull = false, unique = true)
+    private String path;
+
+    @DatabaseField(canBeNull = false)
+    private long size;
+
+    @DatabaseField(canBeNull = false)
+    private long lastModified;
+
+    @DatabaseField(canBeNull = false)
+    private long duration;
+
+    public MediaDuration() {
+
+    }
+
+    public MediaDuration(String path, long size, long lastModified, long duration) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.duration = duration;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the canonical path of the media file
+     * @return canonical path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Get the duration of the media file
+     * @return duration in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+}
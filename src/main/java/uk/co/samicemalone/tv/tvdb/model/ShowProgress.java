@@ -3,13 +3,19 @@ package uk.co.samicemalone.tv.tvdb.model;
 import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
 import com.j256.ormlite.table.DatabaseTable;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.model.Episode;
 
+import java.io.File;
 import java.time.Instant;
 import java.util.Date;
 
 @DatabaseTable(tableName = "showProgress")
 public class ShowProgress {
+
+    /** format of the watchedAt column **/
+    public static final String WATCHED_AT_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
     @DatabaseField(generatedId = true)
     private int id;
 
@@ -27,11 +33,23 @@ public class ShowProgress {
 
     @DatabaseField(
         dataType = DataType.DATE_STRING,
-        format = "yyyy-MM-dd HH:mm:ss",
+        format = ShowProgress.WATCHED_AT_FORMAT,
         columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
     )
     private Date watchedAt;
 
+    @DatabaseField
+    private int nextSeason;
+
+    @DatabaseField
+    private String nextEpisodes;
+
+    @DatabaseField
+    private String nextPath;
+
+    @DatabaseField
+    private long nextDirectoryModified;
+
     public ShowProgress() {
 
     }
@@ -91,6 +109,87 @@ public class ShowProgress {
         this.watchedAt = new Date(watchedAt.toEpochMilli());
     }
 
+    /**
+     * Get the episode after this progress that was found when the progress
+     * was set
+     * @return next episode with its episode file set or null if not stored
+     */
+    public EpisodeMatch getNextEpisode() {
+        if(nextPath == null || nextEpisodes == null) {
+            return null;
+        }
+        String[] episodes = nextEpisodes.split(",");
+        EpisodeMatch match = new EpisodeMatch(show.getName(), nextSeason, Integer.parseInt(episodes[0]));
+        for (int i = 1; i < episodes.length; i++) {
+            match.getEpisodes().add(Integer.parseInt(episodes[i]));
+        }
+        match.setEpisodeFile(new File(nextPath));
+        return match;
+    }
+
+    /**
+     * Set the episode after this progress
+     * @param next next episode with its episode file set or null to clear
+     * @param directoryModified last modified time of the directory
+     * containing the next episode when it was found
+     */
+    public void setNextEpisode(EpisodeMatch next, long directoryModified) {
+        if(next == null) {
+            setNextEpisode(0, null, null, 0);
+            return;
+        }
+        StringBuilder episodes = new StringBuilder();
+        for (Integer episode : next.getEpisodes()) {
+            if(episodes.length() > 0) {
+                episodes.append(',');
+            }
+            episodes.append(episode);
+        }
+        setNextEpisode(next.getSeason(), episodes.toString(), next.getEpisodeFile().getAbsolutePath(), directoryModified);
+    }
+
+    /**
+     * Set the episode after this progress as stored in the TVDB
+     * @param season season of the next episode
+     * @param episodes comma separated episode numbers of the next episode
+     * e.g. 1 or 1,2
+     * @param path absolute path of the next episode file
+     * @param directoryModified last modified time of the directory
+     * containing the next episode when it was found
+     */
+    public void setNextEpisode(int season, String episodes, String path, long directoryModified) {
+        this.nextSeason = season;
+        this.nextEpisodes = episodes;
+        this.nextPath = path;
+        this.nextDirectoryModified = directoryModified;
+    }
+
+    public int getNextSeason() {
+        return nextSeason;
+    }
+
+    /**
+     * Get the comma separated episode numbers of the next episode
+     * @return comma separated episode numbers e.g. 1 or 1,2 or null
+     */
+    public String getNextEpisodes() {
+        return nextEpisodes;
+    }
+
+    public String getNextPath() {
+        return nextPath;
+    }
+
+    /**
+     * Get the last modified time of the directory containing the next episode
+     * when it was found. If the directory has been modified since, the next
+     * episode may have changed.
+     * @return last modified time or 0 if the next episode is not stored
+     */
+    public long getNextDirectoryModified() {
+        return nextDirectoryModified;
+    }
+
     public Episode toEpisode() {
         Episode e = new Episode(show.getName(), tag, season, episode);
         e.setWatchedAt(watchedAt.toInstant());
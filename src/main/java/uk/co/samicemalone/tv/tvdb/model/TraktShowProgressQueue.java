@@ -15,7 +15,7 @@ public class TraktShowProgressQueue {
     @DatabaseField(generatedId = true)
     private int id;
 
-    @DatabaseField(canBeNull = false, foreign = true, columnName = "showId", foreignAutoRefresh = true)
+    @DatabaseField(canBeNull = false, foreign = true, columnName = "showId")
     private Show show;
 
     @DatabaseField(canBeNull = false, defaultValue = SEEN)
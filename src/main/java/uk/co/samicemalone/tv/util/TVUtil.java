@@ -46,7 +46,9 @@ public class TVUtil {
      * Gets the integer season number for the given episode string
      * @param ep Episode string e.g. s01e04
      * @return int season number e.g. 1
+     * @deprecated use {@link uk.co.samicemalone.tv.selector.EpisodeExpressionParser}
      */
+    @Deprecated
     public static int getSeasonNo(String ep) {
         return Integer.valueOf(ep.substring(1, 3));
     }
@@ -55,7 +57,9 @@ public class TVUtil {
      * Gets the episode number in string format for the given episode string
      * @param ep Episode string e.g. s01e04
      * @return String episode number e.g. "04"
+     * @deprecated use {@link uk.co.samicemalone.tv.selector.EpisodeExpressionParser}
      */
+    @Deprecated
     public static String getEpisodeNo(String ep) {
         return ep.substring(4, 6);
     }
@@ -64,7 +68,9 @@ public class TVUtil {
      * Get the season range for the given episode string
      * @param ep Episode string e.g. s01-s03
      * @return season range
+     * @deprecated use {@link uk.co.samicemalone.tv.selector.EpisodeExpressionParser}
      */
+    @Deprecated
     public static Range getSeasonRange(String ep) {
         String[] seasonRange = ep.split("-", 2);
         return new Range(TVUtil.getSeasonNo(seasonRange[0]), TVUtil.getSeasonNo(seasonRange[1]));
@@ -74,7 +80,9 @@ public class TVUtil {
      * Get the episode range for the given episode string
      * @param ep Episode string e.g. s01e12-s02e04
      * @return episode range
+     * @deprecated use {@link uk.co.samicemalone.tv.selector.EpisodeExpressionParser}
      */
+    @Deprecated
     public static EpisodeRange getEpisodeRange(String ep) {
         String[] episodesRange = ep.split("-", 2);
         return new EpisodeRange(
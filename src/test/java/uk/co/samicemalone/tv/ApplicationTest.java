@@ -0,0 +1,128 @@
+package uk.co.samicemalone.tv;
+
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.tv.Application.TVDBAccess;
+import uk.co.samicemalone.tv.action.Action;
+import uk.co.samicemalone.tv.exception.InvalidArgumentException;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.options.UnixEnvironment;
+import uk.co.samicemalone.tv.options.WindowsEnvironment;
+import uk.co.samicemalone.tv.selector.EpisodeExpressionParser;
+import uk.co.samicemalone.tv.tvdb.EpisodeIndex;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.IndexedDirectory;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ApplicationTest extends FileSystemEnvironment {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Arguments arguments(int action, String episodes) throws InvalidArgumentException {
+        Arguments args = new Arguments();
+        args.setShow("Scrubs");
+        args.setMediaAction(action);
+        if(episodes != null) {
+            args.setEpisode(episodes);
+            args.setEpisodeExpression(EpisodeExpressionParser.parse(episodes));
+        }
+        return args;
+    }
+
+    private static Arguments sourceArguments(int action, String episodes) throws InvalidArgumentException {
+        Arguments args = arguments(action, episodes);
+        for (String sourceFolder : MockFileSystem.getSourceFolders()) {
+            args.addSourceFolder(sourceFolder);
+        }
+        return args;
+    }
+
+    private static void setEnvironment(File tvdb) {
+        TV.ENV = WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+        TV.ENV.setEpisodeIndexEnabled(true);
+        TV.ENV.setTVDB(tvdb.getAbsolutePath());
+    }
+
+    @Test
+    public void testGetTVDBAccessListRange() throws Exception {
+        assertEquals(TVDBAccess.NONE, Application.getTVDBAccess(arguments(Action.LIST, "s01e01-s01e04")));
+        assertEquals(TVDBAccess.NONE, Application.getTVDBAccess(arguments(Action.COUNT, "s02")));
+        assertEquals(TVDBAccess.NONE, Application.getTVDBAccess(arguments(Action.SIZE, "all")));
+        assertEquals(TVDBAccess.NONE, Application.getTVDBAccess(arguments(Action.LIST_PATH, "s01e02")));
+    }
+
+    @Test
+    public void testGetTVDBAccessListProgress() throws Exception {
+        assertEquals(TVDBAccess.READ_ONLY, Application.getTVDBAccess(arguments(Action.LIST, "next")));
+        assertEquals(TVDBAccess.READ_ONLY, Application.getTVDBAccess(arguments(Action.COUNT, "cur-")));
+        Arguments upNext = arguments(Action.LIST, null);
+        upNext.setUpNextCount(5);
+        assertEquals(TVDBAccess.READ_ONLY, Application.getTVDBAccess(upNext));
+    }
+
+    @Test
+    public void testGetTVDBAccessWrites() throws Exception {
+        assertEquals(TVDBAccess.READ_WRITE, Application.getTVDBAccess(arguments(Action.PLAY, "s01e01")));
+        assertEquals(TVDBAccess.READ_WRITE, Application.getTVDBAccess(arguments(Action.LENGTH, "s01")));
+        Arguments trakt = arguments(Action.LIST, "next");
+        trakt.setTraktPointer(true);
+        assertEquals(TVDBAccess.READ_WRITE, Application.getTVDBAccess(trakt));
+    }
+
+    @Test
+    public void testListWithEpisodeIndexDoesNotOpenTVDB() throws Exception {
+        File tvdb = new File(folder.getRoot(), "tvdb.sqlite");
+        setEnvironment(tvdb);
+        Arguments args = sourceArguments(Action.COUNT, "s01");
+        TV.ENV.setArguments(args);
+        new Application(new TVDatabase()).run(args);
+        assertFalse(tvdb.exists());
+    }
+
+    @Test
+    public void testListWithEpisodeIndexDoesNotRefreshIndex() throws Exception {
+        File tvdbFile = new File(folder.getRoot(), "tvdb.sqlite");
+        setEnvironment(tvdbFile);
+        TVDatabase tvdb = new TVDatabase();
+        Show show = new Show("Scrubs");
+        try (ConnectionSource source = tvdb.connect(tvdbFile.getAbsolutePath())) {
+            tvdb.createOrUpdateShow(show);
+            tvdb.setShowProgress(new Episode("Scrubs", "", 1, 1).setWatchedAt(Instant.now()));
+            TVEpisodeMatcher matcher = new TVEpisodeMatcher(new StandardTVLibrary(MockFileSystem.getSourceFolders()));
+            new EpisodeIndex(tvdb, matcher, MockFileSystem.getSourceFolders()).getEpisodes(show);
+        }
+        File seasonDir = MockFileSystem.getSeasonDir("Scrubs", 1);
+        long lastModified = seasonDir.lastModified();
+        try {
+            seasonDir.setLastModified(lastModified + 10000);
+            Arguments args = sourceArguments(Action.COUNT, "next");
+            TV.ENV.setArguments(args);
+            assertEquals(TVDBAccess.READ_ONLY, Application.getTVDBAccess(args));
+            new Application(new TVDatabase()).run(args);
+        } finally {
+            seasonDir.setLastModified(lastModified);
+        }
+        // the modified season is listed from the source folders, not written to the index
+        try (ConnectionSource source = tvdb.connect(tvdbFile.getAbsolutePath())) {
+            List<IndexedDirectory> directories = tvdb.getIndexedDirectories(tvdb.getShowByName("Scrubs"));
+            for (IndexedDirectory directory : directories) {
+                if(directory.getSeason() == 1) {
+                    assertEquals(lastModified, directory.getLastModified());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package uk.co.samicemalone.tv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large synthetic TV libraries for scale and performance tests.
+ * Unlike {@link MockFileSystem}, the libraries are uneven: each show has a
+ * random number of seasons and each season a random number of episodes, some
+ * files contain multiple episodes, the shows are spread over several source
+ * folders and each season folder contains non-video clutter.
+ * <p>
+ * Episode files are empty unless a file size is set, in which case they are
+ * created as sparse files so large libraries don't use any disk space.
+ * Libraries are generated from a seeded Random so they are the same every
+ * run.
+ * @author Sam Malone
+ */
+public class LibraryGenerator {
+
+    private static final String[] EXTENSIONS = { "mkv", "mp4", "avi" };
+    private static final String[] CLUTTER = { "folder.jpg", "season.nfo", "%s.srt", "%s.nfo", "notes.txt" };
+
+    private int shows = 10000;
+    private int sourceFolders = 3;
+    private int minSeasons = 1;
+    private int maxSeasons = 12;
+    private int minEpisodes = 6;
+    private int maxEpisodes = 26;
+    private double multiEpisodeRatio = 0.05;
+    private int clutterPerSeason = 2;
+    private long fileSize = 0;
+    private long seed = 42;
+
+    public LibraryGenerator setShows(int shows) {
+        this.shows = shows;
+        return this;
+    }
+
+    public LibraryGenerator setSourceFolders(int sourceFolders) {
+        this.sourceFolders = sourceFolders;
+        return this;
+    }
+
+    public LibraryGenerator setSeasons(int minSeasons, int maxSeasons) {
+        this.minSeasons = minSeasons;
+        this.maxSeasons = maxSeasons;
+        return this;
+    }
+
+    public LibraryGenerator setEpisodes(int minEpisodes, int maxEpisodes) {
+        this.minEpisodes = minEpisodes;
+        this.maxEpisodes = maxEpisodes;
+        return this;
+    }
+
+    /**
+     * Set the ratio of episode files that contain two episodes e.g.
+     * Show - 1x01x02.mkv
+     * @param multiEpisodeRatio ratio between 0 and 1
+     * @return this
+     */
+    public LibraryGenerator setMultiEpisodeRatio(double multiEpisodeRatio) {
+        this.multiEpisodeRatio = multiEpisodeRatio;
+        return this;
+    }
+
+    /**
+     * Set the number of non-video files in each season folder
+     * @param clutterPerSeason number of files
+     * @return this
+     */
+    public LibraryGenerator setClutterPerSeason(int clutterPerSeason) {
+        this.clutterPerSeason = clutterPerSeason;
+        return this;
+    }
+
+    /**
+     * Set the size of each episode file. Files are created sparse.
+     * @param fileSize size in bytes or 0 for empty files
+     * @return this
+     */
+    public LibraryGenerator setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+        return this;
+    }
+
+    public LibraryGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generate a library in the given directory
+     * @param root directory to create the source folders in
+     * @return generated library
+     * @throws IOException if unable to create the library
+     */
+    public Library generate(File root) throws IOException {
+        Random random = new Random(seed);
+        Library library = new Library(root);
+        for (int i = 0; i < sourceFolders; i++) {
+            File source = new File(root, "source" + i);
+            if(!source.mkdirs() && !source.isDirectory()) {
+                throw new IOException("Unable to create " + source);
+            }
+            library.sourceFolders.add(source.getAbsolutePath());
+        }
+        for (int i = 0; i < shows; i++) {
+            String show = String.format("Show %05d", i);
+            File showDir = new File(library.sourceFolders.get(i % sourceFolders), show);
+            int seasons = minSeasons + random.nextInt(maxSeasons - minSeasons + 1);
+            for (int season = 1; season <= seasons; season++) {
+                File seasonDir = new File(showDir, "Season " + season);
+                seasonDir.mkdirs();
+                int episodes = minEpisodes + random.nextInt(maxEpisodes - minEpisodes + 1);
+                for (int episode = 1; episode <= episodes; episode++) {
+                    String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+                    StringBuilder name = new StringBuilder(String.format("%s - %dx%02d", show, season, episode));
+                    if(episode < episodes && random.nextDouble() < multiEpisodeRatio) {
+                        name.append(String.format("x%02d", ++episode));
+                    }
+                    createFile(new File(seasonDir, name.append('.').append(extension).toString()), fileSize);
+                    library.episodeFiles++;
+                }
+                library.episodes += episodes;
+                for (int c = 0; c < clutterPerSeason; c++) {
+                    String clutter = String.format(CLUTTER[random.nextInt(CLUTTER.length)], show + " - " + season + "x01");
+                    createFile(new File(seasonDir, clutter), 0);
+                }
+            }
+            library.shows.add(show);
+            library.seasons += seasons;
+        }
+        return library;
+    }
+
+    private static void createFile(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if(size > 0) {
+                raf.setLength(size);
+            }
+        }
+    }
+
+    /**
+     * A generated library
+     */
+    public static class Library {
+        private final File root;
+        private final List<String> sourceFolders = new ArrayList<>();
+        private final List<String> shows = new ArrayList<>();
+        private int seasons;
+        private int episodes;
+        private int episodeFiles;
+
+        private Library(File root) {
+            this.root = root;
+        }
+
+        public List<String> getSourceFolders() {
+            return Collections.unmodifiableList(sourceFolders);
+        }
+
+        public List<String> getShows() {
+            return Collections.unmodifiableList(shows);
+        }
+
+        public int getSeasonCount() {
+            return seasons;
+        }
+
+        public int getEpisodeCount() {
+            return episodes;
+        }
+
+        public int getEpisodeFileCount() {
+            return episodeFiles;
+        }
+
+        /**
+         * Delete the library
+         */
+        public void delete() {
+            delete(root);
+        }
+
+        private static void delete(File dir) {
+            File[] files = dir.listFiles();
+            if(files != null) {
+                for (File f : files) {
+                    if(f.isDirectory()) {
+                        delete(f);
+                    } else {
+                        f.delete();
+                    }
+                }
+            }
+            dir.delete();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d shows, %d seasons, %d episodes in %d files, %d source folders",
+                shows.size(), seasons, episodes, episodeFiles, sourceFolders.size());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package uk.co.samicemalone.tv;
+
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.action.SizeAction;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.options.ArgsParser;
+import uk.co.samicemalone.tv.options.Environment;
+import uk.co.samicemalone.tv.options.UnixEnvironment;
+import uk.co.samicemalone.tv.options.WindowsEnvironment;
+import uk.co.samicemalone.tv.selector.EpisodeExpressionParser;
+import uk.co.samicemalone.tv.selector.EpisodeSelector;
+import uk.co.samicemalone.tv.tvdb.EpisodeIndex;
+import uk.co.samicemalone.tv.tvdb.IndexedTVEpisodeMatcher;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Load tests against a large library from {@link LibraryGenerator}. The wall
+ * time and heap use of each operation are printed. Not run as part of the
+ * test suite unless the tv.loadtest property is set e.g.
+ * <pre>
+ * mvn test -Dtest=LibraryLoadTest -Dtv.loadtest=true -Dtv.loadtest.shows=10000
+ * </pre>
+ * @author Sam Malone
+ */
+public class LibraryLoadTest {
+
+    private static final int SHOWS = Integer.getInteger("tv.loadtest.shows", 10000);
+    private static final int INDEXED_SHOWS = Integer.getInteger("tv.loadtest.indexShows", 500);
+    private static final long FILE_SIZE = 350L * 1024 * 1024;
+
+    private static final List<String> SELECTORS = Arrays.asList(
+        "all", "s01", "s01e03-", "s01-", "s01-s02", "s01e02-s02e04", "s$"
+    );
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static LibraryGenerator.Library library;
+    private static List<String> sampleShows;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Assume.assumeTrue("set -Dtv.loadtest=true to run the load tests", Boolean.getBoolean("tv.loadtest"));
+        library = measure("generate library", () -> new LibraryGenerator()
+            .setShows(SHOWS)
+            .setSeasons(2, 12)
+            .setFileSize(FILE_SIZE)
+            .generate(folder.getRoot()));
+        System.out.println("[load] " + library);
+        List<String> shows = library.getShows();
+        sampleShows = Arrays.asList(shows.get(0), shows.get(shows.size() / 2), shows.get(shows.size() - 1));
+        TV.ENV = newEnvironment();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        if(library != null) {
+            library.delete();
+        }
+    }
+
+    @Test
+    public void testEnvironmentValidate() throws Exception {
+        for (String show : sampleShows) {
+            Environment env = newEnvironment();
+            env.setArguments(parse(show, "all"));
+            measure("Environment.validate " + show, () -> {
+                env.validate();
+                return null;
+            });
+            assertEquals(library.getSourceFolders(), env.getArguments().getSourceFolders());
+        }
+    }
+
+    @Test
+    public void testSelectors() throws Exception {
+        TVPath tvPath = new StandardTVLibrary(library.getSourceFolders());
+        for (String episodes : SELECTORS) {
+            EpisodeSelector selector = EpisodeSelector.findEpisodeSelector(EpisodeSelector.defaultSelectors(tvPath), EpisodeExpressionParser.parse(episodes));
+            assertNotNull(episodes, selector);
+            for (String show : sampleShows) {
+                TV.ENV.setArguments(parse(show, episodes));
+                List<EpisodeMatch> matches = measure("findMatches " + episodes + " " + show, selector::findMatches);
+                assertFalse(episodes + " " + show, matches.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testIndexedSelectors() throws Exception {
+        TVDatabase tvdb = new TVDatabase();
+        try (ConnectionSource source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE)) {
+            TVPath tvPath = new StandardTVLibrary(library.getSourceFolders());
+            IndexedTVEpisodeMatcher matcher = new IndexedTVEpisodeMatcher(tvPath, library.getSourceFolders(), tvdb);
+            for (String episodes : SELECTORS) {
+                EpisodeSelector selector = EpisodeSelector.findEpisodeSelector(EpisodeSelector.defaultSelectors(tvPath), EpisodeExpressionParser.parse(episodes));
+                selector.setTVEpisodeMatcher(matcher);
+                for (String show : sampleShows) {
+                    TV.ENV.setArguments(parse(show, episodes));
+                    List<EpisodeMatch> matches = measure("indexed findMatches " + episodes + " " + show, selector::findMatches);
+                    assertFalse(episodes + " " + show, matches.isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEpisodeIndex() throws Exception {
+        TVDatabase tvdb = new TVDatabase();
+        try (ConnectionSource source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE)) {
+            TVEpisodeMatcher matcher = new TVEpisodeMatcher(new StandardTVLibrary(library.getSourceFolders()));
+            EpisodeIndex index = new EpisodeIndex(tvdb, matcher, library.getSourceFolders());
+            List<Show> shows = new ArrayList<>();
+            for (String name : library.getShows().subList(0, Math.min(INDEXED_SHOWS, library.getShows().size()))) {
+                Show show = new Show(name);
+                tvdb.createOrUpdateShow(show);
+                shows.add(show);
+            }
+            int built = measure("EpisodeIndex build " + shows.size() + " shows", () -> {
+                int count = 0;
+                for (Show show : shows) {
+                    count += index.getEpisodes(show).size();
+                }
+                return count;
+            });
+            int cached = measure("EpisodeIndex read " + shows.size() + " shows", () -> {
+                int count = 0;
+                for (Show show : shows) {
+                    count += index.getEpisodes(show).size();
+                }
+                return count;
+            });
+            assertEquals(built, cached);
+        }
+    }
+
+    @Test
+    public void testSizeAction() throws Exception {
+        TVPath tvPath = new StandardTVLibrary(library.getSourceFolders());
+        EpisodeSelector selector = EpisodeSelector.findEpisodeSelector(EpisodeSelector.defaultSelectors(tvPath), EpisodeExpressionParser.parse("all"));
+        List<EpisodeMatch> matches = new ArrayList<>();
+        for (String show : library.getShows().subList(0, Math.min(INDEXED_SHOWS, library.getShows().size()))) {
+            TV.ENV.setArguments(parse(show, "all"));
+            matches.addAll(selector.findMatches());
+        }
+        PrintStream out = System.out;
+        ByteArrayOutputStream size = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(size, true));
+            measure("SizeAction " + matches.size() + " files", () -> {
+                new SizeAction().execute(null, matches);
+                return null;
+            });
+        } finally {
+            System.setOut(out);
+        }
+        System.out.println("[load] size = " + size.toString().trim());
+    }
+
+    private static Environment newEnvironment() {
+        return WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+    }
+
+    private static Arguments parse(String show, String episodes) throws Exception {
+        List<String> args = new ArrayList<>(Arrays.asList(show, episodes));
+        for (String source : library.getSourceFolders()) {
+            args.add("--source");
+            args.add(source);
+        }
+        return ArgsParser.parse(args.toArray(new String[0]));
+    }
+
+    /**
+     * Run the given task and print the wall time, the heap retained by the
+     * task and the peak heap use while the task ran
+     * @param name task name
+     * @param task task
+     * @return result of the task
+     */
+    private static <T> T measure(String name, Callable<T> task) throws Exception {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        long heapBefore = usedHeap();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        T result = task.call();
+        long elapsed = System.nanoTime() - start;
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.gc();
+        long retained = usedHeap() - heapBefore;
+        System.out.format("[load] %-48s %10.3f ms  heap retained %8.1f MB  peak %8.1f MB%n",
+            name, elapsed / 1e6, retained / 1048576.0, peak / 1048576.0);
+        return result;
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,96 @@
+package uk.co.samicemalone.tv;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class MediaInfoTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChunksSpreadOverProcesses() {
+        MediaInfo mediaInfo = new MediaInfo(new File("mediainfo"), 4);
+        for (int i = 0; i < 10; i++) {
+            mediaInfo.addFile("/tv/Scrubs/Season 1/s01e0" + i + ".mkv");
+        }
+        List<List<String>> chunks = mediaInfo.getChunks(Integer.MAX_VALUE);
+        assertEquals(4, chunks.size());
+        assertEquals(3, chunks.get(0).size());
+        assertEquals(1, chunks.get(3).size());
+    }
+
+    @Test
+    public void testChunksFitCommandLength() {
+        MediaInfo mediaInfo = new MediaInfo(new File("mediainfo"), 1);
+        for (int i = 0; i < 1000; i++) {
+            mediaInfo.addFile(String.format("/tv/Scrubs/Season 1/%04d.mkv", i));
+        }
+        List<List<String>> chunks = mediaInfo.getChunks(4096);
+        assertTrue(chunks.size() > 1);
+        int files = 0;
+        for (List<String> chunk : chunks) {
+            int length = 0;
+            for (String path : chunk) {
+                length += path.length() + 1;
+            }
+            assertTrue(length < 4096);
+            files += chunk.size();
+        }
+        assertEquals(1000, files);
+    }
+
+    @Test
+    public void testGetDurationsMergesProcesses() throws Exception {
+        assumeTrue(File.separatorChar == '/');
+        File mediainfo = fakeMediaInfo("for f in \"$@\"; do case \"$f\" in --*) ;; *) echo \"$f|1000.000\"; echo \"error $f\" >&2;; esac; done");
+        MediaInfo mediaInfo = new MediaInfo(mediainfo, 3);
+        for (int i = 0; i < 10; i++) {
+            mediaInfo.addFile("s01e0" + i + ".mkv");
+        }
+        Map<String, Long> durations = mediaInfo.getDurations();
+        assertEquals(10, durations.size());
+        assertEquals(Long.valueOf(1000), durations.get("s01e05.mkv"));
+        assertEquals(10000, mediaInfo.getLengthMillis());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        assumeTrue(File.separatorChar == '/');
+        File mediainfo = fakeMediaInfo("echo \"s01e01.mkv|1000\"; exec sleep 30");
+        MediaInfo mediaInfo = new MediaInfo(mediainfo, 1, 1);
+        mediaInfo.addFile("s01e01.mkv");
+        long start = System.nanoTime();
+        Map<String, Long> durations = mediaInfo.getDurations();
+        assertTrue(System.nanoTime() - start < 20_000_000_000L);
+        assertEquals(Long.valueOf(1000), durations.get("s01e01.mkv"));
+    }
+
+    @Test
+    public void testGetDurationsReadsUTF8() throws Exception {
+        assumeTrue(File.separatorChar == '/');
+        // prints the UTF-8 name whatever the charset of the platform
+        File mediainfo = fakeMediaInfo("printf 'Pok\\303\\251mon.mkv|1000\\n'");
+        MediaInfo mediaInfo = new MediaInfo(mediainfo, 1);
+        mediaInfo.addFile("Pok\u00e9mon.mkv");
+        assertEquals(Long.valueOf(1000), mediaInfo.getDurations().get("Pok\u00e9mon.mkv"));
+    }
+
+    private File fakeMediaInfo(String script) throws Exception {
+        File file = folder.newFile("mediainfo");
+        Files.write(file.toPath(), ("#!/bin/sh\n" + script + "\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setExecutable(true));
+        return file;
+    }
+}
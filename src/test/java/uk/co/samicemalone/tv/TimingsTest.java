@@ -0,0 +1,60 @@
+package uk.co.samicemalone.tv;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingsTest {
+
+    @Test
+    public void testNestedPhases() throws Exception {
+        Timings timings = new Timings();
+        try (Timings.Phase outer = timings.start("app.run")) {
+            try (Timings.Phase inner = timings.start("tvdb.connect")) {
+                Thread.sleep(5);
+            }
+        }
+        try (Timings.Phase phase = timings.start("action.execute")) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, timings.getPhases().size());
+        assertEquals(0, timings.getPhases().get(0).getDepth());
+        assertEquals(1, timings.getPhases().get(1).getDepth());
+        assertEquals(0, timings.getPhases().get(2).getDepth());
+        assertTrue(timings.getPhases().get(0).getNanos() >= timings.getPhases().get(1).getNanos());
+        assertTrue(timings.getPhases().get(1).getNanos() >= 5_000_000);
+    }
+
+    @Test
+    public void testPrintJson() throws Exception {
+        Timings timings = new Timings();
+        try (Timings.Phase phase = timings.start("plugin.onLoad \"Quoted\"")) {
+            Thread.sleep(1);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        timings.print(new PrintStream(out, true, "UTF-8"), Timings.FORMAT_JSON);
+        String json = out.toString(StandardCharsets.UTF_8.name()).trim();
+        assertTrue(json.startsWith("{\"startup_ms\":"));
+        assertTrue(json.contains("\"phases\":[{\"name\":\"plugin.onLoad \\\"Quoted\\\"\",\"depth\":0,"));
+        assertTrue(json.endsWith("}]}"));
+    }
+
+    @Test
+    public void testPrintText() throws Exception {
+        Timings timings = new Timings();
+        try (Timings.Phase outer = timings.start("app.run")) {
+            timings.start("tvdb.connect").close();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        timings.print(new PrintStream(out, true, "UTF-8"), Timings.FORMAT_TEXT);
+        String text = out.toString(StandardCharsets.UTF_8.name());
+        assertTrue(text.contains(" ms  app.run"));
+        assertTrue(text.contains(" ms    tvdb.connect"));
+        assertTrue(text.contains(" ms  total"));
+    }
+}
@@ -0,0 +1,70 @@
+package uk.co.samicemalone.tv.batch;
+
+import org.junit.Test;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.exception.InvalidArgumentException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TVBatchTest {
+
+    @Test
+    public void testTokenize() throws Exception {
+        assertEquals(Arrays.asList("Scrubs", "next", "-q"), TVBatch.tokenize("  Scrubs   next -q "));
+        assertEquals(Arrays.asList("Modern Family", "s02", "--list"), TVBatch.tokenize("\"Modern Family\" s02 --list"));
+        assertEquals(Arrays.asList("It's Always Sunny", "s$"), TVBatch.tokenize("It\\'s' Always Sunny' s$"));
+        assertEquals(Arrays.asList("", "all"), TVBatch.tokenize("'' all"));
+        assertEquals(Collections.emptyList(), TVBatch.tokenize("   "));
+    }
+
+    @Test
+    public void testTokenizeUnclosedQuote() {
+        try {
+            TVBatch.tokenize("\"Modern Family s02");
+            fail("Expected unclosed quote to be invalid");
+        } catch (InvalidArgumentException e) {
+            assertEquals(ExitCode.UNEXPECTED_ARGUMENT, e.getExitCode());
+        }
+    }
+
+    @Test
+    public void testGetSharedArguments() {
+        String[] args = { "--config", "tv.conf", "--batch", "commands.txt", "-u", "user" };
+        assertEquals(Arrays.asList("--config", "tv.conf", "-u", "user"), TVBatch.getSharedArguments(args));
+        assertEquals(Collections.emptyList(), TVBatch.getSharedArguments(new String[] { "--batch", "-" }));
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        String commands = "# comment\n\n--version\n--batch other.txt\n\"unclosed\n--version\n";
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        int exitCode;
+        try {
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            System.setErr(new PrintStream(new ByteArrayOutputStream()));
+            TVBatch batch = new TVBatch(new String[] { "--batch", "-" }, false);
+            exitCode = batch.run(new BufferedReader(new StringReader(commands)), new PrintStream(report, true, "UTF-8"));
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        assertEquals(ExitCode.UNEXPECTED_ARGUMENT, exitCode);
+        String[] lines = report.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("[batch] line 3 exit 0: --version", lines[0]);
+        assertEquals("[batch] line 4 exit " + ExitCode.UNEXPECTED_ARGUMENT + ": --batch other.txt", lines[1]);
+        assertEquals("[batch] line 5 exit " + ExitCode.UNEXPECTED_ARGUMENT + ": \"unclosed", lines[2]);
+        assertEquals("[batch] line 6 exit 0: --version", lines[3]);
+    }
+}
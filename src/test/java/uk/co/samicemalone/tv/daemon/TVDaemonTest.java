@@ -0,0 +1,117 @@
+package uk.co.samicemalone.tv.daemon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.Version;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TVDaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TVDaemon daemon;
+    private Thread daemonThread;
+    private File tokenFile;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @Before
+    public void setUp() throws Exception {
+        tokenFile = new File(folder.getRoot(), "daemon.token");
+        daemon = new TVDaemon(0, tokenFile);
+        daemon.start();
+        daemonThread = new Thread(daemon::serve);
+        daemonThread.start();
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(daemonThread.isAlive()) {
+            TVDaemon.request(daemon.getPort(), tokenFile, new String[] { "--kill" }, new PrintStream(out), new PrintStream(err));
+        }
+        daemonThread.join(5000);
+    }
+
+    @Test
+    public void testRequest() throws Exception {
+        int exitCode = TVDaemon.request(daemon.getPort(), tokenFile, new String[] { "--version" }, new PrintStream(out), new PrintStream(err));
+        assertEquals(ExitCode.SUCCESS, exitCode);
+        assertEquals(Version.VERSION, out.toString(StandardCharsets.UTF_8.name()).trim());
+    }
+
+    @Test
+    public void testRelativePathFromClientWorkingDirectory() throws Exception {
+        File clientDirectory = folder.newFolder("client");
+        File episode = new File(clientDirectory, "ep.mkv");
+        assertTrue(episode.createNewFile());
+        // the file only exists relative to the client, not the daemon
+        assertFalse(new File("ep.mkv").exists());
+        String[] args = new String[] { "-f", "./ep.mkv", "-l" };
+        int exitCode = TVDaemon.request(daemon.getPort(), tokenFile, clientDirectory.getAbsolutePath(), args, new PrintStream(out), new PrintStream(err));
+        assertEquals(ExitCode.SUCCESS, exitCode);
+        assertEquals(episode.getName(), out.toString(StandardCharsets.UTF_8.name()).trim());
+    }
+
+    @Test
+    public void testTokenTooLong() throws Exception {
+        int tokenLength = Files.readAllBytes(tokenFile.toPath()).length;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            // one byte more than the token, without the NUL terminator
+            byte[] request = new byte[tokenLength + 1];
+            Arrays.fill(request, (byte) 'a');
+            socket.getOutputStream().write(request);
+            socket.getOutputStream().flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertEquals("X" + ExitCode.DAEMON_ERROR, reader.readLine());
+        }
+        // the daemon still serves requests
+        int exitCode = TVDaemon.request(daemon.getPort(), tokenFile, new String[] { "--version" }, new PrintStream(out), new PrintStream(err));
+        assertEquals(ExitCode.SUCCESS, exitCode);
+    }
+
+    @Test
+    public void testInvalidToken() throws Exception {
+        File invalidTokenFile = folder.newFile();
+        Files.write(invalidTokenFile.toPath(), "invalid".getBytes(StandardCharsets.UTF_8));
+        int exitCode = TVDaemon.request(daemon.getPort(), invalidTokenFile, new String[] { "--version" }, new PrintStream(out), new PrintStream(err));
+        assertEquals(ExitCode.DAEMON_ERROR, exitCode);
+        assertEquals("", out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testKill() throws Exception {
+        int exitCode = TVDaemon.request(daemon.getPort(), tokenFile, new String[] { "--kill" }, new PrintStream(out), new PrintStream(err));
+        assertEquals(ExitCode.SUCCESS, exitCode);
+        daemonThread.join(5000);
+        assertFalse(daemonThread.isAlive());
+        assertFalse(tokenFile.exists());
+    }
+
+    @Test
+    public void testDaemonAlreadyRunning() throws Exception {
+        int exitCode = TVDaemon.request(daemon.getPort(), tokenFile, new String[] { "--daemon" }, new PrintStream(out), new PrintStream(err));
+        assertEquals(ExitCode.UNEXPECTED_ARGUMENT, exitCode);
+        assertTrue(daemonThread.isAlive());
+    }
+}
@@ -88,8 +88,19 @@ public class ConfigParserTest {
         assertEquals(result.getTraktAuthFile(), "/path/to/trakt.auth");
         assertTrue(result.isTraktEnabled());
         assertTrue(result.isTraktUseCheckins());
+        assertEquals(result.getDaemonPort(), 5000);
+        assertEquals(result.getMediainfoProcesses(), 2);
+        assertEquals(result.getPlaylistFormat(), PlaylistWriter.Format.XSPF);
+        assertEquals(result.getPlayerRemoteControlPort(), 4222);
         assertArrayEquals(result.getPlayerArguments(), arg("--arg", "val"));
         assertEquals(result.getSourceFolders(), Arrays.asList(arg("/path/to/source1", "/path/to/source2")));
+        assertEquals(result.getTVDBProfile().getJournalMode(), "DELETE");
+        assertEquals(result.getTVDBProfile().getSynchronous(), "FULL");
+        assertEquals(result.getTVDBProfile().getMmapSize(), 0);
+        assertEquals(result.getTVDBProfile().getCacheSize(), -2000);
+        assertEquals(result.getTVDBProfile().getBusyTimeout(), 10000);
+        assertEquals(result.getTVDBProfile().getBusyRetries(), 0);
+        assertEquals(result.getTVDBProfile().getTempStore(), "FILE");
     }
     
     /**
@@ -99,6 +110,17 @@ public class ConfigParserTest {
     public void testParseInvalid() throws Exception {
         String[] configs = new String[] {
             "noequals",
+            "DAEMON_PORT=port",
+            "MEDIAINFO_PROCESSES=many",
+            "PLAYLIST_FORMAT=pls",
+            "PLAYER_RC_PORT=vlc",
+            "TVDB_JOURNAL_MODE=fast",
+            "TVDB_SYNCHRONOUS=sometimes",
+            "TVDB_MMAP_SIZE=-1",
+            "TVDB_CACHE_SIZE=big",
+            "TVDB_BUSY_TIMEOUT=-5",
+            "TVDB_BUSY_RETRIES=x",
+            "TVDB_TEMP_STORE=disk",
         };
         for(String config : configs) {
             try {
@@ -118,14 +140,25 @@ public class ConfigParserTest {
         sb.append("SOURCE=/path/to/source1\n");
         sb.append("SOURCE=/path/to/source2\n");
         sb.append("\tMEDIAINFO_BINARY=/path/to/mediainfo\n");
+        sb.append("MEDIAINFO_PROCESSES=2\n");
         sb.append(" LIBRARY_PATH=TV.library-ms\n");
         sb.append("PLAYER=stdout\n");
         sb.append("PLAYER_EXECUTABLE=/path/to/executable\n");
         sb.append("PLAYER_ARGUMENTS=--arg\n");
         sb.append("PLAYER_ARGUMENTS=val\n");
+        sb.append("PLAYLIST_FORMAT=xspf\n");
+        sb.append("PLAYER_RC_PORT=4222\n");
         sb.append("ENABLE_TRAKT=true\n");
         sb.append("TRAKT_AUTH_FILE=/path/to/trakt.auth\n");
         sb.append("TRAKT_USE_CHECKINS=true\n");
+        sb.append("DAEMON_PORT=5000\n");
+        sb.append("TVDB_JOURNAL_MODE=delete\n");
+        sb.append("TVDB_SYNCHRONOUS=full\n");
+        sb.append("TVDB_MMAP_SIZE=0\n");
+        sb.append("TVDB_CACHE_SIZE=-2000\n");
+        sb.append("TVDB_BUSY_TIMEOUT=10000\n");
+        sb.append("TVDB_BUSY_RETRIES=0\n");
+        sb.append("TVDB_TEMP_STORE=file\n");
         return sb.toString();
     }
     
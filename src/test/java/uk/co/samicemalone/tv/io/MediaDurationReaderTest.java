@@ -0,0 +1,171 @@
+package uk.co.samicemalone.tv.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class MediaDurationReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMp4Duration() throws IOException {
+        ByteBuffer mvhd = ByteBuffer.allocate(100);
+        mvhd.put(0, (byte) 0);
+        mvhd.putInt(12, 1000);
+        mvhd.putInt(16, 1325500);
+        byte[] file = concat(
+            mp4Box("ftyp", "isom".getBytes(StandardCharsets.US_ASCII)),
+            mp4Box("mdat", new byte[4096]),
+            mp4Box("moov", mp4Box("mvhd", mvhd.array()))
+        );
+        assertEquals(1325500, MediaDurationReader.readDuration(write("episode.mp4", file)));
+    }
+
+    @Test
+    public void testMp4DurationVersion1() throws IOException {
+        ByteBuffer mvhd = ByteBuffer.allocate(112);
+        mvhd.put(0, (byte) 1);
+        mvhd.putInt(20, 90000);
+        mvhd.putLong(24, 90000L * 2700);
+        byte[] file = concat(
+            mp4Box("ftyp", "qt  ".getBytes(StandardCharsets.US_ASCII)),
+            mp4Box("moov", concat(mp4Box("udta", new byte[8]), mp4Box("mvhd", mvhd.array()))),
+            mp4Box("mdat", new byte[16])
+        );
+        assertEquals(2700000, MediaDurationReader.readDuration(write("episode.mov", file)));
+    }
+
+    @Test
+    public void testMatroskaDuration() throws IOException {
+        byte[] info = concat(
+            ebml(0x2AD7B1, new byte[] { 0x0F, 0x42, 0x40 }),
+            ebml(0x4489, ByteBuffer.allocate(8).putDouble(1440123.0).array())
+        );
+        byte[] file = concat(
+            ebml(0x1A45DFA3, ebml(0x4282, "matroska".getBytes(StandardCharsets.US_ASCII))),
+            ebml(0x18538067, concat(ebml(0x114D9B74, new byte[12]), ebml(0x1549A966, info)))
+        );
+        assertEquals(1440123, MediaDurationReader.readDuration(write("episode.mkv", file)));
+    }
+
+    @Test
+    public void testMatroskaFloatDuration() throws IOException {
+        byte[] info = ebml(0x4489, ByteBuffer.allocate(4).putFloat(60000f).array());
+        byte[] file = concat(
+            ebml(0x1A45DFA3, ebml(0x4282, "webm".getBytes(StandardCharsets.US_ASCII))),
+            ebml(0x18538067, ebml(0x1549A966, info))
+        );
+        assertEquals(60000, MediaDurationReader.readDuration(write("episode.webm", file)));
+    }
+
+    @Test
+    public void testMatroskaClusterBeforeInfo() throws IOException {
+        byte[] file = concat(
+            ebml(0x1A45DFA3, ebml(0x4282, "matroska".getBytes(StandardCharsets.US_ASCII))),
+            ebml(0x18538067, ebml(0x1F43B675, new byte[32]))
+        );
+        assertEquals(MediaDurationReader.UNKNOWN_DURATION, MediaDurationReader.readDuration(write("episode.mkv", file)));
+    }
+
+    @Test
+    public void testAviDuration() throws IOException {
+        ByteBuffer avih = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+        avih.putInt(0, 40000);
+        avih.putInt(16, 32500);
+        byte[] hdrl = concat("hdrl".getBytes(StandardCharsets.US_ASCII), riffChunk("avih", avih.array()));
+        byte[] file = riffChunk("RIFF", concat(
+            "AVI ".getBytes(StandardCharsets.US_ASCII),
+            riffChunk("LIST", hdrl),
+            riffChunk("LIST", concat("movi".getBytes(StandardCharsets.US_ASCII), new byte[64]))
+        ));
+        assertEquals(1300000, MediaDurationReader.readDuration(write("episode.avi", file)));
+    }
+
+    @Test
+    public void testOpenDmlAviDuration() throws IOException {
+        ByteBuffer avih = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+        avih.putInt(0, 40000);
+        avih.putInt(16, 100);
+        ByteBuffer dmlh = ByteBuffer.allocate(248).order(ByteOrder.LITTLE_ENDIAN);
+        dmlh.putInt(0, 50000);
+        byte[] odml = concat("odml".getBytes(StandardCharsets.US_ASCII), riffChunk("dmlh", dmlh.array()));
+        byte[] hdrl = concat(
+            "hdrl".getBytes(StandardCharsets.US_ASCII),
+            riffChunk("avih", avih.array()),
+            riffChunk("LIST", odml)
+        );
+        byte[] file = riffChunk("RIFF", concat("AVI ".getBytes(StandardCharsets.US_ASCII), riffChunk("LIST", hdrl)));
+        assertEquals(2000000, MediaDurationReader.readDuration(write("episode.avi", file)));
+    }
+
+    @Test
+    public void testUnknownFormat() throws IOException {
+        byte[] file = "this is not a media file".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(MediaDurationReader.UNKNOWN_DURATION, MediaDurationReader.readDuration(write("episode.txt", file)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        byte[] file = concat(mp4Box("ftyp", new byte[4]), mp4Box("moov", mp4Box("mvhd", new byte[100])));
+        byte[] truncated = new byte[file.length - 80];
+        System.arraycopy(file, 0, truncated, 0, truncated.length);
+        MediaDurationReader.readDuration(write("episode.mp4", truncated));
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            out.write(array, 0, array.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] mp4Box(String type, byte[] content) {
+        ByteBuffer box = ByteBuffer.allocate(8 + content.length);
+        box.putInt(8 + content.length);
+        box.put(type.getBytes(StandardCharsets.US_ASCII));
+        box.put(content);
+        return box.array();
+    }
+
+    private static byte[] riffChunk(String id, byte[] content) {
+        ByteBuffer chunk = ByteBuffer.allocate(8 + content.length + (content.length & 1)).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.put(id.getBytes(StandardCharsets.US_ASCII));
+        chunk.putInt(content.length);
+        chunk.put(content);
+        return chunk.array();
+    }
+
+    private static byte[] ebml(int id, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int idLength = id > 0xFFFFFF ? 4 : id > 0xFFFF ? 3 : id > 0xFF ? 2 : 1;
+        for (int i = idLength - 1; i >= 0; i--) {
+            out.write(id >>> (i * 8));
+        }
+        // 8 byte size vint
+        out.write(0x01);
+        for (int i = 6; i >= 0; i--) {
+            out.write((int) ((long) content.length >>> (i * 8)));
+        }
+        out.write(content, 0, content.length);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,66 @@
+package uk.co.samicemalone.tv.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlaylistWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteM3u8() throws Exception {
+        File s01e01 = new File(folder.getRoot(), "Scrubs/Season 1/s01e01.mkv");
+        File s01e02 = new File(folder.getRoot(), "Scrubs/Season 1/s01e02.mkv");
+        File playlist = new PlaylistWriter(PlaylistWriter.Format.M3U8, folder.getRoot()).write(Arrays.asList(s01e01, s01e02));
+        assertTrue(playlist.getName().endsWith(".m3u8"));
+        List<String> lines = Files.readAllLines(playlist.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(
+            "#EXTM3U",
+            "#EXTINF:-1,s01e01.mkv",
+            s01e01.getAbsolutePath(),
+            "#EXTINF:-1,s01e02.mkv",
+            s01e02.getAbsolutePath()
+        ), lines);
+    }
+
+    @Test
+    public void testWriteXspf() throws Exception {
+        File episode = new File(folder.getRoot(), "Law & Order/s01e01.mkv");
+        File playlist = new PlaylistWriter(PlaylistWriter.Format.XSPF, folder.getRoot()).write(Arrays.asList(episode));
+        assertTrue(playlist.getName().endsWith(".xspf"));
+        String xspf = new String(Files.readAllBytes(playlist.toPath()), StandardCharsets.UTF_8);
+        assertTrue(xspf.contains("<location>" + episode.toURI().toASCIIString().replace("&", "&amp;") + "</location>"));
+        assertTrue(xspf.contains("<title>s01e01.mkv</title>"));
+        assertFalse(xspf.contains("Law & Order"));
+    }
+
+    @Test
+    public void testStalePlaylistsDeleted() throws Exception {
+        File stale = folder.newFile("tv-playlist-stale.m3u8");
+        Files.setLastModifiedTime(stale.toPath(), FileTime.fromMillis(System.currentTimeMillis() - 2 * 60 * 60 * 1000));
+        File recent = folder.newFile("tv-playlist-recent.m3u8");
+        new PlaylistWriter(PlaylistWriter.Format.M3U8, folder.getRoot()).write(Arrays.asList(new File("s01e01.mkv")));
+        assertFalse(stale.exists());
+        assertTrue(recent.exists());
+    }
+
+    @Test
+    public void testFormatFromExtension() {
+        assertEquals(PlaylistWriter.Format.M3U8, PlaylistWriter.Format.fromExtension("M3U8"));
+        assertEquals(PlaylistWriter.Format.XSPF, PlaylistWriter.Format.fromExtension("xspf"));
+        assertEquals(null, PlaylistWriter.Format.fromExtension("pls"));
+    }
+}
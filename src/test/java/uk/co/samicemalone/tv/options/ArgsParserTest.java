@@ -37,6 +37,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import uk.co.samicemalone.tv.MockFileSystem;
+import uk.co.samicemalone.tv.Timings;
 import uk.co.samicemalone.tv.action.Action;
 import uk.co.samicemalone.tv.exception.FileNotFoundException;
 import uk.co.samicemalone.tv.exception.InvalidArgumentException;
@@ -52,6 +53,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -201,6 +203,29 @@ public class ArgsParserTest {
         assertEquals(RandomFilter.ALL, ArgsParser.parse(arg("Scrubs", "s$", "-r", "all")).getRandomCount());
     }
 
+    /**
+     * Test of parse method, of class ArgsParser.
+     */
+    @Test
+    public void testParseTimings() throws Exception {
+        assertNull(ArgsParser.parse(arg("Scrubs", "s$")).getTimingsFormat());
+        assertEquals(Timings.FORMAT_TEXT, ArgsParser.parse(arg("Scrubs", "s$", "--timings")).getTimingsFormat());
+        assertEquals(Timings.FORMAT_JSON, ArgsParser.parse(arg("Scrubs", "s$", "--timings", "json")).getTimingsFormat());
+        Arguments args = ArgsParser.parse(arg("--timings", "Scrubs", "s$"));
+        assertEquals(Timings.FORMAT_TEXT, args.getTimingsFormat());
+        assertEquals("Scrubs", args.getShow());
+    }
+
+    @Test
+    public void testResolvePaths() throws Exception {
+        String[] args = ArgsParser.resolvePaths(arg("Scrubs", "s01", "--source", "tv", "--config", "/etc/tv.conf", "-u", "user"), "/home/user");
+        assertEquals(Arrays.asList("Scrubs", "s01", "--source", "/home/user/tv", "--config", "/etc/tv.conf", "-u", "user"), Arrays.asList(args));
+        args = ArgsParser.resolvePaths(arg("-f", "ep.mkv", "-q"), "/home/user/");
+        assertEquals(Arrays.asList("-f", "/home/user/ep.mkv", "-q"), Arrays.asList(args));
+        args = ArgsParser.resolvePaths(arg("--batch", Arguments.BATCH_STDIN), "/home/user");
+        assertEquals(Arrays.asList("--batch", Arguments.BATCH_STDIN), Arrays.asList(args));
+    }
+
     /**
      * Test of parse method, of class ArgsParser.
      */
@@ -291,6 +316,25 @@ public class ArgsParserTest {
         }
     }
     
+    /**
+     * Test of parse method with the --up-next option, of class ArgsParser.
+     */
+    @Test
+    public void testParseUpNext() throws Exception {
+        Arguments args = ArgsParser.parse(arg("--up-next", "-l"));
+        assertEquals(Arguments.DEFAULT_UP_NEXT_COUNT, args.getUpNextCount());
+        assertEquals(Action.LIST, args.getMediaAction());
+        ArgsParser.validate(args);
+        args = ArgsParser.parse(arg("-u", "user", "--up-next", "3"));
+        assertEquals(3, args.getUpNextCount());
+        assertEquals("user", args.getUser());
+        ArgsParser.validate(args);
+        try {
+            ArgsParser.validate(ArgsParser.parse(arg("--up-next", "--seen")));
+            fail();
+        } catch (InvalidArgumentException ex) {}
+    }
+    
     private void assertArgumentsInvalid(String[] args) throws AssertionError {
         try {
             ArgsParser.validate(ArgsParser.parse(args));
@@ -0,0 +1,60 @@
+package uk.co.samicemalone.tv.player;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fake VLC RC interface that records the commands it receives
+ */
+public class FakeVLCServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<String> commands;
+    private final Thread thread;
+
+    public FakeVLCServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        commands = new CopyOnWriteArrayList<>();
+        thread = new Thread(this::serve);
+        thread.start();
+    }
+
+    private void serve() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                OutputStream out = socket.getOutputStream();
+                out.write("VLC media player 3.0.18 Vetinari\nCommand Line Interface initialized. Type `help' for help.\n> ".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    commands.add(line);
+                    out.write("> ".getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<String> getCommands() {
+        return commands;
+    }
+
+    @Override
+    public void close() throws Exception {
+        serverSocket.close();
+        thread.join(5000);
+    }
+}
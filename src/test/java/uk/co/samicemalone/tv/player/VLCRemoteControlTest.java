@@ -0,0 +1,61 @@
+package uk.co.samicemalone.tv.player;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VLCRemoteControlTest {
+
+    private static final File S01E01 = new File("/tv/Scrubs/Season 1/s01e01.mkv");
+    private static final File S01E02 = new File("/tv/Scrubs/Season 1/s01e02.mkv");
+
+    @Test
+    public void testPlay() throws Exception {
+        try (FakeVLCServer server = new FakeVLCServer()) {
+            assertTrue(new VLCRemoteControl(server.getPort()).play(new File[] { S01E01, S01E02 }));
+            assertEquals(Arrays.asList(
+                "clear",
+                "add " + S01E01.getAbsoluteFile().toURI().toASCIIString(),
+                "enqueue " + S01E02.getAbsoluteFile().toURI().toASCIIString()
+            ), server.getCommands());
+        }
+    }
+
+    @Test
+    public void testEnqueue() throws Exception {
+        try (FakeVLCServer server = new FakeVLCServer()) {
+            assertTrue(new VLCRemoteControl(server.getPort()).enqueue(new File[] { S01E01 }));
+            assertEquals(Arrays.asList(
+                "enqueue " + S01E01.getAbsoluteFile().toURI().toASCIIString(),
+                "play"
+            ), server.getCommands());
+        }
+    }
+
+    @Test
+    public void testVLCUsesRunningInstance() throws Exception {
+        try (FakeVLCServer server = new FakeVLCServer()) {
+            VLC vlc = new VLC();
+            vlc.setExecutableFile(new File("/does/not/exist/vlc"));
+            vlc.setRemoteControlPort(server.getPort());
+            vlc.enqueue(new File[] { S01E01 });
+            assertEquals(2, server.getCommands().size());
+        }
+    }
+
+    @Test
+    public void testNoInstanceListening() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        assertFalse(new VLCRemoteControl(port).enqueue(new File[] { S01E01 }));
+    }
+}
@@ -0,0 +1,73 @@
+package uk.co.samicemalone.tv.plugin;
+
+import org.junit.Test;
+import uk.co.samicemalone.tv.action.Action;
+import uk.co.samicemalone.tv.exception.InvalidArgumentException;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.selector.EpisodeExpressionParser;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PluginActivationTest {
+
+    private static Arguments arguments(int action, String episodes) throws InvalidArgumentException {
+        Arguments args = new Arguments();
+        args.setShow("Scrubs");
+        args.setMediaAction(action);
+        if(episodes != null) {
+            args.setEpisode(episodes);
+            args.setEpisodeExpression(EpisodeExpressionParser.parse(episodes));
+        }
+        return args;
+    }
+
+    @Test
+    public void testIsActivatedByAction() throws Exception {
+        PluginActivation activation = new PluginActivation().onActions(Action.SEEN, Action.UNSEEN);
+        assertTrue(activation.isActivatedBy(arguments(Action.SEEN, "s01e01")));
+        assertTrue(activation.isActivatedBy(arguments(Action.UNSEEN, "s01")));
+        assertFalse(activation.isActivatedBy(arguments(Action.LIST, "s01")));
+    }
+
+    @Test
+    public void testIsActivatedByExpressionType() throws Exception {
+        assertTrue(PointerPlugin.ACTIVATION.isActivatedBy(arguments(Action.LIST, "next")));
+        assertTrue(PointerPlugin.ACTIVATION.isActivatedBy(arguments(Action.COUNT, "cur-")));
+        assertTrue(PointerPlugin.ACTIVATION.isActivatedBy(arguments(Action.PLAY, "pilot")));
+        assertTrue(PointerPlugin.ACTIVATION.isActivatedBy(arguments(Action.PLAY, "s01e02")));
+        assertFalse(PointerPlugin.ACTIVATION.isActivatedBy(arguments(Action.PLAY, "s01")));
+        assertFalse(PointerPlugin.ACTIVATION.isActivatedBy(arguments(Action.LIST, "s01e01-s01e04")));
+        Arguments upNext = arguments(Action.LIST, null);
+        upNext.setUpNextCount(5);
+        assertFalse(PointerPlugin.ACTIVATION.isActivatedBy(upNext));
+    }
+
+    @Test
+    public void testIsActivatedByUpNextPlay() throws Exception {
+        Arguments play = arguments(Action.PLAY, null);
+        play.setUpNextCount(5);
+        assertTrue(PointerPlugin.ACTIVATION.isActivatedBy(play));
+        assertTrue(TraktPlugin.ACTIVATION.isActivatedBy(play));
+        Arguments enqueue = arguments(Action.ENQUEUE, null);
+        enqueue.setUpNextCount(5);
+        assertFalse(PointerPlugin.ACTIVATION.isActivatedBy(enqueue));
+        Arguments ignored = arguments(Action.PLAY, null);
+        ignored.setUpNextCount(5);
+        ignored.setIgnore(true);
+        assertFalse(PointerPlugin.ACTIVATION.isActivatedBy(ignored));
+    }
+
+    @Test
+    public void testIsActivatedByFlag() throws Exception {
+        assertTrue(TraktPlugin.ACTIVATION.isActivatedBy(arguments(Action.PLAY, "next")));
+        Arguments ignored = arguments(Action.PLAY, "next");
+        ignored.setIgnore(true);
+        assertFalse(TraktPlugin.ACTIVATION.isActivatedBy(ignored));
+        Arguments traktPointer = arguments(Action.LIST, "next");
+        traktPointer.setTraktPointer(true);
+        assertTrue(TraktPlugin.ACTIVATION.isActivatedBy(traktPointer));
+        assertFalse(TraktPlugin.ACTIVATION.isActivatedBy(arguments(Action.ENQUEUE, "next")));
+        assertFalse(TraktPlugin.ACTIVATION.isActivatedBy(arguments(Action.LENGTH, "s01")));
+    }
+}
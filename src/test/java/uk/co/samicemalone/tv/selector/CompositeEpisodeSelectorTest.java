@@ -0,0 +1,69 @@
+package uk.co.samicemalone.tv.selector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.FileSystemEnvironment;
+import uk.co.samicemalone.tv.MockFileSystem;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.model.Arguments;
+import uk.co.samicemalone.tv.options.ArgsParser;
+import uk.co.samicemalone.tv.options.UnixEnvironment;
+import uk.co.samicemalone.tv.options.WindowsEnvironment;
+import uk.co.samicemalone.tv.util.AssertionUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompositeEpisodeSelectorTest extends FileSystemEnvironment {
+
+    private CompositeEpisodeSelector selector;
+
+    @Before
+    public void setUp() throws Exception {
+        TVPath tvPath = new StandardTVLibrary(MockFileSystem.getSourceFolders());
+        selector = new CompositeEpisodeSelector(tvPath);
+
+        TV.ENV = WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+    }
+
+    @Test
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("s01e01-s01e05,s03,!s03e07").getType(), selector.getExpressionType());
+    }
+
+    @Test
+    public void findMatches() throws Exception {
+        TV.ENV.setArguments(ArgsParser.parse(arg("Scrubs", "s03,s01e01-s01e03,s01e02,!s03e02-s03e12")));
+        List<EpisodeMatch> expectedMatches = new ArrayList<>();
+        expectedMatches.addAll(MockFileSystem.getEpisodeRangeMatches("Scrubs", 1, 1, 3));
+        expectedMatches.add(MockFileSystem.getEpisodeMatch("Scrubs", 3, 1));
+        assertMatches(expectedMatches, selector.findMatches());
+    }
+
+    @Test
+    public void findMatchesExcludeOnly() throws Exception {
+        TV.ENV.setArguments(ArgsParser.parse(arg("Scrubs", "!s01-s02,!s03e02-")));
+        List<EpisodeMatch> expectedMatches = new ArrayList<>();
+        expectedMatches.add(MockFileSystem.getEpisodeMatch("Scrubs", 3, 1));
+        assertMatches(expectedMatches, selector.findMatches());
+    }
+
+    private void assertMatches(List<EpisodeMatch> expectedMatches, List<EpisodeMatch> actualMatches) throws IOException {
+        assertEquals(expectedMatches.size(), actualMatches.size());
+        for(int i = 0; i < expectedMatches.size(); i++) {
+            AssertionUtil.assertEpisodeMatchEqual(expectedMatches.get(i), actualMatches.get(i));
+        }
+    }
+}
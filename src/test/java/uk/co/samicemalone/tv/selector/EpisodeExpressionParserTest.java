@@ -0,0 +1,88 @@
+package uk.co.samicemalone.tv.selector;
+
+import org.junit.Test;
+import uk.co.samicemalone.libtv.model.EpisodeNavigator;
+import uk.co.samicemalone.libtv.model.EpisodeRange;
+import uk.co.samicemalone.tv.ExitCode;
+import uk.co.samicemalone.tv.exception.InvalidArgumentException;
+import uk.co.samicemalone.tv.selector.EpisodeExpression.Type;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EpisodeExpressionParserTest {
+
+    @Test
+    public void testParseTypes() throws Exception {
+        assertEquals(Type.ALL, EpisodeExpressionParser.parse("all").getType());
+        assertEquals(Type.PILOT, EpisodeExpressionParser.parse("pilot").getType());
+        assertEquals(Type.LATEST, EpisodeExpressionParser.parse("latest").getType());
+        assertEquals(Type.LATEST_SEASON, EpisodeExpressionParser.parse("s$").getType());
+        assertEquals(Type.SEASON, EpisodeExpressionParser.parse("s01").getType());
+        assertEquals(Type.SEASONS_FROM, EpisodeExpressionParser.parse("s02-").getType());
+        assertEquals(Type.SEASON_RANGE, EpisodeExpressionParser.parse("s01-s03").getType());
+        assertEquals(Type.EPISODE, EpisodeExpressionParser.parse("s01e05").getType());
+        assertEquals(Type.EPISODES_FROM, EpisodeExpressionParser.parse("s02e06-").getType());
+        assertEquals(Type.EPISODE_RANGE, EpisodeExpressionParser.parse("s02e10-s03e03").getType());
+        assertEquals(Type.POINTER, EpisodeExpressionParser.parse("cur").getType());
+        assertEquals(Type.POINTER, EpisodeExpressionParser.parse("current").getType());
+        assertEquals(Type.POINTER_FROM, EpisodeExpressionParser.parse("next-").getType());
+    }
+
+    @Test
+    public void testParseValues() throws Exception {
+        EpisodeExpression episode = EpisodeExpressionParser.parse("s02e01");
+        assertEquals(2, episode.getSeason());
+        assertEquals(1, episode.getEpisode());
+
+        EpisodeExpression seasons = EpisodeExpressionParser.parse("s01-s03");
+        assertEquals(1, seasons.getSeasonRange().getStart());
+        assertEquals(3, seasons.getSeasonRange().getEnd());
+
+        EpisodeRange range = EpisodeExpressionParser.parse("s01e12-s02e04").getEpisodeRange();
+        assertEquals(1, range.getStartSeason());
+        assertEquals(12, range.getStartEpisode());
+        assertEquals(2, range.getEndSeason());
+        assertEquals(4, range.getEndEpisode());
+
+        assertEquals(EpisodeNavigator.Pointer.PREV, EpisodeExpressionParser.parse("prev").getPointer());
+        assertEquals(EpisodeNavigator.Pointer.NEXT, EpisodeExpressionParser.parse("next-").getPointer());
+        assertNull(EpisodeExpressionParser.parse("s01").getPointer());
+        assertEquals("s01e12-s02e04", EpisodeExpressionParser.parse("s01e12-s02e04").toString());
+    }
+
+    @Test
+    public void testParseComposite() throws Exception {
+        EpisodeExpression expression = EpisodeExpressionParser.parse("s01e01-s01e05,s03,!s03e07");
+        assertEquals(Type.COMPOSITE, expression.getType());
+        assertEquals(2, expression.getIncluded().size());
+        assertEquals(Type.EPISODE_RANGE, expression.getIncluded().get(0).getType());
+        assertEquals(Type.SEASON, expression.getIncluded().get(1).getType());
+        assertEquals(1, expression.getExcluded().size());
+        assertEquals(Type.EPISODE, expression.getExcluded().get(0).getType());
+        assertEquals(7, expression.getExcluded().get(0).getEpisode());
+
+        EpisodeExpression excludeOnly = EpisodeExpressionParser.parse("!pilot");
+        assertEquals(Type.COMPOSITE, excludeOnly.getType());
+        assertTrue(excludeOnly.getIncluded().isEmpty());
+    }
+
+    @Test
+    public void testParseInvalid() {
+        String[] invalid = {
+            "", "s1", "s001", "S01", "s01e1", "s01e05-s02", "s01-s02e03", "s01--", "s$-", "e01",
+            "nex", "next--", "pilots", "all-", "s01 ", "previous",
+            ",", "s01,", ",s01", "s01,,s02", "!", "!!s01", "s01, s02", "s01,next", "!cur-"
+        };
+        for (String episodes : invalid) {
+            try {
+                EpisodeExpressionParser.parse(episodes);
+                fail("Expected " + episodes + " to be invalid");
+            } catch (InvalidArgumentException e) {
+                assertEquals(ExitCode.PARSE_EPISODES_FAILED, e.getExitCode());
+            }
+        }
+    }
+}
@@ -3,7 +3,9 @@ package uk.co.samicemalone.tv.selector;
 import com.j256.ormlite.support.ConnectionSource;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
 import uk.co.samicemalone.libtv.matcher.path.TVPath;
 import uk.co.samicemalone.libtv.model.EpisodeMatch;
@@ -19,16 +21,22 @@ import uk.co.samicemalone.tv.tvdb.TVDatabase;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
 
+import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class EpisodeNavigatorProgressSelectorTest extends FileSystemEnvironment {
 
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     private EpisodeNavigatorProgressSelector selector;
 
     private TVDatabase tvdb;
@@ -50,7 +58,7 @@ public class EpisodeNavigatorProgressSelectorTest extends FileSystemEnvironment
         tvdb.createOrUpdateShow(show);
         showProgress = new ShowProgress(show, "", 1, 1);
         showProgress.setWatchedAt(Instant.now());
-        tvdb.setShowProgress(null, showProgress.toEpisode());
+        tvdb.setShowProgress(showProgress.toEpisode());
     }
 
     @After
@@ -59,10 +67,10 @@ public class EpisodeNavigatorProgressSelectorTest extends FileSystemEnvironment
     }
 
     @Test
-    public void getSelector() {
+    public void getExpressionType() throws Exception {
         List<String> episodeSelectors = Arrays.asList("next", "cur", "prev");
         for (String episodeSelector : episodeSelectors) {
-            assertTrue(episodeSelector.matches(selector.getSelector()));
+            assertEquals(EpisodeExpressionParser.parse(episodeSelector).getType(), selector.getExpressionType());
         }
     }
 
@@ -76,4 +84,39 @@ public class EpisodeNavigatorProgressSelectorTest extends FileSystemEnvironment
         assertEquals(expectedMatch.getSeason(), actualMatch.getSeason());
         assertEquals(expectedMatch.getEpisode(), actualMatch.getEpisode());
     }
+
+    @Test
+    public void findMatchesStoredNext() throws Exception {
+        EpisodeMatch next = MockFileSystem.getEpisodeMatch("Friends", 1, 2);
+        long modified = next.getEpisodeFile().getParentFile().lastModified();
+        ShowProgress currentProgress = tvdb.getShowProgress(show, "");
+        tvdb.setShowProgress(currentProgress.toEpisode(), next, modified);
+
+        List<EpisodeMatch> actualMatches = selector.findMatches();
+        assertEquals(1, actualMatches.size());
+        assertEquals(next.getEpisodeFile(), actualMatches.get(0).getEpisodeFile());
+
+        ShowProgress progress = tvdb.getShowProgress(show, "");
+        List<String> sourceFolders = MockFileSystem.getSourceFolders();
+        assertEquals(next.getEpisodeFile(), EpisodeNavigatorProgressSelector.getStoredNextEpisode(progress, sourceFolders).getEpisodeFile());
+        tvdb.setShowProgress(progress.toEpisode(), next, modified - 1000);
+        assertNull(EpisodeNavigatorProgressSelector.getStoredNextEpisode(tvdb.getShowProgress(show, ""), sourceFolders));
+    }
+
+    @Test
+    public void storedNextIgnoredForShowInManySourceFolders() throws Exception {
+        EpisodeMatch next = MockFileSystem.getEpisodeMatch("Friends", 1, 2);
+        long modified = next.getEpisodeFile().getParentFile().lastModified();
+        ShowProgress currentProgress = tvdb.getShowProgress(show, "");
+        tvdb.setShowProgress(currentProgress.toEpisode(), next, modified);
+        ShowProgress progress = tvdb.getShowProgress(show, "");
+
+        // the rest of season 1 is in another source folder
+        File otherSource = temp.newFolder("source2");
+        assertTrue(new File(otherSource, "Friends/Season 1").mkdirs());
+        List<String> sourceFolders = Arrays.asList(MockFileSystem.getSourceFolders().get(0), otherSource.getAbsolutePath());
+        assertFalse(EpisodeNavigatorProgressSelector.isInSingleSourceFolder("Friends", sourceFolders));
+        assertNull(EpisodeNavigatorProgressSelector.getStoredNextEpisode(progress, sourceFolders));
+        assertTrue(EpisodeNavigatorProgressSelector.isInSingleSourceFolder("Scrubs", sourceFolders));
+    }
 }
@@ -20,7 +20,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class EpisodeRangeSelectorTest extends FileSystemEnvironment {
 
@@ -42,8 +41,8 @@ public class EpisodeRangeSelectorTest extends FileSystemEnvironment {
     }
 
     @Test
-    public void getSelector() {
-        assertTrue("s02e10-s03e03".matches(selector.getSelector()));
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("s02e10-s03e03").getType(), selector.getExpressionType());
     }
 
     @Test
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class LatestEpisodeProgressSelectorTest extends FileSystemEnvironment {
 
@@ -40,8 +39,8 @@ public class LatestEpisodeProgressSelectorTest extends FileSystemEnvironment {
     }
 
     @Test
-    public void getSelector() {
-        assertTrue("latest".matches(selector.getSelector()));
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("latest").getType(), selector.getExpressionType());
     }
 
     @Test
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class PilotEpisodeProgressSelectorTest extends FileSystemEnvironment {
 
@@ -40,8 +39,8 @@ public class PilotEpisodeProgressSelectorTest extends FileSystemEnvironment {
     }
 
     @Test
-    public void getSelector() {
-        assertTrue("pilot".matches(selector.getSelector()));
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("pilot").getType(), selector.getExpressionType());
     }
 
     @Test
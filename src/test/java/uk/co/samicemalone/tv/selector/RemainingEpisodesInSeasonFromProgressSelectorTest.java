@@ -26,7 +26,6 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class RemainingEpisodesInSeasonFromProgressSelectorTest extends FileSystemEnvironment {
 
@@ -51,7 +50,7 @@ public class RemainingEpisodesInSeasonFromProgressSelectorTest extends FileSyste
         tvdb.createOrUpdateShow(show);
         showProgress = new ShowProgress(show, "", 2, 8);
         showProgress.setWatchedAt(Instant.now());
-        tvdb.setShowProgress(null, showProgress.toEpisode());
+        tvdb.setShowProgress(showProgress.toEpisode());
     }
 
     @After
@@ -60,10 +59,10 @@ public class RemainingEpisodesInSeasonFromProgressSelectorTest extends FileSyste
     }
 
     @Test
-    public void getSelector() {
+    public void getExpressionType() throws Exception {
         List<String> episodeSelectors = Arrays.asList("next-", "cur-", "prev-");
         for (String episodeSelector : episodeSelectors) {
-            assertTrue(episodeSelector.matches(selector.getSelector()));
+            assertEquals(EpisodeExpressionParser.parse(episodeSelector).getType(), selector.getExpressionType());
         }
     }
 
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class RemainingEpisodesInShowSelectorTest extends FileSystemEnvironment {
 
@@ -41,8 +40,8 @@ public class RemainingEpisodesInShowSelectorTest extends FileSystemEnvironment {
     }
 
     @Test
-    public void getSelector() {
-        assertTrue("s02-".matches(selector.getSelector()));
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("s02-").getType(), selector.getExpressionType());
     }
 
     @Test
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class SeasonRangeSelectorTest extends FileSystemEnvironment {
 
@@ -41,8 +40,8 @@ public class SeasonRangeSelectorTest extends FileSystemEnvironment {
     }
 
     @Test
-    public void getSelector() {
-        assertTrue("s02-s03".matches(selector.getSelector()));
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("s02-s03").getType(), selector.getExpressionType());
     }
 
     @Test
@@ -18,7 +18,6 @@ import java.io.IOException;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
 
 public class SingleEpisodeProgressSelectorTest extends FileSystemEnvironment {
 
@@ -40,8 +39,8 @@ public class SingleEpisodeProgressSelectorTest extends FileSystemEnvironment {
     }
 
     @Test
-    public void getSelector() {
-        assertTrue("s01e05".matches(selector.getSelector()));
+    public void getExpressionType() throws Exception {
+        assertEquals(EpisodeExpressionParser.parse("s01e05").getType(), selector.getExpressionType());
     }
 
     @Test
@@ -0,0 +1,157 @@
+package uk.co.samicemalone.tv.selector;
+
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.libtv.matcher.path.TVPath;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.FileSystemEnvironment;
+import uk.co.samicemalone.tv.MockFileSystem;
+import uk.co.samicemalone.tv.TV;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.options.UnixEnvironment;
+import uk.co.samicemalone.tv.options.WindowsEnvironment;
+import uk.co.samicemalone.tv.tvdb.TVDatabase;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UpNextSelectorTest extends FileSystemEnvironment {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private UpNextSelector selector;
+
+    private TVDatabase tvdb;
+    private ConnectionSource source;
+
+    @Before
+    public void setUp() throws Exception {
+        TV.ENV = WindowsEnvironment.isWindows() ? new WindowsEnvironment() : new UnixEnvironment();
+        TVPath tvPath = new StandardTVLibrary(MockFileSystem.getSourceFolders());
+        tvdb = new TVDatabase();
+        selector = new UpNextSelector(tvPath, MockFileSystem.getSourceFolders(), tvdb, 2);
+        source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE);
+
+        Instant watchedAt = Instant.now();
+        setProgress("Scrubs", 2, 4, watchedAt.minusSeconds(300));
+        setProgress("Friends", MockFileSystem.NUM_SEASONS, MockFileSystem.NUM_EPISODES, watchedAt.minusSeconds(200));
+        setProgress("Modern Family", 1, MockFileSystem.NUM_EPISODES, watchedAt.minusSeconds(100));
+        setProgress("Not In Library", 1, 1, watchedAt);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        source.closeQuietly();
+    }
+
+    private void setProgress(String showName, int season, int episode, Instant watchedAt) throws Exception {
+        Show show = new Show(showName);
+        tvdb.createOrUpdateShow(show);
+        tvdb.setShowProgress(new Episode(showName, "", season, episode).setWatchedAt(watchedAt));
+    }
+
+    @Test
+    public void findMatches() throws Exception {
+        Map<ShowProgress, EpisodeMatch> upNext = selector.findMatches("", 10);
+        List<EpisodeMatch> actualMatches = new ArrayList<>(upNext.values());
+        assertEquals(2, actualMatches.size());
+        assertEquals("Modern Family", actualMatches.get(0).getShow());
+        assertEquals(2, actualMatches.get(0).getSeason());
+        assertEquals(1, actualMatches.get(0).getEpisode());
+        assertEquals("Scrubs", actualMatches.get(1).getShow());
+        assertEquals(2, actualMatches.get(1).getSeason());
+        assertEquals(5, actualMatches.get(1).getEpisode());
+    }
+
+    @Test
+    public void findMatchesLimit() throws Exception {
+        Map<ShowProgress, EpisodeMatch> upNext = selector.findMatches("", 1);
+        assertEquals(1, upNext.size());
+        assertEquals("Modern Family", upNext.keySet().iterator().next().getShow().getName());
+        assertEquals(0, selector.findMatches("other", 10).size());
+    }
+
+    /**
+     * Set the progress of a show with its next episode stored so the show
+     * can be selected without navigating
+     */
+    private void setProgressWithNext(String showName, Instant watchedAt) throws Exception {
+        File directory = temp.newFolder(showName);
+        EpisodeMatch next = new EpisodeMatch(showName, 1, 2);
+        next.setEpisodeFile(new File(directory, showName + ".s01e02.mkv"));
+        tvdb.createOrUpdateShow(new Show(showName));
+        Episode pointer = new Episode(showName, "window", 1, 1).setWatchedAt(watchedAt);
+        tvdb.setShowProgress(pointer, next, directory.lastModified());
+    }
+
+    @Test
+    public void findMatchesOnlyNavigatesTheLimit() throws Exception {
+        Instant watchedAt = Instant.now();
+        setProgressWithNext("Stored 1", watchedAt);
+        setProgressWithNext("Stored 2", watchedAt.minusSeconds(100));
+        tvdb.createOrUpdateShow(new Show("Navigated"));
+        tvdb.setShowProgress(new Episode("Navigated", "window", 1, 1).setWatchedAt(watchedAt.minusSeconds(200)));
+        Set<String> navigated = ConcurrentHashMap.newKeySet();
+        UpNextSelector limited = new UpNextSelector(new FailingTVPath(navigated), MockFileSystem.getSourceFolders(), tvdb, 4);
+        Map<ShowProgress, EpisodeMatch> upNext = limited.findMatches("window", 1);
+        assertEquals(1, upNext.size());
+        assertEquals("Stored 1", upNext.values().iterator().next().getShow());
+        assertTrue(navigated.isEmpty());
+    }
+
+    @Test
+    public void findMatchesSkipsFailedShows() throws Exception {
+        Instant watchedAt = Instant.now();
+        tvdb.createOrUpdateShow(new Show("Navigated"));
+        tvdb.setShowProgress(new Episode("Navigated", "window", 1, 1).setWatchedAt(watchedAt));
+        setProgressWithNext("Stored 1", watchedAt.minusSeconds(100));
+        Set<String> navigated = ConcurrentHashMap.newKeySet();
+        UpNextSelector failing = new UpNextSelector(new FailingTVPath(navigated), MockFileSystem.getSourceFolders(), tvdb, 2);
+        Map<ShowProgress, EpisodeMatch> upNext = failing.findMatches("window", 10);
+        assertEquals(1, upNext.size());
+        assertEquals("Stored 1", upNext.values().iterator().next().getShow());
+        assertTrue(navigated.contains("Navigated"));
+    }
+
+    /**
+     * TVPath that records the shows navigated and fails to list them
+     */
+    private static class FailingTVPath implements TVPath {
+
+        private final Set<String> navigated;
+
+        FailingTVPath(Set<String> navigated) {
+            this.navigated = navigated;
+        }
+
+        @Override
+        public Path getSeasonsPath(String show) {
+            navigated.add(show);
+            throw new UncheckedIOException(new IOException("unable to list " + show));
+        }
+
+        @Override
+        public Path getSeasonPath(String show, int season) {
+            return getSeasonsPath(show);
+        }
+    }
+}
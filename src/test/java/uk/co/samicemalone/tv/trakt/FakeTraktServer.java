@@ -0,0 +1,105 @@
+package uk.co.samicemalone.tv.trakt;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Trakt sync API. Records the path and the number of
+ * episodes of each request and responds as if every episode was synced.
+ */
+public class FakeTraktServer implements AutoCloseable {
+
+    private static final Pattern EPISODE_NUMBER = Pattern.compile("\"number\"\\s*:");
+
+    private final HttpServer server;
+    private final List<String> requestPaths = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> requestEpisodes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failAfter = new AtomicInteger(-1);
+
+    public FakeTraktServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/sync/history", this::handleSync);
+        server.start();
+    }
+
+    private void handleSync(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange.getRequestBody());
+        boolean isFailing = failAfter.get() >= 0 && requestPaths.size() >= failAfter.get();
+        int episodes = countEpisodes(body);
+        String response = "{\"added\":{\"episodes\":" + episodes + "},\"deleted\":{\"episodes\":" + episodes + "}}";
+        if(!isFailing) {
+            requestPaths.add(exchange.getRequestURI().getPath());
+            requestEpisodes.add(episodes);
+        }
+        byte[] bytes = (isFailing ? "{}" : response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(isFailing ? 500 : 201, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Count the episodes in a sync request body. Season numbers are also
+     * serialized as "number" so they are subtracted.
+     */
+    private static int countEpisodes(String body) {
+        int numbers = 0;
+        Matcher m = EPISODE_NUMBER.matcher(body);
+        while (m.find()) {
+            numbers++;
+        }
+        int seasons = body.split("\"episodes\"\\s*:", -1).length - 1;
+        return numbers - seasons;
+    }
+
+    /**
+     * Respond with an error to every request after the given number of
+     * successful requests
+     * @param requests number of requests to accept
+     */
+    public void failAfter(int requests) {
+        failAfter.set(requests);
+    }
+
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public List<String> getRequestPaths() {
+        return requestPaths;
+    }
+
+    public List<Integer> getRequestEpisodes() {
+        return requestEpisodes;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
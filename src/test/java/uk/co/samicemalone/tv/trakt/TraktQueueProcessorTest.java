@@ -0,0 +1,159 @@
+package uk.co.samicemalone.tv.trakt;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.table.TableUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.samicemalone.tv.exception.TraktException;
+import uk.co.samicemalone.tv.tvdb.AbstractTVDatabaseTest;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.TraktShowProgressQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TraktQueueProcessorTest extends AbstractTVDatabaseTest {
+
+    private FakeTraktServer server;
+    private Dao<TraktShowProgressQueue, Integer> dao;
+    private Show show;
+    private long watchedAt;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        server = new FakeTraktServer();
+        dao = DaoManager.createDao(source, TraktShowProgressQueue.class);
+        TableUtils.createTableIfNotExists(source, TraktShowProgressQueue.class);
+        show = new Show("Scrubs");
+        show.setTVDBId(76156);
+        tvdb.createOrUpdateShow(show);
+        watchedAt = System.currentTimeMillis();
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        server.close();
+        super.tearDown();
+    }
+
+    /**
+     * Add a queue item for each episode of season 1 from 1 to count
+     */
+    static void addQueueItems(Dao<TraktShowProgressQueue, Integer> dao, Show show, String markType, int count, long watchedAt) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            TraktShowProgressQueue item = new TraktShowProgressQueue();
+            item.setShow(show);
+            item.setSeason(1);
+            item.setEpisode(i);
+            item.setMarkType(markType);
+            item.setWatchedAt(new Date(watchedAt + i * 1000L));
+            dao.create(item);
+        }
+    }
+
+    private TraktQueueProcessor newProcessor(int chunkSize) {
+        return new TraktQueueProcessor(new TraktClient(server.getApiUrl(), null), tvdb, dao, chunkSize);
+    }
+
+    @Test
+    public void testProcessInChunks() throws Exception {
+        addQueueItems(dao, show, TraktShowProgressQueue.SEEN, 25, watchedAt);
+        assertEquals(25, newProcessor(10).process());
+        assertEquals(Arrays.asList(10, 10, 5), server.getRequestEpisodes());
+        assertEquals(0, dao.countOf());
+    }
+
+    @Test
+    public void testProcessEmptyQueue() throws Exception {
+        assertEquals(0, newProcessor(10).process());
+        assertEquals(0, server.getRequestPaths().size());
+    }
+
+    @Test
+    public void testFailedChunkIsKept() throws Exception {
+        addQueueItems(dao, show, TraktShowProgressQueue.SEEN, 25, watchedAt);
+        server.failAfter(1);
+        try {
+            newProcessor(10).process();
+            fail();
+        } catch (TraktException e) {}
+        assertEquals(15, dao.countOf());
+        List<TraktShowProgressQueue> remaining = dao.queryBuilder().orderBy("watchedAt", true).query();
+        assertEquals(11, remaining.get(0).getEpisode());
+    }
+
+    @Test
+    public void testUnseenBatchRemovesFromHistory() throws Exception {
+        addQueueItems(dao, show, TraktShowProgressQueue.SEEN, 3, watchedAt);
+        addQueueItems(dao, show, TraktShowProgressQueue.UNSEEN, 2, watchedAt + 10000);
+        assertEquals(5, newProcessor(10).process());
+        assertEquals(Arrays.asList("/sync/history", "/sync/history/remove"), server.getRequestPaths());
+        assertEquals(Arrays.asList(1, 2), server.getRequestEpisodes());
+        assertEquals(0, dao.countOf());
+    }
+
+    @Test
+    public void testRedundantItemsDeletedInChunks() throws Exception {
+        addQueueItems(dao, show, TraktShowProgressQueue.SEEN, 25, watchedAt);
+        addQueueItems(dao, show, TraktShowProgressQueue.UNSEEN, 25, watchedAt + 100000);
+        assertEquals(50, newProcessor(10).process());
+        assertEquals(Arrays.asList(10, 10, 5), server.getRequestEpisodes());
+        assertEquals(0, dao.countOf());
+    }
+
+    @Test
+    public void testRemoveRedundantItems() {
+        List<TraktShowProgressQueue> queue = new ArrayList<>(Arrays.asList(
+            queueItem(TraktShowProgressQueue.SEEN, 1),
+            queueItem(TraktShowProgressQueue.SEEN, 2),
+            queueItem(TraktShowProgressQueue.UNSEEN, 1),
+            queueItem(TraktShowProgressQueue.UNSEEN, 3),
+            queueItem(TraktShowProgressQueue.SEEN, 3)
+        ));
+        List<TraktShowProgressQueue> redundant = TraktQueueProcessor.removeRedundantItems(queue);
+        assertEquals(1, redundant.size());
+        assertEquals(1, redundant.get(0).getEpisode());
+        assertEquals(TraktShowProgressQueue.SEEN, redundant.get(0).getMarkType());
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.get(0).getEpisode());
+        assertEquals(TraktShowProgressQueue.UNSEEN, queue.get(1).getMarkType());
+    }
+
+    @Test
+    public void testGroupQueueByContinuousType() {
+        List<TraktShowProgressQueue> queue = Arrays.asList(
+            queueItem(TraktShowProgressQueue.SEEN),
+            queueItem(TraktShowProgressQueue.SEEN),
+            queueItem(TraktShowProgressQueue.UNSEEN),
+            queueItem(TraktShowProgressQueue.SEEN)
+        );
+        List<List<TraktShowProgressQueue>> batches = TraktQueueProcessor.groupQueueByContinuousType(queue);
+        assertEquals(3, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        assertEquals(1, batches.get(2).size());
+    }
+
+    private TraktShowProgressQueue queueItem(String markType) {
+        return queueItem(markType, 1);
+    }
+
+    private TraktShowProgressQueue queueItem(String markType, int episode) {
+        TraktShowProgressQueue item = new TraktShowProgressQueue();
+        item.setShow(show);
+        item.setSeason(1);
+        item.setEpisode(episode);
+        item.setMarkType(markType);
+        return item;
+    }
+}
@@ -0,0 +1,138 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import com.j256.ormlite.support.ConnectionSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.libtv.matcher.TVEpisodeMatcher;
+import uk.co.samicemalone.libtv.matcher.path.StandardTVLibrary;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
+import uk.co.samicemalone.tv.FileSystemEnvironment;
+import uk.co.samicemalone.tv.MockFileSystem;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.util.AssertionUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EpisodeIndexTest extends FileSystemEnvironment {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private TVDatabase tvdb;
+    private ConnectionSource source;
+    private EpisodeIndex episodeIndex;
+    private Show show;
+
+    @Before
+    public void setUp() throws Exception {
+        tvdb = new TVDatabase();
+        source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE);
+        TVEpisodeMatcher matcher = new TVEpisodeMatcher(new StandardTVLibrary(MockFileSystem.getSourceFolders()));
+        episodeIndex = new EpisodeIndex(tvdb, matcher, MockFileSystem.getSourceFolders());
+        show = new Show("Scrubs");
+        tvdb.createOrUpdateShow(show);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        source.closeQuietly();
+    }
+
+    @Test
+    public void getEpisodes() throws Exception {
+        List<EpisodeMatch> actualMatches = episodeIndex.getEpisodes(show);
+        List<EpisodeMatch> expectedMatches = MockFileSystem.getFullSeasonEpisodeMatches("Scrubs", 1, MockFileSystem.NUM_SEASONS);
+        assertEquals(expectedMatches.size(), actualMatches.size());
+        for(int i = 0; i < expectedMatches.size(); i++) {
+            AssertionUtil.assertEpisodeMatchEqual(expectedMatches.get(i), actualMatches.get(i));
+        }
+        assertFalse(tvdb.getIndexedDirectories(show).isEmpty());
+    }
+
+    @Test
+    public void refreshModifiedSeason() throws Exception {
+        episodeIndex.getEpisodes(show);
+        File seasonDir = MockFileSystem.getSeasonDir("Scrubs", 2);
+        File newEpisode = new File(seasonDir, MockFileSystem.genFileName("Scrubs", 2, MockFileSystem.NUM_EPISODES + 1));
+        try {
+            newEpisode.createNewFile();
+            seasonDir.setLastModified(seasonDir.lastModified() + 10000);
+            List<EpisodeMatch> actualMatches = episodeIndex.getEpisodes(show);
+            assertEquals(MockFileSystem.NUM_EPISODES * MockFileSystem.NUM_SEASONS + 1, actualMatches.size());
+        } finally {
+            newEpisode.delete();
+        }
+    }
+
+    @Test
+    public void refreshAddedShowDirectory() throws Exception {
+        File otherSource = temp.newFolder("source2");
+        List<EpisodeMatch> listed = new ArrayList<>();
+        listed.add(MockFileSystem.getEpisodeMatch("Scrubs", 1, 1));
+        TVEpisodeMatcher matcher = new TVEpisodeMatcher(new StandardTVLibrary(MockFileSystem.getSourceFolders())) {
+            @Override
+            public List<EpisodeMatch> matchAllEpisodes(String show) {
+                return new ArrayList<>(listed);
+            }
+        };
+        List<String> sourceFolders = Arrays.asList(MockFileSystem.getSourceFolders().get(0), otherSource.getPath());
+        EpisodeIndex index = new EpisodeIndex(tvdb, matcher, sourceFolders);
+        assertEquals(1, index.getEpisodes(show).size());
+        // a Scrubs directory added to the other SOURCE folder modifies the folder, not the indexed directories
+        File seasonDir = new File(otherSource, "Scrubs/Season 9");
+        seasonDir.mkdirs();
+        EpisodeMatch addedEpisode = new EpisodeMatch("Scrubs", 9, 1);
+        addedEpisode.setEpisodeFile(new File(seasonDir, MockFileSystem.genFileName("Scrubs", 9, 1)));
+        listed.add(addedEpisode);
+        otherSource.setLastModified(otherSource.lastModified() + 10000);
+        assertEquals(2, index.getEpisodes(show).size());
+    }
+
+    @Test
+    public void getEpisodesReadOnly() throws Exception {
+        File tvdbFile = new File(temp.getRoot(), "tvdb.sqlite");
+        List<EpisodeMatch> listed = new ArrayList<>();
+        listed.add(MockFileSystem.getEpisodeMatch("Scrubs", 1, 1));
+        TVEpisodeMatcher matcher = new TVEpisodeMatcher(new StandardTVLibrary(MockFileSystem.getSourceFolders())) {
+            @Override
+            public List<EpisodeMatch> matchAllEpisodes(String show) {
+                return new ArrayList<>(listed);
+            }
+        };
+        TVDatabase fileTVDB = new TVDatabase();
+        try (ConnectionSource fileSource = fileTVDB.connect(tvdbFile.getAbsolutePath())) {
+            Show fileShow = new Show("Scrubs");
+            fileTVDB.createOrUpdateShow(fileShow);
+            new EpisodeIndex(fileTVDB, matcher, MockFileSystem.getSourceFolders()).getEpisodes(fileShow);
+        }
+        try (ConnectionSource fileSource = fileTVDB.connect(tvdbFile.getAbsolutePath(), true)) {
+            assertTrue(fileTVDB.isReadOnly());
+            EpisodeIndex index = new EpisodeIndex(fileTVDB, matcher, MockFileSystem.getSourceFolders());
+            Show indexedShow = fileTVDB.getShowByName("Scrubs");
+            assertTrue(index.isUpToDate(indexedShow));
+            assertEquals(1, index.getEpisodes(indexedShow).size());
+            // the show directory is out of date: listed again but not re-indexed
+            File showDir = MockFileSystem.getEpisodeMatch("Scrubs", 1, 1).getEpisodeFile().getParentFile().getParentFile();
+            long lastModified = showDir.lastModified();
+            listed.add(MockFileSystem.getEpisodeMatch("Scrubs", 1, 2));
+            try {
+                showDir.setLastModified(lastModified + 10000);
+                assertFalse(index.isUpToDate(indexedShow));
+                assertEquals(2, index.getEpisodes(indexedShow).size());
+                assertEquals(1, fileTVDB.getIndexedEpisodes(indexedShow).size());
+            } finally {
+                showDir.setLastModified(lastModified);
+            }
+        }
+    }
+}
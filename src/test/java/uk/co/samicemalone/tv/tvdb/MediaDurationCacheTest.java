@@ -0,0 +1,68 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.tv.tvdb.model.MediaDuration;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MediaDurationCacheTest extends AbstractTVDatabaseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCacheMissThenHit() throws Exception {
+        File episode = folder.newFile("s01e01.mkv");
+        MediaDurationCache cache = new MediaDurationCache(tvdb);
+        cache.load(Collections.singletonList(episode));
+        assertEquals(MediaDurationCache.UNKNOWN_DURATION, cache.getDuration(episode));
+        cache.putDuration(episode, 1320000);
+        cache.save();
+
+        MediaDurationCache reloaded = new MediaDurationCache(tvdb);
+        reloaded.load(Collections.singletonList(episode));
+        assertEquals(1320000, reloaded.getDuration(episode));
+    }
+
+    @Test
+    public void testModifiedFileIsMiss() throws Exception {
+        File episode = folder.newFile("s01e01.mkv");
+        MediaDurationCache cache = new MediaDurationCache(tvdb);
+        cache.load(Collections.singletonList(episode));
+        cache.putDuration(episode, 1320000);
+        cache.save();
+
+        Files.write(episode.toPath(), new byte[16]);
+        MediaDurationCache reloaded = new MediaDurationCache(tvdb);
+        reloaded.load(Collections.singletonList(episode));
+        assertEquals(MediaDurationCache.UNKNOWN_DURATION, reloaded.getDuration(episode));
+        reloaded.putDuration(episode, 1500000);
+        reloaded.save();
+
+        List<MediaDuration> durations = tvdb.getMediaDurations(Collections.singletonList(episode.getCanonicalPath()));
+        assertEquals(1, durations.size());
+        assertEquals(16, durations.get(0).getSize());
+        assertEquals(1500000, durations.get(0).getDuration());
+    }
+
+    @Test
+    public void testMissingFileIsNotCached() throws Exception {
+        File episode = folder.newFile("s01e01.mkv");
+        File missing = new File(folder.getRoot(), "s01e02.mkv");
+        MediaDurationCache cache = new MediaDurationCache(tvdb);
+        cache.load(Arrays.asList(episode, missing));
+        cache.putDuration(episode, 1320000);
+        cache.putDuration(missing, 1320000);
+        cache.save();
+        assertEquals(MediaDurationCache.UNKNOWN_DURATION, cache.getDuration(missing));
+        assertEquals(0, tvdb.getMediaDurations(Collections.singletonList(missing.getCanonicalPath())).size());
+    }
+}
@@ -0,0 +1,83 @@
+package uk.co.samicemalone.tv.tvdb;
+
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.jdbc.db.SqliteDatabaseType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import com.j256.ormlite.table.DatabaseTableConfigLoader;
+import org.junit.Test;
+import uk.co.samicemalone.tv.model.Episode;
+import uk.co.samicemalone.tv.tvdb.model.Show;
+import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class TVDatabaseTableConfigsTest {
+
+    private static List<DatabaseTableConfig<?>> generateConfigs() throws Exception {
+        StringWriter out = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(out)) {
+            TVDatabaseTableConfigs.writeConfigs(writer);
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader(out.toString()))) {
+            return DatabaseTableConfigLoader.loadDatabaseConfigFromReader(reader);
+        }
+    }
+
+    @Test
+    public void writeConfigsMatchesAnnotations() throws Exception {
+        DatabaseType databaseType = new SqliteDatabaseType();
+        List<DatabaseTableConfig<?>> configs = generateConfigs();
+        assertEquals(TVDatabaseTableConfigs.MODELS.size(), configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            Class<?> model = TVDatabaseTableConfigs.MODELS.get(i);
+            DatabaseTableConfig<?> expected = DatabaseTableConfig.fromClass(databaseType, model);
+            DatabaseTableConfig<?> actual = configs.get(i);
+            assertEquals(model, actual.getDataClass());
+            assertEquals(expected.getTableName(), actual.getTableName());
+            actual.extractFieldTypes(databaseType);
+            FieldType[] expectedFields = expected.getFieldTypes(databaseType);
+            FieldType[] actualFields = actual.getFieldTypes(databaseType);
+            assertEquals(expectedFields.length, actualFields.length);
+            for (int j = 0; j < expectedFields.length; j++) {
+                assertEquals(expectedFields[j].getFieldName(), actualFields[j].getFieldName());
+                assertEquals(expectedFields[j].getColumnName(), actualFields[j].getColumnName());
+                assertEquals(expectedFields[j].getDataPersister(), actualFields[j].getDataPersister());
+                assertEquals(expectedFields[j].isId(), actualFields[j].isId());
+                assertEquals(expectedFields[j].isForeign(), actualFields[j].isForeign());
+            }
+        }
+    }
+
+    @Test
+    public void connectWithGeneratedConfigs() throws Exception {
+        DaoManager.clearCache();
+        DaoManager.addCachedDatabaseConfigs(generateConfigs());
+        TVDatabase tvdb = new TVDatabase();
+        ConnectionSource source = tvdb.connect(TVDatabase.IN_MEMORY_DATABASE);
+        try {
+            Show show = new Show("Scrubs");
+            tvdb.createOrUpdateShow(show);
+            Episode pointer = new Episode(show.getName(), "", 2, 5);
+            pointer.setWatchedAt(Instant.now());
+            tvdb.setShowProgress(pointer);
+            ShowProgress progress = tvdb.getShowProgress(show, "");
+            assertNotNull(progress);
+            assertEquals(2, progress.getSeason());
+            assertEquals(5, progress.getEpisode());
+        } finally {
+            source.closeQuietly();
+            DaoManager.clearCache();
+        }
+    }
+}
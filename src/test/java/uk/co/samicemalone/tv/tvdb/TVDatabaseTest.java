@@ -1,19 +1,36 @@
 package uk.co.samicemalone.tv.tvdb;
 
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.co.samicemalone.libtv.model.EpisodeMatch;
 import uk.co.samicemalone.tv.model.Episode;
 import uk.co.samicemalone.tv.tvdb.model.Show;
 import uk.co.samicemalone.tv.tvdb.model.ShowProgress;
 
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Instant;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TVDatabaseTest extends AbstractTVDatabaseTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void connect() {
         assertNotNull(source);
@@ -38,10 +55,9 @@ public class TVDatabaseTest extends AbstractTVDatabaseTest {
             Show show = new Show(showName);
             Instant watchedAt = Instant.now();
             tvdb.createOrUpdateShow(show);
-            ShowProgress expectedProgress = new ShowProgress(show, "", 1, 1);
             Episode episode = new Episode(show.getName(), "", 3, 2);
             episode.setWatchedAt(watchedAt);
-            tvdb.setShowProgress(expectedProgress, episode);
+            tvdb.setShowProgress(episode);
             ShowProgress actualProgress = tvdb.getShowProgress(show, "");
             assertNotNull(actualProgress);
             assertEquals(3, actualProgress.getSeason());
@@ -67,4 +83,229 @@ public class TVDatabaseTest extends AbstractTVDatabaseTest {
         assertEquals(id, actualShow.getId());
         assertEquals(slug, actualShow.getSlug());
     }
+
+    @Test
+    public void setShowProgressUpsert() throws SQLException {
+        tvdb.createOrUpdateShow(new Show("Scrubs"));
+        tvdb.setShowProgress(new Episode("Scrubs", "", 1, 1).setWatchedAt(Instant.now()));
+        ShowProgress first = tvdb.getShowProgress(new Show("Scrubs"), "");
+        // a stale current progress still updates the existing row
+        tvdb.setShowProgress(new Episode("Scrubs", "", 2, 3).setWatchedAt(Instant.now()));
+        tvdb.setShowProgress(new Episode("Scrubs", "other", 4, 5).setWatchedAt(Instant.now()));
+        ShowProgress progress = tvdb.getShowProgress(new Show("Scrubs"), "");
+        assertEquals(first.getId(), progress.getId());
+        assertEquals(2, progress.getSeason());
+        assertEquals(3, progress.getEpisode());
+        assertEquals(4, tvdb.getShowProgress(new Show("Scrubs"), "other").getSeason());
+        assertEquals(2, tvdb.getRecentShowProgress("").size() + tvdb.getRecentShowProgress("other").size());
+    }
+
+    @Test
+    public void getRecentShowProgress() throws SQLException {
+        String[] shows = new String[] {"Scrubs", "Friends", "Modern Family"};
+        Instant watchedAt = Instant.parse("2020-01-01T00:00:00Z");
+        for (int i = 0; i < shows.length; i++) {
+            Show show = new Show(shows[i]);
+            tvdb.createOrUpdateShow(show);
+            tvdb.setShowProgress(new Episode(show.getName(), "", 1, i + 1).setWatchedAt(watchedAt.plusSeconds(i * 60)));
+        }
+        Show other = tvdb.getShowByName("Scrubs");
+        tvdb.setShowProgress(new Episode(other.getName(), "other", 2, 1).setWatchedAt(watchedAt.plusSeconds(600)));
+
+        // watching an episode of the oldest show makes it the most recent
+        ShowProgress scrubs = tvdb.getShowProgress(other, "");
+        tvdb.setShowProgress(new Episode("Scrubs", "", 1, 5).setWatchedAt(watchedAt.plusSeconds(300)));
+
+        List<ShowProgress> recent = tvdb.getRecentShowProgress("");
+        assertEquals(3, recent.size());
+        assertEquals("Scrubs", recent.get(0).getShow().getName());
+        assertEquals(5, recent.get(0).getEpisode());
+        assertEquals(scrubs.getId(), recent.get(0).getId());
+        assertEquals("Modern Family", recent.get(1).getShow().getName());
+        assertEquals("Friends", recent.get(2).getShow().getName());
+        assertEquals(watchedAt.plusSeconds(60).getEpochSecond(), recent.get(2).getWatchedAt().toInstant().getEpochSecond());
+    }
+
+    @Test
+    public void setShowProgressNextEpisode() throws SQLException {
+        Show show = new Show("Scrubs");
+        tvdb.createOrUpdateShow(show);
+        EpisodeMatch next = new EpisodeMatch("Scrubs", 1, 3);
+        next.getEpisodes().add(4);
+        next.setEpisodeFile(new File("Scrubs", "Scrubs.S01E03E04.mkv").getAbsoluteFile());
+        tvdb.setShowProgress(new Episode("Scrubs", "", 1, 2).setWatchedAt(Instant.now()), next, 1234L);
+
+        ShowProgress progress = tvdb.getShowProgress(show, "");
+        EpisodeMatch actualNext = progress.getNextEpisode();
+        assertNotNull(actualNext);
+        assertEquals(1, actualNext.getSeason());
+        assertEquals(next.getEpisodes(), actualNext.getEpisodes());
+        assertEquals(next.getEpisodeFile(), actualNext.getEpisodeFile());
+        assertEquals(1234L, progress.getNextDirectoryModified());
+        assertEquals(next.getEpisodeFile(), tvdb.getRecentShowProgress("").get(0).getNextEpisode().getEpisodeFile());
+
+        tvdb.setShowProgress(new Episode("Scrubs", "", 1, 4).setWatchedAt(Instant.now()));
+        progress = tvdb.getShowProgress(show, "");
+        assertEquals(4, progress.getEpisode());
+        assertNull(progress.getNextEpisode());
+        assertEquals(0, progress.getNextDirectoryModified());
+    }
+
+    @Test
+    public void connectAddsNextEpisodeColumns() throws Exception {
+        File database = folder.newFile("tvdb.sqlite");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE `show` (`id` INTEGER PRIMARY KEY AUTOINCREMENT, `name` VARCHAR NOT NULL, " +
+                "`year` INTEGER, `traktId` INTEGER, `tvdbId` INTEGER, `imdbId` VARCHAR, `slug` VARCHAR)");
+            statement.execute("CREATE TABLE `showProgress` (`id` INTEGER PRIMARY KEY AUTOINCREMENT, `showId` INTEGER NOT NULL, " +
+                "`tag` VARCHAR, `season` INTEGER NOT NULL, `episode` INTEGER NOT NULL, " +
+                "`watchedAt` TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            statement.execute("INSERT INTO `show` (`name`) VALUES ('Scrubs')");
+            statement.execute("INSERT INTO `showProgress` (`showId`, `tag`, `season`, `episode`, `watchedAt`) " +
+                "VALUES (1, '', 2, 3, '2020-01-01 00:00:00')");
+        }
+        TVDatabase fileTvdb = new TVDatabase();
+        try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath())) {
+            ShowProgress progress = fileTvdb.getShowProgress(fileTvdb.getShowByName("Scrubs"), "");
+            assertEquals(3, progress.getEpisode());
+            assertNull(progress.getNextEpisode());
+        }
+    }
+
+    @Test
+    public void connectMigratesSchema() throws Exception {
+        assertEquals(TVDatabaseSchema.VERSION, TVDatabaseSchema.getVersion(source));
+        File database = folder.newFile("tvdb.sqlite");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE `show` (`id` INTEGER PRIMARY KEY AUTOINCREMENT, `name` VARCHAR NOT NULL, " +
+                "`year` INTEGER, `traktId` INTEGER, `tvdbId` INTEGER, `imdbId` VARCHAR, `slug` VARCHAR)");
+            statement.execute("CREATE TABLE `showProgress` (`id` INTEGER PRIMARY KEY AUTOINCREMENT, `showId` INTEGER NOT NULL, " +
+                "`tag` VARCHAR, `season` INTEGER NOT NULL, `episode` INTEGER NOT NULL, " +
+                "`watchedAt` TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            statement.execute("INSERT INTO `show` (`name`) VALUES ('Scrubs')");
+            statement.execute("INSERT INTO `showProgress` (`showId`, `tag`, `season`, `episode`) VALUES (1, '', 1, 1)");
+            statement.execute("INSERT INTO `showProgress` (`showId`, `tag`, `season`, `episode`) VALUES (1, '', 2, 5)");
+        }
+        TVDatabase fileTvdb = new TVDatabase();
+        for (int i = 0; i < 2; i++) {
+            try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath())) {
+                assertEquals(TVDatabaseSchema.VERSION, TVDatabaseSchema.getVersion(fileSource));
+                ShowProgress progress = fileTvdb.getShowProgress(fileTvdb.getShowByName("Scrubs"), "");
+                assertEquals(2, progress.getSeason());
+                assertEquals(5, progress.getEpisode());
+            }
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            ResultSet migrations = statement.executeQuery("SELECT COUNT(*) FROM schema_version");
+            assertEquals(TVDatabaseSchema.VERSION, migrations.getInt(1));
+            ResultSet progress = statement.executeQuery("SELECT COUNT(*) FROM showProgress");
+            assertEquals(1, progress.getInt(1));
+            try {
+                statement.execute("INSERT INTO `showProgress` (`showId`, `tag`, `season`, `episode`) VALUES (1, '', 3, 1)");
+                fail("expected the show and tag to be unique");
+            } catch (SQLException e) {
+                assertTrue(e.getMessage().contains("UNIQUE"));
+            }
+        }
+    }
+
+    @Test
+    public void connectAddsProgressTagWatchedAtIndex() throws Exception {
+        File database = folder.newFile("tvdb.sqlite");
+        TVDatabase fileTvdb = new TVDatabase();
+        try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath())) {
+            fileTvdb.createOrUpdateShow(new Show("Scrubs"));
+        }
+        // downgrade to a version 3 TVDB
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS indexQueueWatchedAt");
+            statement.execute("DROP INDEX IF EXISTS indexProgressTagWatchedAt");
+            statement.execute("DELETE FROM schema_version WHERE version > 3");
+        }
+        try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath())) {
+            assertEquals(TVDatabaseSchema.VERSION, TVDatabaseSchema.getVersion(fileSource));
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            ResultSet index = statement.executeQuery("SELECT COUNT(*) FROM sqlite_master " +
+                "WHERE type = 'index' AND name = 'indexProgressTagWatchedAt' AND tbl_name = 'showProgress'");
+            assertEquals(1, index.getInt(1));
+        }
+    }
+
+    @Test
+    public void connectReadOnly() throws Exception {
+        File database = folder.newFile("tvdb.sqlite");
+        TVDatabase fileTvdb = new TVDatabase();
+        try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath())) {
+            fileTvdb.createOrUpdateShow(new Show("Scrubs"));
+        }
+        try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath(), true)) {
+            assertTrue(fileTvdb.isReadOnly());
+            assertEquals("Scrubs", fileTvdb.getShowByName("Scrubs").getName());
+            try {
+                fileTvdb.createOrUpdateShow(new Show("Community"));
+                fail("expected the read only TVDB to reject writes");
+            } catch (SQLException e) {
+                assertNull(fileTvdb.getShowByName("Community"));
+            }
+        }
+    }
+
+    @Test
+    public void connectReadOnlyMissingDatabase() throws Exception {
+        File database = new File(folder.getRoot(), "tvdb.sqlite");
+        TVDatabase fileTvdb = new TVDatabase();
+        try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath(), true)) {
+            assertFalse(fileTvdb.isReadOnly());
+            assertTrue(database.isFile());
+        }
+    }
+
+    @Test
+    public void getReadOnlyUrl() {
+        TVDatabaseProfile profile = new TVDatabaseProfile();
+        String pragmas = "&" + profile.getQuery(true);
+        assertEquals("jdbc:sqlite:file:/home/sam/tv%3f%2523.db?mode=ro" + pragmas, TVDatabase.getReadOnlyUrl("/home/sam/tv?%23.db", profile));
+        assertEquals("jdbc:sqlite:file:C:/Users/sam/tvdb.db?mode=ro" + pragmas, TVDatabase.getReadOnlyUrl("C:\\Users\\sam\\tvdb.db", profile));
+    }
+
+    @Test
+    public void connectAppliesProfile() throws Exception {
+        File database = new File(folder.getRoot(), "tvdb.sqlite");
+        TVDatabaseProfile profile = new TVDatabaseProfile();
+        profile.setBusyTimeout("1234");
+        profile.setCacheSize("-4000");
+        TVDatabase fileTvdb = new TVDatabase();
+        fileTvdb.setProfile(profile);
+        for (boolean readOnly : new boolean[] { false, true }) {
+            try (ConnectionSource fileSource = fileTvdb.connect(database.getAbsolutePath(), readOnly)) {
+                DatabaseConnection connection = fileSource.getReadOnlyConnection(null);
+                try {
+                    assertEquals(readOnly, fileTvdb.isReadOnly());
+                    assertEquals(1234, connection.queryForLong("PRAGMA busy_timeout"));
+                    assertEquals(-4000, connection.queryForLong("PRAGMA cache_size"));
+                    assertEquals(1, connection.queryForLong("PRAGMA synchronous"));
+                    assertEquals(2, connection.queryForLong("PRAGMA temp_store"));
+                } finally {
+                    fileSource.releaseConnection(connection);
+                }
+            }
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            assertEquals("wal", statement.executeQuery("PRAGMA journal_mode").getString(1));
+        }
+    }
+
+    @Test
+    public void isBusy() {
+        SQLException busy = new SQLException("[SQLITE_BUSY] The database file is locked (database is locked)", null, 5);
+        assertTrue(TVDatabase.isBusy(new SQLException("Unable to run insert stmt", busy)));
+        assertFalse(TVDatabase.isBusy(new SQLException("[SQLITE_CONSTRAINT] Abort due to constraint violation", null, 19)));
+    }
 }